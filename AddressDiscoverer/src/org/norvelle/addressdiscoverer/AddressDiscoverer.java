@@ -7,27 +7,33 @@
 package org.norvelle.addressdiscoverer;
 
 import org.norvelle.utils.Utils;
-import com.j256.ormlite.jdbc.JdbcConnectionSource;
 import com.j256.ormlite.logger.LocalLog;
 import com.j256.ormlite.support.ConnectionSource;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.norvelle.addressdiscoverer.batch.BatchExtractor;
 import org.norvelle.addressdiscoverer.exceptions.CannotLoadJDBCDriverException;
 import org.norvelle.addressdiscoverer.gui.MainWindow;
 import org.norvelle.addressdiscoverer.model.Abbreviations;
+import org.norvelle.addressdiscoverer.model.Database;
 import org.norvelle.addressdiscoverer.model.Department;
+import org.norvelle.addressdiscoverer.model.ExportBatch;
 import org.norvelle.addressdiscoverer.model.GenderDeterminer;
 import org.norvelle.addressdiscoverer.model.GrammarParticles;
 import org.norvelle.addressdiscoverer.model.Individual;
@@ -35,6 +41,9 @@ import org.norvelle.addressdiscoverer.model.Institution;
 import org.norvelle.addressdiscoverer.model.KnownFirstName;
 import org.norvelle.addressdiscoverer.model.KnownLastName;
 import org.norvelle.addressdiscoverer.model.KnownSpanishWord;
+import org.norvelle.addressdiscoverer.model.PageStore;
+import org.norvelle.addressdiscoverer.model.RowCounts;
+import org.norvelle.addressdiscoverer.model.SchemaMigrator;
 
 /**
  * 
@@ -51,16 +60,31 @@ public class AddressDiscoverer {
     // Our "singleton" application instance
     public static AddressDiscoverer application;
     
+    // How often, in minutes, the row counts shown in the status bar are
+    // checked against the tables
+    public static int defaultReconcileInterval = 10;
+    
     // Private variables for the application
     private final MainWindow window;
     private Properties props;
     private String propsFilename;
     private String settingsDirname;
-    private Connection connection;
     private String jdbcUrl;
+    private ScheduledExecutorService reconciler;
     
-    @SuppressWarnings("LeakingThisInConstructor")
     public AddressDiscoverer() throws Exception {
+        this(true);
+    }
+    
+    /**
+     * Start the application, optionally without a GUI, in which case only the
+     * database and dictionaries are loaded (for batch runs).
+     * 
+     * @param withGui Whether to create the main window
+     * @throws Exception 
+     */
+    @SuppressWarnings("LeakingThisInConstructor")
+    public AddressDiscoverer(boolean withGui) throws Exception {
         AddressDiscoverer.application = this;
         
         // First setup our logger. The ORMLite logger is prolix and useless,
@@ -87,12 +111,17 @@ public class AddressDiscoverer {
         GenderDeterminer.initialize(this.settingsDirname);
         
         // Create our GUI
+        if (!withGui) {
+            window = null;
+            return;
+        }
         UIManager.setLookAndFeel(
             UIManager.getSystemLookAndFeelClassName());
         window = new MainWindow(this);
         window.setTitle("AddressDiscoverer"); 
         window.setExtendedState( window.getExtendedState() | java.awt.Frame.MAXIMIZED_BOTH );
         window.setVisible(true);
+        this.startReconciler();
     }
 
     public void shutdown()  {
@@ -106,6 +135,13 @@ public class AddressDiscoverer {
                             + ex.getMessage(), 60), 
                     "Data storage failure", JOptionPane.ERROR_MESSAGE);
         }
+        if (this.reconciler != null)
+            this.reconciler.shutdownNow();
+        try {
+            Database.close();
+        } catch (SQLException ex) {
+            logger.log(Level.WARNING, "Could not close database: {0}", ex.getMessage());
+        }
         logger.info("Exiting AddressDiscoverer");
         System.exit(0);
     }
@@ -135,15 +171,51 @@ public class AddressDiscoverer {
             throw new CannotLoadJDBCDriverException(ex.getMessage());
         }
 
-        // create a database connection and initialize our tables.
-        // All object persistence is managed via ORMLite.
+        // create a database connection pool and initialize our tables.
+        // All object persistence is managed via ORMLite, and code that
+        // runs SQL directly borrows its connections from the same pool.
         String dbFilename = this.settingsDirname + File.separator + "addresses.sqlite";
         this.jdbcUrl = "jdbc:sqlite:" + dbFilename;
-        ConnectionSource connectionSource =
-            new JdbcConnectionSource(this.jdbcUrl);
+        ConnectionSource connectionSource = Database.open(this.jdbcUrl);
         Institution.initialize(connectionSource);
         Department.initialize(connectionSource);
         Individual.initialize(connectionSource);
+        ExportBatch.initialize(connectionSource);
+        PageStore.initialize(connectionSource);
+        SchemaMigrator.migrate(connectionSource);
+    }
+    
+    /**
+     * Recount the rows behind the status bar every defaultReconcileInterval
+     * minutes, on a background thread, in case the counts have drifted.
+     */
+    private void startReconciler() {
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "row-count-reconciler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.reconciler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    RowCounts.reconcile();
+                } catch (SQLException ex) {
+                    logger.log(Level.WARNING, "Could not reconcile row counts: {0}", 
+                            ex.getMessage());
+                    return;
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        statusChanged();
+                    }
+                });
+            }
+        }, defaultReconcileInterval, defaultReconcileInterval, TimeUnit.MINUTES);
     }
     
     private void loadProperties() {
@@ -166,9 +238,9 @@ public class AddressDiscoverer {
         
     public void statusChanged() {
         try {
-            int numInstitutions = (int) Institution.getCount();
-            int numDepartments = (int) Department.getCount();
-            int numIndividuals = (int) Individual.getCount();
+            long numInstitutions = RowCounts.getCount("institution");
+            long numDepartments = RowCounts.getCount("department");
+            long numIndividuals = RowCounts.getCount("individual");
             String statusText = String.format(
                     "%d individuals in %d departments from %d institutions",
                     numIndividuals, numDepartments, numInstitutions);
@@ -184,7 +256,8 @@ public class AddressDiscoverer {
     public static void reportException(Exception e) {
         logger.log(Level.SEVERE, e.getMessage());
         logger.log(Level.SEVERE, ExceptionUtils.getStackTrace(e));
-        AddressDiscoverer.application.window.reportException(e.getMessage());
+        if (AddressDiscoverer.application.window != null)
+            AddressDiscoverer.application.window.reportException(e.getMessage());
     }
     
     // ===================== Getters and setters =============================
@@ -192,10 +265,6 @@ public class AddressDiscoverer {
         return props;
     }
 
-    public Connection getConnection() {
-        return connection;
-    }
-
     public String getSettingsDirname() {
         return settingsDirname;
     }
@@ -209,6 +278,10 @@ public class AddressDiscoverer {
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchExtractor.main(args);
+            return;
+        }
         try {
             AddressDiscoverer.application = new AddressDiscoverer();
         } catch (Exception ex) {
@@ -10,41 +10,184 @@
  */
 package org.norvelle.addressdiscoverer;
 
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.List;
-import org.apache.commons.io.FileUtils;
-import org.norvelle.addressdiscoverer.model.Department;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.lang3.StringUtils;
 import org.norvelle.addressdiscoverer.model.Individual;
 
 /**
- * handles exporting Individual records to CSV
+ * Writes Individual records to a tab-separated file as they are read, so that
+ * exporting any number of rows takes the same small amount of memory. Feed it
+ * from an IndividualCursor rather than a list. Files whose names end in .gz
+ * are gzipped. Progress is reported to an optional listener no more often
+ * than every progressInterval milliseconds, plus once at the end.
  * 
  * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
  */
-public class IndividualExporter {
-    
-    private final File file;
-    private final List<Individual> individuals;
-    private final Department department;
-    
-    public IndividualExporter(File file, List<Individual> individuals, Department department) {
-        this.file = file;
-        this.individuals = individuals;
-        this.department = department;
-    }
-    
-    public void export() throws IOException {
-        StringBuilder csvBuilder = new StringBuilder();
-        csvBuilder.append("first").append("\tlast").append("\temail").append("\ttitle")
-                .append("\tinstitution").append("\tdepartment").append("\tother").append("\n");
-        for (Individual i : this.individuals) {
-            csvBuilder.append(i.getFirstName()).append("\t").append(i.getLastName())
-                    .append("\t").append(i.getEmail()).append("\t").append(i.getTitle())
-                    .append("\t").append(this.department.getInstitution().toString())
-                    .append("\t").append(this.department.toString()).append("\t")
-                    .append(i.getUnprocessed()).append("\n");
+public class IndividualExporter implements Closeable {
+
+    public static long defaultProgressInterval = 200;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The column layouts we export in.
+     */
+    public enum Layout {
+
+        /** The layout used when exporting from the GUI's export actions */
+        STANDARD("Gender", "First Name(s)", "Last Name(s)", "Email", "Salutation",
+                "Institution", "Department", "Role", "Other") {
+            @Override
+            String[] getRow(Individual i) {
+                return new String[] { i.getGender(), i.getFirstName(), i.getLastName(),
+                    i.getEmail(), i.getTitle(), getInstitutionName(i), getDepartmentName(i),
+                    i.getRole(), i.getUnprocessed() };
+            }
+        },
+
+        /** The standard layout plus the gendered forms needed for mail merges */
+        MAIL_MERGE("Gender", "First Name(s)", "Last Name(s)", "Email", "Salutation",
+                "Institution", "Department", "Role", "Other", 
+                "Salutation", "Greeting", "Profesor", "Investigador") {
+            @Override
+            String[] getRow(Individual i) {
+                boolean male = "M".equals(i.getGender());
+                return new String[] { i.getGender(), i.getFirstName(), i.getLastName(),
+                    i.getEmail(), i.getTitle(), getInstitutionName(i), getDepartmentName(i),
+                    i.getRole(), i.getUnprocessed(),
+                    male ? "Dr." : "Dra.",
+                    male ? "Estimado" : "Estimada",
+                    male ? "profesor" : "profesora",
+                    male ? "investigador" : "investigadora" };
+            }
+        },
+
+        /** A short layout without gender or role */
+        SIMPLE("first", "last", "email", "title", "institution", "department", "other") {
+            @Override
+            String[] getRow(Individual i) {
+                return new String[] { i.getFirstName(), i.getLastName(), i.getEmail(),
+                    i.getTitle(), getInstitutionName(i), getDepartmentName(i), 
+                    i.getUnprocessed() };
+            }
+        };
+
+        private final String[] header;
+
+        Layout(String... header) {
+            this.header = header;
+        }
+
+        public String[] getHeader() {
+            return header;
+        }
+
+        abstract String[] getRow(Individual i);
+
+        private static String getInstitutionName(Individual i) {
+            return i.getDepartment() == null || i.getDepartment().getInstitution() == null 
+                    ? "" : i.getDepartment().getInstitution().toString();
+        }
+
+        private static String getDepartmentName(Individual i) {
+            return i.getDepartment() == null ? "" : i.getDepartment().toString();
+        }
+    }
+
+    /**
+     * Receives the number of rows written so far, at a limited rate.
+     */
+    public interface IExportProgressListener {
+        void exportProgress(int rowsWritten);
+    }
+
+    private final Writer writer;
+    private final Layout layout;
+    private final long progressInterval;
+    private IExportProgressListener listener;
+    private int rowsWritten = 0;
+    private long lastReport = 0;
+
+    public IndividualExporter(File file, Layout layout) throws IOException {
+        this(file, layout, file.getName().toLowerCase().endsWith(".gz"));
+    }
+
+    public IndividualExporter(File file, Layout layout, boolean gzip) throws IOException {
+        this.layout = layout;
+        this.progressInterval = defaultProgressInterval;
+        OutputStream out = new FileOutputStream(file);
+        try {
+            if (gzip)
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+        } catch (IOException ex) {
+            out.close();
+            throw ex;
+        }
+        this.writer = new BufferedWriter(
+                new OutputStreamWriter(out, Charset.forName("UTF-8")), BUFFER_SIZE);
+    }
+
+    public void setProgressListener(IExportProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Write the header followed by a row for each Individual.
+     * 
+     * @param individuals The Individuals to write, typically a cursor
+     * @return The number of rows written
+     * @throws IOException 
+     */
+    public int export(Iterable<Individual> individuals) throws IOException {
+        this.writeLine(this.layout.getHeader());
+        for (Individual i : individuals) {
+            this.writeLine(this.layout.getRow(i));
+            this.rowsWritten ++;
+            if (this.listener != null) {
+                long now = System.currentTimeMillis();
+                if (now - this.lastReport >= this.progressInterval) {
+                    this.lastReport = now;
+                    this.listener.exportProgress(this.rowsWritten);
+                }
+            }
         }
-        FileUtils.write(file, csvBuilder, "UTF-8");
+        this.writer.flush();
+        if (this.listener != null)
+            this.listener.exportProgress(this.rowsWritten);
+        return this.rowsWritten;
     }
-}
\ No newline at end of file
+
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+    // ===================== Private Methods =============================
+
+    /**
+     * Write one row. Tabs and line breaks inside a value would split it into
+     * extra columns or rows, so they become spaces; nulls are written empty.
+     */
+    private void writeLine(String[] values) throws IOException {
+        for (int v = 0; v < values.length; v ++) {
+            if (v > 0)
+                this.writer.write('\t');
+            if (values[v] != null)
+                this.writer.write(StringUtils.replaceChars(values[v], "\t\r\n", "   "));
+        }
+        this.writer.write('\n');
+    }
+
+}
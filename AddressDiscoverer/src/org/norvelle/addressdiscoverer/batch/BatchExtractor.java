@@ -0,0 +1,284 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.batch;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.io.FileUtils;
+import org.norvelle.addressdiscoverer.AddressDiscoverer;
+import org.norvelle.addressdiscoverer.classifier.ExtractionJob;
+import org.norvelle.addressdiscoverer.classifier.ExtractionPipeline;
+import org.norvelle.addressdiscoverer.fetch.FilePageSource;
+import org.norvelle.addressdiscoverer.fetch.IPageSource;
+import org.norvelle.addressdiscoverer.fetch.StoredPageSource;
+import org.norvelle.addressdiscoverer.fetch.UrlPageSource;
+import org.norvelle.addressdiscoverer.model.Department;
+import org.norvelle.addressdiscoverer.model.ExtractionStatistics;
+
+/**
+ * Re-extracts individuals for every department in the database without the
+ * GUI, running departments concurrently through an ExtractionPipeline. Each
+ * department's page is read from its web address (a URL or a local file),
+ * or from the PageStore if it has no address. With --stored-html the stored
+ * page is preferred where there is one; with --offline only stored pages are
+ * read, and departments without one are skipped. Departments whose page and
+ * dictionaries haven't changed since they were last extracted are left as
+ * they are, unless --force is given. Results replace the stored
+ * individuals for the department, and a summary of the run is written to the
+ * settings directory.
+ * 
+ * Run it with: java -jar AddressDiscoverer.jar --batch [--workers N]
+ * [--fetchers N] [--unstructured] [--stored-html] [--offline] [--force]
+ * [--summary FILE]
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class BatchExtractor {
+
+    // A logger instance
+    private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    /**
+     * The number of threads given to each of the parse, name and link stages
+     * of the extraction pipeline
+     */
+    public static int defaultNumWorkers = 2;
+
+    /**
+     * How often, in seconds, the pipeline's stage metrics are printed; 0 for never
+     */
+    public static int metricsInterval = 30;
+
+    private final int numWorkers;
+    private final boolean useSequentialParser;
+    private final boolean preferStoredHtml;
+    private final boolean offline;
+
+    public BatchExtractor(int numWorkers, boolean useSequentialParser, boolean preferStoredHtml) {
+        this(numWorkers, useSequentialParser, preferStoredHtml, false);
+    }
+
+    /**
+     * @param numWorkers The number of threads for each pipeline stage
+     * @param useSequentialParser Whether to use the unstructured page parser
+     * @param preferStoredHtml Whether to read stored pages rather than fetch
+     * @param offline Whether to read nothing but stored pages
+     */
+    public BatchExtractor(int numWorkers, boolean useSequentialParser, 
+            boolean preferStoredHtml, boolean offline) 
+    {
+        this.numWorkers = numWorkers;
+        this.useSequentialParser = useSequentialParser;
+        this.preferStoredHtml = preferStoredHtml;
+        this.offline = offline;
+    }
+
+    /**
+     * Extract every department in the database.
+     * 
+     * @return A summary of the run
+     * @throws SQLException
+     * @throws InterruptedException 
+     */
+    public BatchSummary run() throws SQLException, InterruptedException {
+        return this.run(Department.getAll());
+    }
+
+    /**
+     * Extract the given departments, waiting until all are done.
+     * 
+     * @param departments The departments to extract
+     * @return A summary of the run
+     * @throws InterruptedException 
+     */
+    public BatchSummary run(List<Department> departments) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        BatchSummary summary = new BatchSummary();
+
+        final ExtractionPipeline pipeline = new ExtractionPipeline(this.numWorkers, 
+                this.numWorkers, this.numWorkers, ExtractionPipeline.defaultFetchThreads);
+        ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor();
+        // Jobs are summarized as they finish, so that only those in flight
+        // are held in memory
+        BlockingQueue<ExtractionJob> completed = new LinkedBlockingQueue<>();
+        int outstanding = 0;
+        pipeline.start();
+        try {
+            if (metricsInterval > 0)
+                monitor.scheduleAtFixedRate(new Runnable() {
+                    @Override
+                    public void run() {
+                        System.out.println(pipeline.getMetricsSummary());
+                    }
+                }, metricsInterval, metricsInterval, TimeUnit.SECONDS);
+
+            // Submitting blocks whenever the pipeline is full
+            for (Department department : departments) {
+                IPageSource source = this.getSource(department, pipeline.getStatistics());
+                if (source == null)
+                    summary.addSkipped(department);
+                else {
+                    pipeline.submit(department, source, this.useSequentialParser, null, completed);
+                    outstanding ++;
+                }
+                ExtractionJob job;
+                while ((job = completed.poll()) != null) {
+                    this.summarize(summary, job);
+                    outstanding --;
+                }
+            }
+            pipeline.shutdown();
+        } catch (InterruptedException ex) {
+            pipeline.abort();
+            throw ex;
+        } finally {
+            monitor.shutdownNow();
+        }
+
+        for (; outstanding > 0; outstanding --)
+            this.summarize(summary, completed.take());
+        summary.addNote(pipeline.getStatistics().getSummary());
+        summary.addNote(pipeline.getMetricsSummary());
+        summary.setElapsedMillis(System.currentTimeMillis() - start);
+        return summary;
+    }
+
+    /**
+     * Add a finished job's outcome to the summary.
+     */
+    private void summarize(BatchSummary summary, ExtractionJob job) throws InterruptedException {
+        try {
+            summary.addResult(job.get());
+        } catch (ExecutionException ex) {
+            Exception cause = (Exception) ex.getCause();
+            logger.log(Level.SEVERE, "Could not extract {0}: {1}",
+                    new Object[] { job.getDepartment().getName(), cause.getMessage() });
+            summary.addFailed(job.getDepartment(), cause);
+        }
+    }
+
+    /**
+     * Decide where to read a department's page from.
+     * 
+     * @param department
+     * @return The page source, or null if the department has no page
+     */
+    IPageSource getSource(Department department) {
+        return this.getSource(department, new ExtractionStatistics());
+    }
+
+    /**
+     * Decide where to read a department's page from, counting any fetch in
+     * the given statistics.
+     * 
+     * @param department
+     * @param statistics The totals of the run the department belongs to
+     * @return The page source, or null if the department has no page
+     */
+    IPageSource getSource(Department department, ExtractionStatistics statistics) {
+        String address = department.getWebAddress();
+        String hash = department.getPageHash();
+        boolean hasAddress = address != null && !address.trim().isEmpty();
+        boolean hasHtml = hash != null && !hash.isEmpty();
+        if (hasHtml && (this.offline || this.preferStoredHtml || !hasAddress))
+            return new StoredPageSource(hash, hasAddress ? address.trim() : "");
+        if (!hasAddress || this.offline)
+            return null;
+
+        // As in the GUI, an address naming an existing file is read locally
+        File file = new File(address.trim());
+        if (file.exists())
+            return new FilePageSource(file);
+        try {
+            return new UrlPageSource(new URL(address.trim()), statistics);
+        } catch (MalformedURLException ex) {
+            logger.log(Level.INFO, "Bad web address for {0}: {1}",
+                    new Object[] { department.getName(), address });
+            return hasHtml ? new StoredPageSource(hash, "") : null;
+        }
+    }
+
+    /**
+     * Run a batch extraction from the command line; see the class comment
+     * for the arguments accepted.
+     * 
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int numWorkers = defaultNumWorkers;
+        boolean useSequentialParser = false;
+        boolean preferStoredHtml = false;
+        boolean offline = false;
+        String summaryFilename = null;
+        for (int i = 0; i < args.length; i ++) {
+            switch (args[i]) {
+                case "--batch":
+                    break;
+                case "--workers":
+                    numWorkers = Integer.parseInt(args[++ i]);
+                    break;
+                case "--fetchers":
+                    ExtractionPipeline.defaultFetchThreads = Integer.parseInt(args[++ i]);
+                    break;
+                case "--unstructured":
+                    useSequentialParser = true;
+                    break;
+                case "--stored-html":
+                    preferStoredHtml = true;
+                    break;
+                case "--offline":
+                    offline = true;
+                    break;
+                case "--force":
+                    ExtractionPipeline.defaultSkipUnchanged = false;
+                    break;
+                case "--summary":
+                    summaryFilename = args[++ i];
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        try {
+            AddressDiscoverer application = new AddressDiscoverer(false);
+            if (summaryFilename == null)
+                summaryFilename = application.getSettingsDirname() + File.separator 
+                        + "batch-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) 
+                        + ".txt";
+            BatchExtractor extractor = 
+                    new BatchExtractor(numWorkers, useSequentialParser, preferStoredHtml, offline);
+            BatchSummary summary = extractor.run();
+            FileUtils.writeStringToFile(new File(summaryFilename), summary.toString(), "UTF-8");
+            System.out.println(summary.toString());
+            System.exit(summary.getFailed().isEmpty() ? 0 : 1);
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "Batch extraction failed", ex);
+            System.err.println("Batch extraction failed: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+}
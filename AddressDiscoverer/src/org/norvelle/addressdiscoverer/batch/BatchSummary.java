@@ -0,0 +1,120 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.norvelle.addressdiscoverer.classifier.ExtractionResult;
+import org.norvelle.addressdiscoverer.model.Department;
+
+/**
+ * Tallies the outcome of a batch run: which departments were extracted, which
+ * were unchanged since their last extraction, which were skipped for lack of
+ * a page and which failed outright, and which look like mirrors of others.
+ * Only a line of text is kept for each result, so that the individuals it
+ * holds can be let go as soon as it has been added.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class BatchSummary {
+
+    private final List<String> extracted = new ArrayList<>();
+    private final List<String> mirrors = new ArrayList<>();
+    private final List<String> skipped = new ArrayList<>();
+    private final List<String> failed = new ArrayList<>();
+    private final List<String> notes = new ArrayList<>();
+    private int numUnchanged = 0;
+    private int numIndividuals = 0;
+    private long elapsedMillis = 0;
+
+    public synchronized void addResult(ExtractionResult result) {
+        this.extracted.add(result.toString());
+        for (Department duplicate : result.getNearDuplicates())
+            this.mirrors.add(String.format("%s looks like %s", 
+                    result.getDepartment().getName(), duplicate.getName()));
+        if (result.isUnchanged())
+            this.numUnchanged ++;
+        this.numIndividuals += result.getIndividuals().size();
+    }
+
+    public synchronized void addSkipped(Department department) {
+        this.skipped.add(department.getName());
+    }
+
+    public synchronized void addFailed(Department department, Exception ex) {
+        this.failed.add(String.format("%s: %s", department.getName(), ex.getMessage()));
+    }
+
+    /**
+     * @param note A line of extra information, such as fetch metrics
+     */
+    public synchronized void addNote(String note) {
+        this.notes.add(note);
+    }
+
+    public synchronized int getNumUnchanged() {
+        return numUnchanged;
+    }
+
+    public synchronized int getNumIndividuals() {
+        return numIndividuals;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Extracted %d individuals from %d departments in %d s "
+                + "(%d unchanged, %d skipped, %d failed)\n", this.getNumIndividuals(), 
+                this.extracted.size(), this.elapsedMillis / 1000, this.getNumUnchanged(),
+                this.skipped.size(), this.failed.size()));
+        for (String note : this.notes)
+            sb.append(note).append("\n");
+        sb.append("\nExtracted:\n");
+        for (String line : this.extracted)
+            sb.append("  ").append(line).append("\n");
+        sb.append("\nPossible mirrors:\n");
+        for (String mirror : this.mirrors)
+            sb.append("  ").append(mirror).append("\n");
+        sb.append("\nFailed:\n");
+        for (String failure : this.failed)
+            sb.append("  ").append(failure).append("\n");
+        sb.append("\nSkipped (no web address or stored page):\n");
+        for (String name : this.skipped)
+            sb.append("  ").append(name).append("\n");
+        return sb.toString();
+    }
+
+    // ===================== Getters and setters =============================
+
+    /**
+     * @return A line describing each department extracted
+     */
+    public synchronized List<String> getExtracted() {
+        return new ArrayList<>(extracted);
+    }
+
+    public synchronized List<String> getSkipped() {
+        return new ArrayList<>(skipped);
+    }
+
+    public synchronized List<String> getFailed() {
+        return new ArrayList<>(failed);
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+}
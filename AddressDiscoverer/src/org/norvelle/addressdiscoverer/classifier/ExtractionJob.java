@@ -0,0 +1,367 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.classifier;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jsoup.nodes.Document;
+import org.norvelle.addressdiscoverer.exceptions.DoesNotContainContactLinkException;
+import org.norvelle.addressdiscoverer.exceptions.LinkFetchFailedException;
+import org.norvelle.addressdiscoverer.exceptions.EndNodeWalkingException;
+import org.norvelle.addressdiscoverer.exceptions.MultipleContactLinksOfSameTypeFoundException;
+import org.norvelle.addressdiscoverer.fetch.FetchScheduler;
+import org.norvelle.addressdiscoverer.fetch.IPageSource;
+import org.norvelle.addressdiscoverer.gui.threading.ExtractIndividualsStatusReporter;
+import org.norvelle.addressdiscoverer.gui.threading.ExtractIndividualsStatusReporter.ClassificationStages;
+import org.norvelle.addressdiscoverer.model.Department;
+import org.norvelle.addressdiscoverer.model.ExtractionStatistics;
+import org.norvelle.addressdiscoverer.model.Individual;
+import org.norvelle.addressdiscoverer.model.NameBatchParser;
+import org.norvelle.addressdiscoverer.model.ParsedNames;
+import org.norvelle.addressdiscoverer.model.UnamName;
+import org.norvelle.addressdiscoverer.parse.ContactLink;
+import org.norvelle.addressdiscoverer.parse.ExtractionContext;
+import org.norvelle.addressdiscoverer.parse.INameElement;
+import org.norvelle.addressdiscoverer.parse.INameElementFinder;
+import org.norvelle.addressdiscoverer.parse.structured.StructuredNameElementFinder;
+import org.norvelle.addressdiscoverer.parse.unstructured.UnstructuredNameElementFinder;
+
+/**
+ * The extraction of a single department's page as it moves through the
+ * ExtractionPipeline. Each method below is one step of the process, called by
+ * the corresponding pipeline stage; the job keeps track of how many of its
+ * names are still in flight so that it can be stored once the last is done.
+ * Individuals are kept in page order whatever order their names finish in.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class ExtractionJob {
+
+    /**
+     * A single name found on the page, on its way to becoming an Individual.
+     */
+    public static class NameTask {
+
+        private final ExtractionJob job;
+        private final int index;
+        private final INameElement element;
+        private final UnamName name;
+        private ContactLink link;
+
+        NameTask(ExtractionJob job, int index, INameElement element, UnamName name) {
+            this.job = job;
+            this.index = index;
+            this.element = element;
+            this.name = name;
+        }
+
+        public ExtractionJob getJob() {
+            return job;
+        }
+
+        @Override
+        public String toString() {
+            return this.element.toString();
+        }
+    }
+
+    private final Department department;
+    private final IPageSource source;
+    private final boolean useSequentialParser;
+    private final IProgressConsumer progressConsumer;
+    private final FetchScheduler fetchScheduler;
+    private final ExtractionStatistics statistics;
+    private final ExtractionResult result;
+    private final AtomicInteger pendingNames = new AtomicInteger();
+    private final AtomicInteger processedNames = new AtomicInteger();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final long startTime;
+    private Document soup;
+    private ExtractionContext context;
+    private Individual[] individuals = new Individual[0];
+    private volatile Exception failure;
+    private BlockingQueue<ExtractionJob> completions;
+
+    /**
+     * @param department The department the individuals belong to
+     * @param source Where to read the department's page from
+     * @param useSequentialParser Whether to use the unstructured page parser
+     * @param progressConsumer Where to report progress, or null for nowhere
+     */
+    public ExtractionJob(Department department, IPageSource source,
+            boolean useSequentialParser, IProgressConsumer progressConsumer)
+    {
+        this(department, source, useSequentialParser, progressConsumer, 
+                new ExtractionStatistics());
+    }
+
+    /**
+     * @param department The department the individuals belong to
+     * @param source Where to read the department's page from
+     * @param useSequentialParser Whether to use the unstructured page parser
+     * @param progressConsumer Where to report progress, or null for nowhere
+     * @param statistics The totals of the run the job belongs to
+     */
+    public ExtractionJob(Department department, IPageSource source,
+            boolean useSequentialParser, IProgressConsumer progressConsumer,
+            ExtractionStatistics statistics)
+    {
+        this.department = department;
+        this.source = source;
+        this.useSequentialParser = useSequentialParser;
+        this.progressConsumer = progressConsumer;
+        this.fetchScheduler = FetchScheduler.getShared();
+        this.statistics = statistics;
+        this.result = new ExtractionResult(department);
+        this.startTime = System.currentTimeMillis();
+    }
+
+    // ===================== Pipeline Steps =============================
+
+    /**
+     * Read the page and parse it into a Jsoup document, and fingerprint it.
+     *
+     * @return False if the page and dictionaries are as they were when the
+     * department was last extracted, so that there is nothing more to do
+     * @throws IOException If the page could not be read
+     */
+    boolean parse() throws IOException {
+        this.reportText("Reading " + this.source.toString());
+        this.soup = this.source.parse();
+        this.result.setBytesRead(this.source.getLength());
+        this.result.setPage(this.source.getHtml(), this.source.toString());
+
+        PageFingerprint fingerprint = PageFingerprint.compute(this.soup);
+        String extractorFingerprint = 
+                PageFingerprint.getExtractorFingerprint(this.useSequentialParser);
+        this.result.setFingerprints(fingerprint, extractorFingerprint);
+        if (ExtractionPipeline.defaultSkipUnchanged 
+                && fingerprint.getDigest().equals(this.department.getPageFingerprint())
+                && extractorFingerprint.equals(this.department.getExtractorFingerprint()))
+        {
+            this.reportText("Unchanged since the last extraction");
+            this.result.setUnchanged(true);
+            this.soup = null;
+            return false;
+        }
+
+        // Work out the base URL (in order to resolve urls that point to web
+        // links within downloaded pages), preferring one specified for the
+        // department over the page's own address
+        String baseUrl = this.department.getBaseUrl();
+        if ((baseUrl == null || baseUrl.isEmpty()) && this.soup.location().startsWith("http"))
+            baseUrl = this.soup.location();
+        if (baseUrl != null && baseUrl.isEmpty())
+            baseUrl = null;
+        ExtractIndividualsStatusReporter status = new ExtractIndividualsStatusReporter(
+            ClassificationStages.CREATING_ITERATOR, this.progressConsumer);
+        this.context = new ExtractionContext(
+                baseUrl, this.source.getCharset(), status, this.fetchScheduler,
+                this.statistics);
+        return true;
+    }
+
+    /**
+     * Classify the page to discover its structure, and find the names on it.
+     * Names that cannot be parsed are counted and dropped here.
+     *
+     * @return The parsed names, in page order
+     * @throws UnsupportedEncodingException
+     * @throws EndNodeWalkingException
+     * @throws InterruptedException
+     */
+    List<NameTask> findNames() 
+            throws UnsupportedEncodingException, EndNodeWalkingException, InterruptedException 
+    {
+        this.reportText("Finding names");
+        INameElementFinder nameElementFinder;
+        if (!this.useSequentialParser)
+            nameElementFinder = new StructuredNameElementFinder(this.soup, this.context);
+        else
+            nameElementFinder = new UnstructuredNameElementFinder(this.soup, this.context);
+        this.soup = null;
+
+        List<INameElement> nameElements = nameElementFinder.getNameElements();
+        this.result.setNamesFound(nameElements.size());
+        this.individuals = new Individual[nameElements.size()];
+        List<String> chunks = new ArrayList<>(nameElements.size());
+        for (INameElement ne : nameElements)
+            chunks.add(ne.getNameText());
+        ParsedNames<UnamName> names = NameBatchParser.getShared().parseUnamNames(
+                chunks, this.context.getTokenClassifier());
+        List<NameTask> tasks = new ArrayList<>();
+        for (int i = 0; i < nameElements.size(); i ++) {
+            INameElement ne = nameElements.get(i);
+            if (names.isParsed(i))
+                tasks.add(new NameTask(this, i, ne, names.getName(i)));
+            else {
+                this.result.incrementUnparsableNames();
+                this.result.addFailure("Couldn't parse name for " + ne.toString());
+            }
+        }
+        this.pendingNames.set(tasks.size());
+        return tasks;
+    }
+
+    /**
+     * Find the contact link for a name. Email links are resolved on the spot.
+     *
+     * @param task
+     * @return True if the link is a weblink, whose page must be fetched
+     */
+    boolean locateLink(NameTask task) {
+        this.reportText(String.format("Processing name %d out of %d",
+                this.processedNames.incrementAndGet(), this.individuals.length));
+        try {
+            task.link = task.element.getContactLink();
+        }
+        catch (DoesNotContainContactLinkException ex) {
+            this.result.incrementEmailsNotFound();
+            this.record(task, "Not found");
+            return false;
+        }
+        catch (MultipleContactLinksOfSameTypeFoundException ex2) {
+            this.record(task, ex2.getMessage());
+            return false;
+        }
+        if (task.link.getUnderlyingUrl() != null)
+            return true;
+        this.fetchEmail(task);
+        return false;
+    }
+
+    /**
+     * Get the email from a name's contact link, fetching the linked page if
+     * it is a weblink.
+     *
+     * @param task
+     */
+    void fetchEmail(NameTask task) {
+        String email;
+        try {
+            email = task.link.getAddress();
+        }
+        catch (LinkFetchFailedException ex) {
+            email = "Not found";
+            this.result.incrementEmailsNotFound();
+            this.result.incrementFetchFailures();
+        }
+        catch (DoesNotContainContactLinkException ex) {
+            email = "Not found";
+            this.result.incrementEmailsNotFound();
+        }
+        catch (Exception ex3) {
+            this.result.incrementFetchFailures();
+            this.recordFailure(task, ex3);
+            return;
+        }
+        this.record(task, email);
+    }
+
+    void recordFailure(NameTask task, Exception ex) {
+        this.result.addFailure(String.format("Exception '%s' while processing %s",
+                ex.getMessage(), task.toString()));
+    }
+
+    /**
+     * @return True if this was the last of the job's names to finish
+     */
+    boolean nameDone() {
+        return this.pendingNames.decrementAndGet() == 0;
+    }
+
+    /**
+     * Gather the individuals found into the result, in page order, and let
+     * go of what the extraction needed.
+     */
+    void finish() {
+        for (Individual individual : this.individuals)
+            if (individual != null)
+                this.result.addIndividual(individual);
+        this.individuals = null;
+        this.context = null;
+        this.result.setElapsedMillis(System.currentTimeMillis() - this.startTime);
+    }
+
+    void fail(Exception ex) {
+        this.failure = ex;
+    }
+
+    /**
+     * Mark the job as having left the pipeline, whether it succeeded or not.
+     */
+    void done() {
+        this.soup = null;
+        this.context = null;
+        this.individuals = null;
+        this.finished.countDown();
+        if (this.completions != null)
+            this.completions.add(this);
+    }
+
+    /**
+     * @param completions A queue to add the job to once it leaves the pipeline
+     */
+    void setCompletions(BlockingQueue<ExtractionJob> completions) {
+        this.completions = completions;
+    }
+
+    private void record(NameTask task, String email) {
+        // A job torn down early may have let go of its individuals already
+        Individual[] found = this.individuals;
+        if (found != null)
+            found[task.index] = new Individual(task.name, email, "", this.department);
+    }
+
+    private void reportText(String text) {
+        if (this.progressConsumer != null)
+            this.progressConsumer.reportText(text);
+    }
+
+    // ===================== Results =============================
+
+    /**
+     * Wait for the job to leave the pipeline.
+     *
+     * @return The individuals found and stored, along with failure counts
+     * @throws InterruptedException
+     * @throws ExecutionException If the page could not be read, parsed or stored
+     */
+    public ExtractionResult get() throws InterruptedException, ExecutionException {
+        this.finished.await();
+        if (this.failure != null)
+            throw new ExecutionException(this.failure);
+        return this.result;
+    }
+
+    public boolean isDone() {
+        return this.finished.getCount() == 0;
+    }
+
+    public Department getDepartment() {
+        return department;
+    }
+
+    public ExtractionResult getResult() {
+        return result;
+    }
+
+    public Exception getFailure() {
+        return failure;
+    }
+
+}
@@ -0,0 +1,371 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.classifier;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.norvelle.addressdiscoverer.classifier.ExtractionJob.NameTask;
+import org.norvelle.addressdiscoverer.exceptions.CannotStoreNullIndividualException;
+import org.norvelle.addressdiscoverer.exceptions.IndividualHasNoDepartmentException;
+import org.norvelle.addressdiscoverer.fetch.IPageSource;
+import org.norvelle.addressdiscoverer.model.Department;
+import org.norvelle.addressdiscoverer.model.ExtractionStatistics;
+import org.norvelle.addressdiscoverer.model.Individual;
+import org.norvelle.addressdiscoverer.model.PageStore;
+import org.norvelle.utils.Utils;
+
+/**
+ * Runs extractions as a series of stages connected by bounded queues, each
+ * stage with its own threads:
+ * 
+ * <ol>
+ * <li>parse: read each page and build a Jsoup document</li>
+ * <li>names: walk the document for names and parse them</li>
+ * <li>links: locate each name's contact link</li>
+ * <li>fetch: fetch the pages that weblinks point to for their emails</li>
+ * <li>store: bring each department's individuals into line with those found</li>
+ * </ol>
+ * 
+ * Pages and names are handed from stage to stage, so a slow stage (usually
+ * fetch) fills its queue and holds back the stages before it. The metrics
+ * of every stage can be read at any time while the pipeline runs, as can the
+ * statistics of the pages fetched, scanned and stored through it.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class ExtractionPipeline {
+
+    // A logger instance
+    private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    // Default thread budgets and queue sizes
+    public static int defaultParseThreads = 2;
+    public static int defaultNameThreads = 2;
+    public static int defaultLinkThreads = 2;
+    public static int defaultFetchThreads = 8;
+    public static int defaultPageQueueCapacity = 4;
+    public static int defaultNameQueueCapacity = 256;
+
+    // Whether to store results by diffing them against the rows already
+    // stored, rather than by deleting those and inserting afresh
+    public static boolean defaultMergeResults = true;
+
+    // Whether to skip departments whose page and dictionaries haven't
+    // changed since they were last extracted
+    public static boolean defaultSkipUnchanged = true;
+
+    // SQLite lets only one connection write at a time, so stores from every
+    // pipeline in the JVM take turns here rather than on the busy timeout
+    private static final Object storeLock = new Object();
+
+    private final PipelineStage<ExtractionJob> parseStage;
+    private final PipelineStage<ExtractionJob> nameStage;
+    private final PipelineStage<NameTask> linkStage;
+    private final PipelineStage<NameTask> fetchStage;
+    private final PipelineStage<ExtractionJob> storeStage;
+    private final List<PipelineStage<?>> stages;
+    private final ExtractionStatistics statistics;
+
+    public ExtractionPipeline() {
+        this(new ExtractionStatistics());
+    }
+
+    /**
+     * @param statistics The totals to count this run's pages and rows in, 
+     * shared with anything fetching on the run's behalf outside the pipeline
+     */
+    public ExtractionPipeline(ExtractionStatistics statistics) {
+        this(defaultParseThreads, defaultNameThreads, defaultLinkThreads, 
+                defaultFetchThreads, statistics);
+    }
+
+    public ExtractionPipeline(int parseThreads, int nameThreads, int linkThreads, int fetchThreads) {
+        this(parseThreads, nameThreads, linkThreads, fetchThreads, new ExtractionStatistics());
+    }
+
+    public ExtractionPipeline(int parseThreads, int nameThreads, int linkThreads, 
+            int fetchThreads, ExtractionStatistics statistics) 
+    {
+        this.statistics = statistics;
+        this.parseStage = new PipelineStage<>("parse", parseThreads, 
+                defaultPageQueueCapacity, new ParseHandler());
+        this.nameStage = new PipelineStage<>("names", nameThreads, 
+                defaultPageQueueCapacity, new NameHandler());
+        this.linkStage = new PipelineStage<>("links", linkThreads, 
+                defaultNameQueueCapacity, new LinkHandler());
+        this.fetchStage = new PipelineStage<>("fetch", fetchThreads, 
+                defaultNameQueueCapacity, new FetchHandler());
+        // SQLite has a single writer, so more store threads would only queue
+        this.storeStage = new PipelineStage<>("store", 1, 
+                defaultPageQueueCapacity, new StoreHandler());
+        this.stages = Arrays.<PipelineStage<?>>asList(this.parseStage, this.nameStage, 
+                this.linkStage, this.fetchStage, this.storeStage);
+    }
+
+    public void start() {
+        for (PipelineStage<?> stage : this.stages)
+            stage.start();
+    }
+
+    /**
+     * Queue a department for extraction, waiting if the pipeline is full.
+     * 
+     * @param department The department the individuals belong to
+     * @param source Where to read the department's page from
+     * @param useSequentialParser Whether to use the unstructured page parser
+     * @param progressConsumer Where to report progress, or null for nowhere
+     * @return The job, whose get() method waits for the outcome
+     * @throws InterruptedException 
+     */
+    public ExtractionJob submit(Department department, IPageSource source,
+            boolean useSequentialParser, IProgressConsumer progressConsumer) 
+            throws InterruptedException 
+    {
+        return this.submit(department, source, useSequentialParser, progressConsumer, null);
+    }
+
+    /**
+     * Queue a department for extraction, and have the job added to a queue
+     * once it leaves the pipeline, so that a caller with many jobs can take
+     * each as it finishes rather than holding on to them all.
+     * 
+     * @param department The department the individuals belong to
+     * @param source Where to read the department's page from
+     * @param useSequentialParser Whether to use the unstructured page parser
+     * @param progressConsumer Where to report progress, or null for nowhere
+     * @param completions The queue finished jobs are added to, or null
+     * @return The job, whose get() method waits for the outcome
+     * @throws InterruptedException 
+     */
+    public ExtractionJob submit(Department department, IPageSource source,
+            boolean useSequentialParser, IProgressConsumer progressConsumer,
+            BlockingQueue<ExtractionJob> completions) 
+            throws InterruptedException 
+    {
+        ExtractionJob job = new ExtractionJob(department, source, 
+                useSequentialParser, progressConsumer, this.statistics);
+        job.setCompletions(completions);
+        this.parseStage.put(job);
+        return job;
+    }
+
+    /**
+     * Accept no more departments, and wait for those submitted to be finished.
+     * 
+     * @throws InterruptedException 
+     */
+    public void shutdown() throws InterruptedException {
+        for (PipelineStage<?> stage : this.stages)
+            stage.close();
+    }
+
+    /**
+     * Abandon any work in progress.
+     */
+    public void abort() {
+        for (PipelineStage<?> stage : this.stages)
+            stage.abort();
+    }
+
+    public List<PipelineStage<?>> getStages() {
+        return stages;
+    }
+
+    /**
+     * @return The totals of everything fetched, scanned and stored by the
+     * departments submitted to this pipeline
+     */
+    public ExtractionStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return One line per stage with throughput and queue depth
+     */
+    public List<String> getStageMetrics() {
+        List<String> metrics = new ArrayList<>();
+        for (PipelineStage<?> stage : this.stages)
+            metrics.add(stage.toString());
+        return metrics;
+    }
+
+    public String getMetricsSummary() {
+        return Utils.join(this.getStageMetrics(), "\n");
+    }
+
+    /**
+     * Replace the department's stored individuals with those just extracted,
+     * by merging them in unless defaultMergeResults has been turned off, and
+     * keep the page they came from in the PageStore along with its
+     * fingerprints. Nothing is written for a page found to be unchanged, and
+     * the fingerprints are left alone if any contact weblink could not be
+     * fetched, so that the page is extracted again next time. 
+     * Stores from all pipelines go through here one department at a time,
+     * since SQLite allows only one writer however many pooled connections
+     * there are.
+     *
+     * @param result The outcome of an extraction
+     * @param statistics The totals to count the rows stored in
+     * @throws SQLException
+     * @throws IndividualHasNoDepartmentException
+     * @throws CannotStoreNullIndividualException
+     */
+    public static void store(ExtractionResult result, 
+            ExtractionStatistics statistics) throws SQLException,
+            IndividualHasNoDepartmentException, CannotStoreNullIndividualException
+    {
+        if (result.isUnchanged())
+            return;
+        synchronized (storeLock) {
+            if (defaultMergeResults)
+                Individual.mergeIndividualsForDepartment(result.getDepartment(), 
+                        result.getIndividuals(), statistics);
+            else
+                Individual.replaceIndividualsForDepartment(result.getDepartment(), 
+                        result.getIndividuals(), statistics);
+            if (result.getPage() != null) {
+                PageStore.save(result.getDepartment(), result.getPage(), result.getPageAddress());
+                result.setPage(null, null);
+            }
+
+            PageFingerprint fingerprint = result.getFingerprint();
+            if (fingerprint != null) {
+                Department department = result.getDepartment();
+                if (result.getFetchFailures() == 0) {
+                    department.setFingerprints(fingerprint.getDigest(), 
+                            result.getExtractorFingerprint(), fingerprint.getSimhash());
+                    Department.updateFingerprints(department);
+                }
+                result.getNearDuplicates().addAll(Department.getNearDuplicates(department, 
+                        fingerprint.getSimhash(), PageFingerprint.defaultMaxDistance));
+            }
+        }
+    }
+
+    // ===================== Stage Handlers =============================
+
+    /**
+     * Send a job to be stored, or finish it outright if the pipeline is being
+     * torn down.
+     */
+    private void complete(ExtractionJob job) {
+        try {
+            this.storeStage.put(job);
+        } catch (InterruptedException | IllegalStateException ex) {
+            job.fail(ex);
+            job.done();
+            if (ex instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    private void nameDone(NameTask task) {
+        if (task.getJob().nameDone())
+            this.complete(task.getJob());
+    }
+
+    private class ParseHandler implements PipelineStage.Handler<ExtractionJob> {
+
+        @Override
+        public void handle(ExtractionJob job) throws Exception {
+            if (job.parse())
+                nameStage.put(job);
+            else
+                complete(job);
+        }
+
+        @Override
+        public void failed(ExtractionJob job, Exception ex) {
+            job.fail(ex);
+            complete(job);
+        }
+    }
+
+    private class NameHandler implements PipelineStage.Handler<ExtractionJob> {
+
+        @Override
+        public void handle(ExtractionJob job) throws Exception {
+            List<NameTask> tasks = job.findNames();
+            if (tasks.isEmpty())
+                complete(job);
+            for (NameTask task : tasks)
+                linkStage.put(task);
+        }
+
+        @Override
+        public void failed(ExtractionJob job, Exception ex) {
+            job.fail(ex);
+            complete(job);
+        }
+    }
+
+    private class LinkHandler implements PipelineStage.Handler<NameTask> {
+
+        @Override
+        public void handle(NameTask task) throws Exception {
+            if (task.getJob().locateLink(task))
+                fetchStage.put(task);
+            else
+                nameDone(task);
+        }
+
+        @Override
+        public void failed(NameTask task, Exception ex) {
+            task.getJob().recordFailure(task, ex);
+            nameDone(task);
+        }
+    }
+
+    private class FetchHandler implements PipelineStage.Handler<NameTask> {
+
+        @Override
+        public void handle(NameTask task) throws Exception {
+            task.getJob().fetchEmail(task);
+            nameDone(task);
+        }
+
+        @Override
+        public void failed(NameTask task, Exception ex) {
+            task.getJob().recordFailure(task, ex);
+            nameDone(task);
+        }
+    }
+
+    private class StoreHandler implements PipelineStage.Handler<ExtractionJob> {
+
+        @Override
+        public void handle(ExtractionJob job) throws Exception {
+            try {
+                if (job.getFailure() == null) {
+                    job.finish();
+                    store(job.getResult(), statistics);
+                }
+            } catch (Exception ex) {
+                job.fail(ex);
+                throw ex;
+            } finally {
+                job.done();
+            }
+        }
+
+        @Override
+        public void failed(ExtractionJob job, Exception ex) {
+            logger.log(Level.SEVERE, "Could not store individuals for {0}: {1}",
+                    new Object[] { job.getDepartment().getName(), ex.getMessage() });
+        }
+    }
+
+}
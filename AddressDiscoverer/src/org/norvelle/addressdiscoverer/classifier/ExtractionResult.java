@@ -0,0 +1,183 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.classifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.norvelle.addressdiscoverer.model.Department;
+import org.norvelle.addressdiscoverer.model.Individual;
+
+/**
+ * What came out of running the extraction process over one department's page:
+ * the individuals found, plus counts and messages describing what went wrong.
+ * Several pipeline stages may be adding to it at once.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class ExtractionResult {
+
+    private final Department department;
+    private final List<Individual> individuals = new ArrayList<>();
+    private final List<String> failures = new ArrayList<>();
+    private int namesFound = 0;
+    private int unparsableNames = 0;
+    private int emailsNotFound = 0;
+    private int fetchFailures = 0;
+    private long bytesRead = 0;
+    private long elapsedMillis = 0;
+    private String page;
+    private String pageAddress;
+    private PageFingerprint fingerprint;
+    private String extractorFingerprint;
+    private boolean unchanged = false;
+    private final List<Department> nearDuplicates = new ArrayList<>();
+
+    public ExtractionResult(Department department) {
+        this.department = department;
+    }
+
+    public synchronized void addIndividual(Individual individual) {
+        this.individuals.add(individual);
+    }
+
+    public synchronized void addFailure(String message) {
+        this.failures.add(message);
+    }
+
+    public synchronized void incrementUnparsableNames() {
+        this.unparsableNames ++;
+    }
+
+    public synchronized void incrementEmailsNotFound() {
+        this.emailsNotFound ++;
+    }
+
+    public synchronized void incrementFetchFailures() {
+        this.fetchFailures ++;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (this.unchanged)
+            return String.format("%s: unchanged since the last extraction, %d bytes in %d ms",
+                    this.department.getName(), this.bytesRead, this.elapsedMillis);
+        return String.format("%s: %d names, %d individuals, %d unparsable, "
+                + "%d without email, %d errors, %d bytes in %d ms",
+                this.department.getName(), this.namesFound, this.individuals.size(),
+                this.unparsableNames, this.emailsNotFound, this.failures.size(),
+                this.bytesRead, this.elapsedMillis);
+    }
+
+    // ===================== Getters and setters =============================
+
+    public Department getDepartment() {
+        return department;
+    }
+
+    public List<Individual> getIndividuals() {
+        return individuals;
+    }
+
+    public synchronized List<String> getFailures() {
+        return failures;
+    }
+
+    public int getNamesFound() {
+        return namesFound;
+    }
+
+    public void setNamesFound(int namesFound) {
+        this.namesFound = namesFound;
+    }
+
+    public synchronized int getUnparsableNames() {
+        return unparsableNames;
+    }
+
+    public synchronized int getEmailsNotFound() {
+        return emailsNotFound;
+    }
+
+    /**
+     * @return The number of contact weblinks whose pages could not be
+     * fetched, so that their individuals may be missing an email
+     */
+    public synchronized int getFetchFailures() {
+        return fetchFailures;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public void setBytesRead(long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return The text of the page extracted, if it is to be kept in the
+     * PageStore, or null
+     */
+    public String getPage() {
+        return page;
+    }
+
+    public String getPageAddress() {
+        return pageAddress;
+    }
+
+    public void setPage(String page, String pageAddress) {
+        this.page = page;
+        this.pageAddress = pageAddress;
+    }
+
+    public PageFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    public String getExtractorFingerprint() {
+        return extractorFingerprint;
+    }
+
+    public void setFingerprints(PageFingerprint fingerprint, String extractorFingerprint) {
+        this.fingerprint = fingerprint;
+        this.extractorFingerprint = extractorFingerprint;
+    }
+
+    /**
+     * @return True if the page and the dictionaries are as they were when the
+     * department was last extracted, so that it was neither extracted nor
+     * stored again
+     */
+    public boolean isUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(boolean unchanged) {
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * @return Other departments whose pages are near-duplicates of this one
+     */
+    public List<Department> getNearDuplicates() {
+        return nearDuplicates;
+    }
+
+}
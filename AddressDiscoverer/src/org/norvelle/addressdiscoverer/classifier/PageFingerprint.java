@@ -0,0 +1,168 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.classifier;
+
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+import org.norvelle.addressdiscoverer.model.Abbreviations;
+import org.norvelle.addressdiscoverer.model.GenderDeterminer;
+import org.norvelle.addressdiscoverer.model.GrammarParticles;
+import org.norvelle.addressdiscoverer.model.KnownFirstName;
+import org.norvelle.addressdiscoverer.model.KnownLastName;
+import org.norvelle.addressdiscoverer.model.KnownSpanishWord;
+import org.norvelle.addressdiscoverer.model.PageStore;
+
+/**
+ * Fingerprints of a page's body, taken when it is parsed, so that a page
+ * that hasn't changed since its department was last extracted need not be
+ * extracted again. The digest covers the body's elements, attributes and
+ * text with whitespace collapsed, leaving out comments, scripts and styles,
+ * which nothing is extracted from. The simhash covers only the words of the
+ * text, so that two pages differing in a few words of navigation or layout
+ * are within a few bits of each other: a sign that one mirrors the other.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class PageFingerprint {
+
+    /**
+     * The most bits two simhashes may differ by for their pages to be
+     * considered near-duplicates
+     */
+    public static int defaultMaxDistance = 3;
+
+    // Changed whenever the normalization does, so that old digests don't match
+    private static final String VERSION = "1";
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String digest;
+    private final long simhash;
+
+    private PageFingerprint(String digest, long simhash) {
+        this.digest = digest;
+        this.simhash = simhash;
+    }
+
+    /**
+     * @param soup A parsed page
+     * @return The page's fingerprints
+     */
+    public static PageFingerprint compute(Document soup) {
+        final StringBuilder normalized = new StringBuilder(VERSION);
+        final int[] weights = new int[64];
+        Element root = soup.body() == null ? soup : soup.body();
+        new NodeTraversor(new NodeVisitor() {
+            @Override
+            public void head(Node node, int depth) {
+                if (node instanceof Element) {
+                    Element element = (Element) node;
+                    if (isIgnored(element))
+                        return;
+                    normalized.append('<').append(element.tagName());
+                    for (Attribute attribute : element.attributes())
+                        normalized.append(' ').append(attribute.getKey())
+                                .append("=\"").append(attribute.getValue()).append('"');
+                    normalized.append('>');
+                }
+                else if (node instanceof TextNode) {
+                    String text = ((TextNode) node).text().trim();
+                    if (!text.isEmpty()) {
+                        normalized.append(text).append(' ');
+                        addWords(text, weights);
+                    }
+                }
+            }
+
+            @Override
+            public void tail(Node node, int depth) {
+                if (node instanceof Element && !isIgnored((Element) node))
+                    normalized.append("</").append(((Element) node).tagName()).append('>');
+            }
+        }).traverse(root);
+
+        long simhash = 0;
+        for (int bit = 0; bit < 64; bit ++)
+            if (weights[bit] > 0)
+                simhash |= 1L << bit;
+        return new PageFingerprint(PageStore.hash(normalized.toString()), simhash);
+    }
+
+    /**
+     * @param useSequentialParser Whether the unstructured page parser is used
+     * @return A fingerprint of the dictionaries and parser an extraction
+     * would use, which changes whenever a dictionary does
+     */
+    public static String getExtractorFingerprint(boolean useSequentialParser) {
+        return PageStore.hash(String.format("%s|%b|%s|%s|%s|%s|%s|%s", VERSION, useSequentialParser,
+                KnownFirstName.getFingerprint(), KnownLastName.getFingerprint(),
+                KnownSpanishWord.getFingerprint(), Abbreviations.getFingerprint(),
+                GrammarParticles.getFingerprint(), GenderDeterminer.getFingerprint()));
+    }
+
+    /**
+     * @return The number of bits by which two simhashes differ
+     */
+    public static int distance(long simhash, long otherSimhash) {
+        return Long.bitCount(simhash ^ otherSimhash);
+    }
+
+    public static boolean isNearDuplicate(long simhash, long otherSimhash) {
+        return distance(simhash, otherSimhash) <= defaultMaxDistance;
+    }
+
+    /**
+     * @return The hex SHA-1 digest of the normalized page body
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    public long getSimhash() {
+        return simhash;
+    }
+
+    // ===================== Private Methods =============================
+
+    private static boolean isIgnored(Element element) {
+        String tag = element.tagName();
+        return tag.equals("script") || tag.equals("style");
+    }
+
+    /**
+     * Add each word's 64-bit FNV-1a hash to the simhash weights: +1 for each
+     * bit set, -1 for each bit clear.
+     */
+    private static void addWords(String text, int[] weights) {
+        long hash = FNV_OFFSET;
+        boolean inWord = false;
+        for (int i = 0; i <= text.length(); i ++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+                inWord = true;
+            }
+            else if (inWord) {
+                for (int bit = 0; bit < 64; bit ++)
+                    weights[bit] += ((hash >>> bit) & 1) == 1 ? 1 : -1;
+                hash = FNV_OFFSET;
+                inWord = false;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.classifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One stage of the extraction pipeline: a bounded queue of work items served
+ * by a fixed number of threads. Putting an item into a full queue blocks, so a
+ * slow stage holds back the stages that feed it rather than letting work pile
+ * up in memory. Each stage keeps count of what it has processed and how deep
+ * its queue has grown.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ * @param <I> The type of item the stage processes
+ */
+public class PipelineStage<I> {
+
+    // A logger instance
+    private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    /**
+     * The work done by a stage. Implementations pass their output on by
+     * putting it into the next stage.
+     *
+     * @param <I> The type of item handled
+     */
+    public interface Handler<I> {
+
+        public void handle(I item) throws Exception;
+
+        /**
+         * Called if handle() throws, so that the item can be accounted for.
+         */
+        public void failed(I item, Exception ex);
+
+    }
+
+    private final String name;
+    private final int numThreads;
+    private final BlockingQueue<I> queue;
+    private final int capacity;
+    private final Handler<I> handler;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean closed = false;
+
+    // Metrics
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final AtomicInteger peakDepth = new AtomicInteger();
+    private long startTime;
+
+    public PipelineStage(String name, int numThreads, int capacity, Handler<I> handler) {
+        this.name = name;
+        this.numThreads = numThreads;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.handler = handler;
+    }
+
+    public synchronized void start() {
+        this.startTime = System.nanoTime();
+        for (int i = 0; i < this.numThreads; i ++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    work();
+                }
+            }, String.format("%s-%d", this.name, i + 1));
+            thread.setDaemon(true);
+            this.threads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Queue an item, waiting for room if the stage is full.
+     *
+     * @param item
+     * @throws InterruptedException
+     */
+    public void put(I item) throws InterruptedException {
+        if (this.closed)
+            throw new IllegalStateException(this.name + " stage is closed");
+        this.queue.put(item);
+        int depth = this.queue.size();
+        int peak = this.peakDepth.get();
+        while (depth > peak && !this.peakDepth.compareAndSet(peak, depth))
+            peak = this.peakDepth.get();
+    }
+
+    /**
+     * Accept no more items, and wait for those already queued to be processed.
+     *
+     * @throws InterruptedException
+     */
+    public void close() throws InterruptedException {
+        this.closed = true;
+        for (Thread thread : this.threads)
+            thread.join();
+    }
+
+    /**
+     * Stop immediately, abandoning any queued items.
+     */
+    public void abort() {
+        this.closed = true;
+        this.queue.clear();
+        for (Thread thread : this.threads)
+            thread.interrupt();
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                I item = this.queue.poll(100, TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    if (this.closed)
+                        return;
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    this.handler.handle(item);
+                } catch (InterruptedException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    if (ex instanceof RuntimeException)
+                        logger.log(Level.SEVERE, "Unexpected error in " + this.name + " stage", ex);
+                    this.handler.failed(item, ex);
+                }
+                this.busyNanos.addAndGet(System.nanoTime() - start);
+                this.processed.incrementAndGet();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===================== Metrics =============================
+
+    public String getName() {
+        return name;
+    }
+
+    public long getProcessed() {
+        return this.processed.get();
+    }
+
+    public int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    public int getPeakQueueDepth() {
+        return this.peakDepth.get();
+    }
+
+    /**
+     * @return Items processed per second since the stage started
+     */
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - this.startTime) / 1e9;
+        return seconds <= 0 ? 0 : this.processed.get() / seconds;
+    }
+
+    /**
+     * @return The fraction of the stage's thread time spent handling items
+     */
+    public double getUtilization() {
+        double available = (System.nanoTime() - this.startTime) * (double) this.numThreads;
+        return available <= 0 ? 0 : this.busyNanos.get() / available;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d processed, %.1f/s, %d%% busy, queue %d/%d (peak %d), %d threads",
+                this.name, this.processed.get(), this.getThroughput(),
+                Math.round(this.getUtilization() * 100), this.queue.size(), this.capacity,
+                this.peakDepth.get(), this.numThreads);
+    }
+
+}
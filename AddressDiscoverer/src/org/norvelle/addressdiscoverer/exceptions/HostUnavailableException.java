@@ -0,0 +1,41 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.exceptions;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a fetch is refused because the host has failed too often recently.
+ * It is an IOException so that callers treat it like any other failed fetch.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class HostUnavailableException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new instance of <code>HostUnavailableException</code>
+     * without detail message.
+     */
+    public HostUnavailableException() {
+    }
+
+    /**
+     * Constructs an instance of <code>HostUnavailableException</code>
+     * with the specified detail message.
+     *
+     * @param msg the detail message.
+     */
+    public HostUnavailableException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.exceptions;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a server answers a fetch with an error status. It is an
+ * IOException so that callers treat it like any other failed fetch, but it
+ * carries the status so that those that care can tell a missing page from a
+ * server that is struggling.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class HttpStatusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    /**
+     * Constructs an instance of <code>HttpStatusException</code>
+     * with the specified status and detail message.
+     *
+     * @param status the HTTP status received.
+     * @param msg the detail message.
+     */
+    public HttpStatusException(int status, String msg) {
+        super(msg);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return True if the error may go away on its own, so that the fetch
+     * is worth retrying later
+     */
+    public boolean isTransient() {
+        return this.status == 429 || this.status >= 500;
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.exceptions;
+
+/**
+ * Thrown when the page a contact weblink points to could not be fetched for
+ * reasons that may go away on their own, such as a timeout or a struggling
+ * host. Unlike its parent, it says nothing about whether the page holds an
+ * email, so an extraction that met one is not complete.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class LinkFetchFailedException extends DoesNotContainContactLinkException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an instance of <code>LinkFetchFailedException</code>
+     * with the specified detail message.
+     *
+     * @param msg the detail message.
+     */
+    public LinkFetchFailedException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.fetch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Works out which character set a page is written in, from an HTTP header or
+ * from the page's own first bytes, without consuming them.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class CharsetSniffer {
+
+    public static final String DEFAULT_CHARSET = "UTF-8";
+
+    // The usual charset of Spanish pages that don't declare one and aren't UTF-8
+    public static final String FALLBACK_CHARSET = "windows-1252";
+
+    /**
+     * How far into the page we look for a meta tag declaring the charset
+     */
+    public static int sniffLength = 4096;
+
+    private static final Pattern headerCharsetPattern =
+            Pattern.compile("charset\\s*=\\s*[\"']?([-\\w.:]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern metaCharsetPattern =
+            Pattern.compile("<meta[^>]+charset\\s*=\\s*[\"']?([-\\w.:]+)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * @param contentType The value of a Content-Type header, possibly null
+     * @return The supported charset it names, or null if there is none
+     */
+    public static String getHeaderCharset(String contentType) {
+        if (contentType == null)
+            return null;
+        Matcher matcher = headerCharsetPattern.matcher(contentType);
+        return matcher.find() ? supportedCharset(matcher.group(1)) : null;
+    }
+
+    /**
+     * Look for a meta tag declaring the charset within the first bytes of the
+     * stream, leaving the stream positioned where it was.
+     *
+     * @param in A stream supporting mark and reset
+     * @return The supported charset declared, or null if there is none
+     * @throws IOException
+     */
+    public static String sniffCharset(InputStream in) throws IOException {
+        byte[] head = new byte[sniffLength];
+        in.mark(sniffLength);
+        int length = 0;
+        int numRead;
+        while (length < head.length
+                && (numRead = in.read(head, length, head.length - length)) != -1)
+            length += numRead;
+        in.reset();
+        return findMetaCharset(head, length);
+    }
+
+    /**
+     * Decode a page held entirely in a buffer, such as a memory-mapped file,
+     * working out its charset as we go. A byte order mark or meta tag wins;
+     * failing that we use UTF-8 if the bytes are valid UTF-8, and
+     * windows-1252 if they aren't. Checking that the bytes are valid UTF-8
+     * decodes them, so for such pages that is the only decode. The buffer's
+     * position is left untouched.
+     *
+     * @param bytes The page
+     * @return The decoded page and the charset it was decoded with
+     */
+    public static DecodedPage decode(ByteBuffer bytes) {
+        String declared = findDeclaredCharset(bytes);
+        if (declared != null)
+            return new DecodedPage(declared, Charset.forName(declared).decode(bytes.duplicate()));
+        try {
+            CharBuffer text = Charset.forName(DEFAULT_CHARSET).newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(bytes.duplicate());
+            return new DecodedPage(DEFAULT_CHARSET, text);
+        } catch (CharacterCodingException ex) {
+            return new DecodedPage(FALLBACK_CHARSET, 
+                    Charset.forName(FALLBACK_CHARSET).decode(bytes.duplicate()));
+        }
+    }
+
+    /**
+     * A page's text, along with the charset it was decoded from.
+     */
+    public static class DecodedPage {
+
+        private final String charset;
+        private final CharBuffer text;
+
+        DecodedPage(String charset, CharBuffer text) {
+            this.charset = charset;
+            this.text = text;
+        }
+
+        public String getCharset() {
+            return charset;
+        }
+
+        public CharBuffer getText() {
+            return text;
+        }
+    }
+
+    // ===================== Private Methods =============================
+
+    /**
+     * @return The charset a page's byte order mark or meta tag declares, or
+     * null if it declares none
+     */
+    private static String findDeclaredCharset(ByteBuffer bytes) {
+        ByteBuffer view = bytes.duplicate();
+        if (view.remaining() >= 3 && (view.get(view.position()) & 0xFF) == 0xEF
+                && (view.get(view.position() + 1) & 0xFF) == 0xBB
+                && (view.get(view.position() + 2) & 0xFF) == 0xBF)
+            return "UTF-8";
+        if (view.remaining() >= 2) {
+            int first = view.get(view.position()) & 0xFF;
+            int second = view.get(view.position() + 1) & 0xFF;
+            if (first == 0xFE && second == 0xFF)
+                return "UTF-16BE";
+            if (first == 0xFF && second == 0xFE)
+                return "UTF-16LE";
+        }
+
+        byte[] head = new byte[Math.min(sniffLength, view.remaining())];
+        view.get(head);
+        return findMetaCharset(head, head.length);
+    }
+
+    private static String findMetaCharset(byte[] head, int length) {
+        try {
+            // Tags are plain ASCII in any charset we could be asked to handle
+            String text = new String(head, 0, length, "ISO-8859-1");
+            Matcher matcher = metaCharsetPattern.matcher(text);
+            return matcher.find() ? supportedCharset(matcher.group(1)) : null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static String supportedCharset(String name) {
+        try {
+            return Charset.isSupported(name) ? Charset.forName(name).name() : null;
+        } catch (IllegalCharsetNameException ex) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,345 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.fetch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.norvelle.addressdiscoverer.exceptions.HostUnavailableException;
+import org.norvelle.addressdiscoverer.exceptions.HttpStatusException;
+import org.norvelle.addressdiscoverer.model.ExtractionStatistics;
+
+/**
+ * The single gateway through which all web pages are fetched. It applies
+ * connect and read timeouts, paces requests to each host with a token bucket,
+ * retries transient failures with jittered exponential backoff and stops
+ * talking to a host altogether for a while once it has failed repeatedly.
+ * Only failures that say something about the host's health count towards
+ * that: connection and read errors, 5xx and 429. A missing page is the page's
+ * problem, not the host's. A host name that cannot be resolved is neither:
+ * it is given up on at once, and requests to it fail without being tried
+ * until the cooldown has passed.
+ * Connections are kept alive and pooled by the JDK's HTTP handler, provided
+ * callers close the streams they are handed. Pages are requested compressed
+ * and handed back decompressed, via {@link FetchedPage}. The scheduler is
+ * shared between extraction runs, so request counts and latencies go to the
+ * statistics of the run that asked for the page.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class FetchScheduler {
+
+    // A logger instance
+    private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+    public static final String USER_AGENT = "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; "
+            + "en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2";
+
+    // Default settings for the shared scheduler
+    public static int defaultConnectTimeout = 10000;
+    public static int defaultReadTimeout = 20000;
+    public static double defaultRequestsPerSecond = 2.0;
+    public static int defaultBurst = 4;
+    public static int defaultMaxRetries = 3;
+    public static long defaultBaseBackoff = 500;
+    public static int defaultFailureThreshold = 5;
+    public static long defaultCooldown = 60000;
+
+    private static FetchScheduler shared;
+
+    static {
+        // Let the JDK keep more idle connections per host than its default of 5
+        if (System.getProperty("http.maxConnections") == null)
+            System.setProperty("http.maxConnections", "10");
+    }
+
+    private final ConcurrentHashMap<String, HostState> hosts = new ConcurrentHashMap<>();
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final double requestsPerSecond;
+    private final int burst;
+    private final int maxRetries;
+    private final long baseBackoff;
+    private final int failureThreshold;
+    private final long cooldown;
+
+    public FetchScheduler() {
+        this(defaultConnectTimeout, defaultReadTimeout, defaultRequestsPerSecond,
+                defaultBurst, defaultMaxRetries, defaultBaseBackoff,
+                defaultFailureThreshold, defaultCooldown);
+    }
+
+    public FetchScheduler(int connectTimeout, int readTimeout, double requestsPerSecond,
+            int burst, int maxRetries, long baseBackoff, int failureThreshold, long cooldown)
+    {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+        this.maxRetries = maxRetries;
+        this.baseBackoff = baseBackoff;
+        this.failureThreshold = failureThreshold;
+        this.cooldown = cooldown;
+    }
+
+    /**
+     * @return The scheduler shared by all extractions in this JVM
+     */
+    public static synchronized FetchScheduler getShared() {
+        if (shared == null)
+            shared = new FetchScheduler();
+        return shared;
+    }
+
+    /**
+     * Fetch the given page, returning its decompressed body along with the
+     * charset it should be decoded with. The caller must close the page.
+     *
+     * @param url The page to fetch
+     * @return The page, ready to be read
+     * @throws IOException If the page could not be fetched
+     */
+    public FetchedPage fetch(URL url) throws IOException {
+        return this.fetch(url, new ExtractionStatistics());
+    }
+
+    /**
+     * Fetch the given page, as above, counting the request and the bytes
+     * transferred in the given statistics.
+     *
+     * @param url The page to fetch
+     * @param statistics The extraction run's totals
+     * @return The page, ready to be read
+     * @throws IOException If the page could not be fetched
+     */
+    public FetchedPage fetch(URL url, ExtractionStatistics statistics) throws IOException {
+        return new FetchedPage(statistics, this.open(url, statistics));
+    }
+
+    /**
+     * Open a connection to the given URL once the host's rate limit allows it,
+     * retrying transient failures. The caller must close the connection's
+     * input stream so that the underlying socket can be reused. Since we ask
+     * for compression, the body may be gzip or deflate encoded; use
+     * {@link #fetch(URL)} to have that taken care of.
+     *
+     * @param url The page to fetch
+     * @return A connection whose response headers have already been received
+     * @throws IOException If the page could not be fetched, or the host's
+     * circuit breaker is open; an HttpStatusException if the server answered
+     * with an error status
+     */
+    public URLConnection open(URL url) throws IOException {
+        return this.open(url, new ExtractionStatistics());
+    }
+
+    /**
+     * Open a connection to the given URL, as above, counting each attempt
+     * in the given statistics.
+     *
+     * @param url The page to fetch
+     * @param statistics The extraction run's totals
+     * @return A connection whose response headers have already been received
+     * @throws IOException As for {@link #open(URL)}
+     */
+    public URLConnection open(URL url, ExtractionStatistics statistics) throws IOException {
+        HostState host = this.getHost(url);
+        IOException lastFailure = null;
+        for (int attempt = 0; attempt <= this.maxRetries; attempt ++) {
+            if (attempt > 0)
+                this.sleepQuietly(this.backoffFor(attempt));
+            host.checkCircuit();
+            host.acquireToken();
+
+            long start = System.nanoTime();
+            URLConnection con;
+            int status;
+            try {
+                con = url.openConnection();
+                con.setConnectTimeout(this.connectTimeout);
+                con.setReadTimeout(this.readTimeout);
+                con.setRequestProperty("User-Agent", USER_AGENT);
+                con.setRequestProperty("Accept-Encoding", "gzip, deflate");
+                if (!(con instanceof HttpURLConnection)) {
+                    con.connect();
+                    host.recordSuccess();
+                    statistics.recordRequest(host.name, System.nanoTime() - start, false);
+                    return con;
+                }
+                status = ((HttpURLConnection) con).getResponseCode();
+            } catch (UnknownHostException ex) {
+                // There is no host to be healthy or not, and asking again
+                // will not make it appear
+                host.recordUnknown();
+                statistics.recordUnknownHost(host.name);
+                throw ex;
+            } catch (MalformedURLException ex) {
+                // Asking again will not make the address any better
+                statistics.recordRequest(host.name, System.nanoTime() - start, true);
+                throw ex;
+            } catch (IOException ex) {
+                lastFailure = ex;
+                host.recordFailure();
+                statistics.recordRequest(host.name, System.nanoTime() - start, true);
+                this.logFailedAttempt(attempt, url, ex);
+                continue;
+            }
+            if (status < 400) {
+                host.recordSuccess();
+                statistics.recordRequest(host.name, System.nanoTime() - start, false);
+                return con;
+            }
+
+            // Drain the error body so the connection can go back in the pool,
+            // and only retry errors that might go away on their own.
+            this.discardErrorStream((HttpURLConnection) con);
+            HttpStatusException statusFailure = new HttpStatusException(status, 
+                    String.format("HTTP %d fetching %s", status, url));
+            statistics.recordRequest(host.name, System.nanoTime() - start, true);
+            if (!statusFailure.isTransient()) {
+                // The host answered, so it is healthy
+                host.recordSuccess();
+                throw statusFailure;
+            }
+            lastFailure = statusFailure;
+            host.recordFailure();
+            this.logFailedAttempt(attempt, url, lastFailure);
+        }
+        throw lastFailure;
+    }
+
+    // ===================== Private Methods =============================
+
+    private HostState getHost(URL url) {
+        String key = url.getHost().toLowerCase();
+        HostState host = this.hosts.get(key);
+        if (host == null) {
+            HostState newHost = new HostState(key);
+            host = this.hosts.putIfAbsent(key, newHost);
+            if (host == null)
+                host = newHost;
+        }
+        return host;
+    }
+
+    private void logFailedAttempt(int attempt, URL url, IOException ex) {
+        logger.log(Level.INFO, "Fetch attempt {0} for {1} failed: {2}",
+                new Object[] { attempt + 1, url, ex.getMessage() });
+    }
+
+    private long backoffFor(int attempt) {
+        long backoff = this.baseBackoff << Math.min(attempt - 1, 10);
+        double jitter = 0.5 + ThreadLocalRandom.current().nextDouble();
+        return (long) (backoff * jitter);
+    }
+
+    private void sleepQuietly(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting to fetch");
+        }
+    }
+
+    private void discardErrorStream(HttpURLConnection http) {
+        try (InputStream err = http.getErrorStream()) {
+            if (err != null)
+                while (err.read() != -1) { /* drain */ }
+        } catch (IOException ex) {
+            http.disconnect();
+        }
+    }
+
+    /**
+     * Rate limiting and circuit breaking for a single host.
+     */
+    private class HostState {
+
+        private final String name;
+
+        // Token bucket
+        private double tokens;
+        private long lastRefill;
+
+        // Circuit breaker
+        private int consecutiveFailures = 0;
+        private long openUntil = 0;
+        private long unknownUntil = 0;
+
+        HostState(String name) {
+            this.name = name;
+            this.tokens = burst;
+            this.lastRefill = System.nanoTime();
+        }
+
+        /**
+         * Refuse the request if the circuit is open, or if the host's name
+         * could not be resolved last time it was tried. Once the cooldown has
+         * passed, requests are let through again; the next failure re-opens it.
+         */
+        synchronized void checkCircuit() throws IOException {
+            long now = System.currentTimeMillis();
+            if (now < this.unknownUntil)
+                throw new UnknownHostException(String.format(
+                        "%s could not be resolved; not retrying until cooldown ends",
+                        this.name));
+            if (now < this.openUntil)
+                throw new HostUnavailableException(String.format(
+                        "%s has failed %d times in a row; not retrying until cooldown ends",
+                        this.name, this.consecutiveFailures));
+        }
+
+        /**
+         * Take a token from the bucket, waiting for one to be refilled if necessary.
+         */
+        void acquireToken() throws IOException {
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                this.tokens = Math.min(burst,
+                        this.tokens + (now - this.lastRefill) / 1e9 * requestsPerSecond);
+                this.lastRefill = now;
+                this.tokens -= 1;
+                wait = this.tokens >= 0 ? 0 : (long) (-this.tokens / requestsPerSecond * 1000);
+            }
+            if (wait > 0)
+                sleepQuietly(wait);
+        }
+
+        synchronized void recordSuccess() {
+            this.consecutiveFailures = 0;
+        }
+
+        synchronized void recordUnknown() {
+            this.unknownUntil = System.currentTimeMillis() + cooldown;
+        }
+
+        synchronized void recordFailure() {
+            this.consecutiveFailures ++;
+            if (this.consecutiveFailures >= failureThreshold) {
+                this.openUntil = System.currentTimeMillis() + cooldown;
+                logger.log(Level.WARNING, "{0} has failed {1} times in a row; "
+                        + "pausing requests for {2} ms", 
+                        new Object[] { this.name, this.consecutiveFailures, cooldown });
+            }
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.fetch;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import org.apache.commons.io.input.CountingInputStream;
+import org.norvelle.addressdiscoverer.model.ExtractionStatistics;
+
+/**
+ * The body of a fetched page, already decompressed and with its character set
+ * worked out, so that callers can decode it exactly once as it streams in.
+ * The charset is taken from the Content-Type header if it names one, otherwise
+ * from a meta tag near the top of the page, otherwise UTF-8 is assumed.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class FetchedPage implements Closeable {
+
+    private final ExtractionStatistics statistics;
+    private final CountingInputStream wire;
+    private final CountingInputStream body;
+    private final String charset;
+    private final String contentEncoding;
+    private final long contentLength;
+
+    FetchedPage(ExtractionStatistics statistics, URLConnection con) throws IOException {
+        this.statistics = statistics;
+        this.contentEncoding = con.getContentEncoding();
+        InputStream raw = null;
+        try {
+            raw = con.getInputStream();
+            this.wire = new CountingInputStream(raw);
+            InputStream decoded = this.decompress(this.wire, contentEncoding);
+            BufferedInputStream buffered = new BufferedInputStream(decoded,
+                    Math.max(8192, CharsetSniffer.sniffLength));
+
+            String found = CharsetSniffer.getHeaderCharset(con.getContentType());
+            if (found == null)
+                found = CharsetSniffer.sniffCharset(buffered);
+            this.charset = found == null ? CharsetSniffer.DEFAULT_CHARSET : found;
+            this.body = new CountingInputStream(buffered);
+        } catch (IOException | RuntimeException ex) {
+            // A corrupt gzip header or a failed read leaves the stream in no
+            // state to be reused, so the connection is dropped, not pooled
+            if (raw != null)
+                closeQuietly(raw);
+            if (con instanceof HttpURLConnection)
+                ((HttpURLConnection) con).disconnect();
+            throw ex;
+        }
+
+        // With any Content-Encoding at all, the advertised length is that of
+        // the encoded bytes, which says nothing about how much text is left.
+        this.contentLength = contentEncoding == null ? con.getContentLengthLong() : -1;
+    }
+
+    /**
+     * @return The decompressed page bytes
+     */
+    public InputStream getBody() {
+        return this.body;
+    }
+
+    /**
+     * @return A reader decoding the page body with the detected charset
+     */
+    public Reader getReader() {
+        return new InputStreamReader(this.body, Charset.forName(this.charset));
+    }
+
+    public String getCharset() {
+        return this.charset;
+    }
+
+    /**
+     * @return The Content-Encoding the page was sent with, or null if none
+     */
+    public String getContentEncoding() {
+        return this.contentEncoding;
+    }
+
+    /**
+     * @return The length of the page as sent, if it was sent without a
+     * Content-Encoding, or -1
+     */
+    public long getContentLength() {
+        return this.contentLength;
+    }
+
+    /**
+     * @return The number of decompressed bytes read from the body so far
+     */
+    public long getBytesRead() {
+        return this.body.getByteCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.body.close();
+        } finally {
+            this.statistics.recordTransfer(this.wire.getByteCount(), this.body.getByteCount());
+        }
+    }
+
+    // ===================== Private Methods =============================
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ex) {
+            // Already failing; the original exception is the one that matters
+        }
+    }
+
+    private InputStream decompress(InputStream in, String contentEncoding) throws IOException {
+        if (contentEncoding == null)
+            return in;
+        switch (contentEncoding.trim().toLowerCase()) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(in, 8192);
+            case "deflate":
+                // Servers disagree on whether deflate means zlib-wrapped or
+                // raw, so we check for a zlib header before inflating.
+                BufferedInputStream buffered = new BufferedInputStream(in);
+                buffered.mark(2);
+                int first = buffered.read();
+                int second = buffered.read();
+                buffered.reset();
+                boolean zlib = first != -1 && second != -1 && (first & 0x0F) == 8
+                        && ((first << 8) | second) % 31 == 0;
+                return new InflaterInputStream(buffered, new Inflater(!zlib), 8192);
+            default:
+                return in;
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.fetch;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * A page stored in the local filesystem. The file is memory-mapped and decoded
+ * directly from the mapping, so its bytes are never copied onto the heap, and
+ * it is decoded only once.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class FilePageSource implements IPageSource {
+
+    private final File file;
+    private String charset;
+    private long length;
+    private String html;
+
+    public FilePageSource(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public Document parse() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(this.file, "r");
+                FileChannel channel = raf.getChannel())
+        {
+            this.length = channel.size();
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, this.length);
+            CharsetSniffer.DecodedPage page = CharsetSniffer.decode(bytes);
+            this.charset = page.getCharset();
+            this.html = page.getText().toString();
+        }
+        return Jsoup.parse(this.html, this.file.toURI().toString());
+    }
+
+    @Override
+    public String getCharset() {
+        return this.charset;
+    }
+
+    @Override
+    public long getLength() {
+        return this.length;
+    }
+
+    @Override
+    public String getHtml() {
+        return this.html;
+    }
+
+    @Override
+    public String toString() {
+        return this.file.getPath();
+    }
+
+}
@@ -0,0 +1,65 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.fetch;
+
+import java.io.IOException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * A page whose HTML is already held in memory, so that it can be extracted
+ * without going to the network.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class HtmlPageSource implements IPageSource {
+
+    private final String html;
+    private final String baseUri;
+
+    /**
+     * @param html The page
+     * @param baseUri The address the page was fetched from, or an empty string
+     */
+    public HtmlPageSource(String html, String baseUri) {
+        this.html = html;
+        this.baseUri = baseUri == null ? "" : baseUri;
+    }
+
+    @Override
+    public Document parse() throws IOException {
+        return Jsoup.parse(this.html, this.baseUri);
+    }
+
+    /**
+     * @return UTF-8, since the page was decoded before it was stored
+     */
+    @Override
+    public String getCharset() {
+        return CharsetSniffer.DEFAULT_CHARSET;
+    }
+
+    @Override
+    public long getLength() {
+        return this.html.length();
+    }
+
+    @Override
+    public String getHtml() {
+        return this.html;
+    }
+
+    @Override
+    public String toString() {
+        return this.baseUri.isEmpty() ? "page in memory" : "copy of " + this.baseUri;
+    }
+
+}
@@ -0,0 +1,49 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.fetch;
+
+import java.io.IOException;
+import org.jsoup.nodes.Document;
+
+/**
+ * A page to be run through the extraction process, wherever it comes from.
+ * Implementations read and decode the page exactly once, straight into a
+ * Jsoup document.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public interface IPageSource {
+
+    /**
+     * Read and parse the page. This should only be called once per source.
+     *
+     * @return The parsed page
+     * @throws IOException If the page could not be read
+     */
+    public Document parse() throws IOException;
+
+    /**
+     * @return The charset the page was decoded with, once parse() has been called
+     */
+    public String getCharset();
+
+    /**
+     * @return The number of bytes read, once parse() has been called
+     */
+    public long getLength();
+
+    /**
+     * @return The text of the page, once parse() has been called, so that it
+     * can be kept in the PageStore; or null if it came from there already
+     */
+    public String getHtml();
+
+}
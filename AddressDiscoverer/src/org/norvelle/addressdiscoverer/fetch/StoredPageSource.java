@@ -0,0 +1,85 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.fetch;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.norvelle.addressdiscoverer.model.PageStore;
+
+/**
+ * A page kept in the PageStore, so that a department can be re-extracted
+ * without going to the network. The page is only loaded from the store when
+ * it is parsed, so that queued sources don't hold their pages in memory.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class StoredPageSource implements IPageSource {
+
+    private final String hash;
+    private final String baseUri;
+    private long length;
+
+    /**
+     * @param hash The hash the page is stored under
+     * @param baseUri The address the page was fetched from, or an empty string
+     */
+    public StoredPageSource(String hash, String baseUri) {
+        this.hash = hash;
+        this.baseUri = baseUri == null ? "" : baseUri;
+    }
+
+    @Override
+    public Document parse() throws IOException {
+        String html;
+        try {
+            html = PageStore.getPage(this.hash);
+        } catch (SQLException ex) {
+            throw new IOException("Could not read stored page " + this.hash, ex);
+        }
+        if (html == null)
+            throw new IOException("There is no stored page " + this.hash);
+        this.length = html.length();
+        return Jsoup.parse(html, this.baseUri);
+    }
+
+    /**
+     * @return UTF-8, since the page was decoded before it was stored
+     */
+    @Override
+    public String getCharset() {
+        return CharsetSniffer.DEFAULT_CHARSET;
+    }
+
+    @Override
+    public long getLength() {
+        return this.length;
+    }
+
+    /**
+     * @return null, since the page is in the store already
+     */
+    @Override
+    public String getHtml() {
+        return null;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return this.baseUri.isEmpty() ? "stored page" : "stored copy of " + this.baseUri;
+    }
+
+}
@@ -0,0 +1,83 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.fetch;
+
+import java.io.IOException;
+import java.net.URL;
+import org.apache.commons.io.IOUtils;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.norvelle.addressdiscoverer.model.ExtractionStatistics;
+
+/**
+ * A remote page, fetched through the shared scheduler and decoded as it
+ * arrives. Nothing is written to disk.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class UrlPageSource implements IPageSource {
+
+    private final URL url;
+    private final FetchScheduler scheduler;
+    private final ExtractionStatistics statistics;
+    private String charset;
+    private long length;
+    private String html;
+
+    public UrlPageSource(URL url) {
+        this(url, FetchScheduler.getShared());
+    }
+
+    public UrlPageSource(URL url, ExtractionStatistics statistics) {
+        this(url, FetchScheduler.getShared(), statistics);
+    }
+
+    public UrlPageSource(URL url, FetchScheduler scheduler) {
+        this(url, scheduler, new ExtractionStatistics());
+    }
+
+    public UrlPageSource(URL url, FetchScheduler scheduler, ExtractionStatistics statistics) {
+        this.url = url;
+        this.scheduler = scheduler;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Document parse() throws IOException {
+        try (FetchedPage page = this.scheduler.fetch(this.url, this.statistics)) {
+            this.charset = page.getCharset();
+            this.html = IOUtils.toString(page.getReader());
+            this.length = page.getBytesRead();
+        }
+        return Jsoup.parse(this.html, this.url.toString());
+    }
+
+    @Override
+    public String getCharset() {
+        return this.charset;
+    }
+
+    @Override
+    public long getLength() {
+        return this.length;
+    }
+
+    @Override
+    public String getHtml() {
+        return this.html;
+    }
+
+    @Override
+    public String toString() {
+        return this.url.toString();
+    }
+
+}
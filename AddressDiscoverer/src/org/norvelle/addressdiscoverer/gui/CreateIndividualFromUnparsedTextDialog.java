@@ -11,6 +11,7 @@
 package org.norvelle.addressdiscoverer.gui;
 
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JFrame;
@@ -198,7 +199,7 @@ public class CreateIndividualFromUnparsedTextDialog extends javax.swing.JDialog
                 this.jTitleField.getText(), "", this.jRestField.getText(), 
                 "Hand created", this.department);
         try {
-            Individual.store(newIndividual);
+            Individual.storeAll(Collections.singletonList(newIndividual));
         } catch (SQLException | 
                 CannotStoreNullIndividualException | IndividualHasNoDepartmentException ex) 
         {
@@ -17,7 +17,6 @@ import javax.swing.JOptionPane;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import org.norvelle.addressdiscoverer.AddressDiscoverer;
-import org.norvelle.addressdiscoverer.exceptions.CannotLoadJDBCDriverException;
 import org.norvelle.addressdiscoverer.gui.action.DatabasePruner;
 import org.norvelle.addressdiscoverer.gui.action.ResetExportFlagsAction;
 import org.norvelle.addressdiscoverer.gui.threading.DetermineGenderWorker;
@@ -64,11 +63,7 @@ public class DatabaseToolsForm extends javax.swing.JDialog {
                 notifyPruneLikeClauseChanged();
             }
         });
-        try {
-            this.pruner = new DatabasePruner();
-        } catch (SQLException | CannotLoadJDBCDriverException ex) {
-            AddressDiscoverer.reportException(ex);
-        }
+        this.pruner = new DatabasePruner();
     }
     
     private void notifyPruneLikeClauseChanged() {
@@ -372,7 +367,7 @@ public class DatabaseToolsForm extends javax.swing.JDialog {
         try {
             this.jResetExportFlagsButton.setEnabled(false);
             action.execute();
-        } catch (CannotLoadJDBCDriverException | SQLException ex) {
+        } catch (SQLException ex) {
             AddressDiscoverer.reportException(ex);
         }
         this.jResetExportFlagsButton.setEnabled(true);
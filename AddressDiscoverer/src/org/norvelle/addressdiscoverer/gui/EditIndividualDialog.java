@@ -277,7 +277,6 @@ public class EditIndividualDialog extends javax.swing.JDialog {
         //if (reply == JOptionPane.NO_OPTION) 
         //    return;
         try {
-            this.parent.notifyIndividualDeleted(individual);
             Individual.delete(this.individual);
             this.parent.refreshResultsTable();
         } catch (SQLException ex) {
@@ -12,21 +12,21 @@ package org.norvelle.addressdiscoverer.gui;
 
 import org.norvelle.addressdiscoverer.gui.threading.StatusReporter;
 import java.awt.Point;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.logging.Logger;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JTable;
+import javax.swing.Timer;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
-import javax.swing.table.DefaultTableModel;
 import org.xml.sax.SAXException;
 import org.norvelle.addressdiscoverer.AddressDiscoverer;
 import org.norvelle.addressdiscoverer.gui.action.IndividualForDepartmentExportAction;
@@ -35,7 +35,6 @@ import org.norvelle.addressdiscoverer.gui.threading.ExtractIndividualsFromUrlWor
 import org.norvelle.addressdiscoverer.model.Department;
 import org.norvelle.addressdiscoverer.model.Individual;
 import org.norvelle.addressdiscoverer.model.UnparsableIndividual;
-import org.norvelle.utils.Utils;
 
 /**
  *
@@ -47,8 +46,11 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
     private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); 
 
     private final GUIManagementPane parent;
+    private final IndividualTableModel tableModel = new IndividualTableModel();
     private Department currentDepartment;
-    private List<Individual> individuals;
+
+    // Wait for a pause in the typing before filtering
+    private final Timer filterTimer;
     
     /**
      * Creates new form EmailDiscoveryPanel
@@ -58,6 +60,7 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
     public EmailDiscoveryPanel(GUIManagementPane parent) {
         this.parent = parent;
         initComponents();
+        this.jAddressesFoundTable.setModel(this.tableModel);
         this.jWebAddressField.getDocument().addDocumentListener(
                 new DocumentListener() {
 
@@ -76,6 +79,41 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
                 updateDepartmentWebAddress();
             }
         });
+        this.filterTimer = new Timer(250, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                tableModel.setFilter(jFilterField.getText());
+            }
+        });
+        this.filterTimer.setRepeats(false);
+        this.jFilterField.getDocument().addDocumentListener(
+                new DocumentListener() {
+
+            @Override
+            public void insertUpdate(DocumentEvent de) {
+                filterTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent de) {
+                filterTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent de) {
+                filterTimer.restart();
+            }
+        });
+        
+        // Clicking a column header sorts on that column, in the database
+        this.jAddressesFoundTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent me) {
+                int column = jAddressesFoundTable.columnAtPoint(me.getPoint());
+                if (column != -1)
+                    tableModel.sortBy(jAddressesFoundTable.convertColumnIndexToModel(column));
+            }
+        });
         
         // Add a mouse listener for double clicks on the table
         final EmailDiscoveryPanel myThis = this;
@@ -85,8 +123,10 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
                 JTable table =(JTable) me.getSource();
                 Point p = me.getPoint();
                 int row = table.rowAtPoint(p);
-                if (me.getClickCount() == 2) {
-                    Individual individual = individuals.get(row);
+                if (me.getClickCount() == 2 && row != -1) {
+                    Individual individual = tableModel.getIndividual(row);
+                    if (individual == null)
+                        return;
                     if (individual.getClass().equals(UnparsableIndividual.class)) {
                         CreateIndividualFromUnparsedTextDialog dialog = 
                                 new CreateIndividualFromUnparsedTextDialog(myThis, 
@@ -121,8 +161,7 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
             this.jRetrieveHTMLButton.setEnabled(false);
             this.jBytesReceivedLabel.setEnabled(false);
             this.jBytesReceivedLabel.setText("0");
-            this.individuals = new ArrayList<>();
-            this.populateResultsTable(this.individuals);
+            this.tableModel.setDepartment(null);
             this.jSaveResultsButton.setEnabled(false);
         }
         else {
@@ -135,15 +174,8 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
                 this.jRetrieveHTMLButton.setEnabled(false);
             else
                 this.jRetrieveHTMLButton.setEnabled(true);
-            String html = department.getHtml();
-            try {
-                this.individuals = Individual.getIndividualsForDepartment(department);
-                this.populateResultsTable(this.individuals);
-                this.jSaveResultsButton.setEnabled(true);
-            } catch (SQLException ex) {
-                AddressDiscoverer.reportException(ex);
-            }
-            
+            this.tableModel.setDepartment(department);
+            this.jSaveResultsButton.setEnabled(true);
         }
     }
     
@@ -156,7 +188,7 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
         this.jSaveResultsButton.setEnabled(false);
         this.jStageNameLabel.setEnabled(true);
         final String myURI = this.jWebAddressField.getText();
-        this.populateResultsTable(null);
+        this.tableModel.setDepartment(null);
         if (!myURI.isEmpty()) {
             File file = new File(myURI);
             ExtractIndividualsFromFileWorker worker;
@@ -186,52 +218,16 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
     }
     
     public void addNewIndividual(Individual individual, UnparsableIndividual old) {
-        this.individuals.remove(old);
-        this.individuals.add(individual);
-        this.populateResultsTable(this.individuals);
+        this.refreshResultsTable();
     }
     
-    public void refreshResultsTable() throws SQLException {
-        this.individuals = Individual.getIndividualsForDepartment(this.currentDepartment);
-        this.populateResultsTable(this.individuals);
-    }
-    
-    public void populateResultsTable(List<Individual> individuals) {
-        DefaultTableModel model = new DefaultTableModel();
-        model.addColumn("Title");
-        model.addColumn("First");
-        model.addColumn("Last");
-        model.addColumn("Email");
-        model.addColumn("Role");
-        model.addColumn("Other");
-        if (individuals == null) {
-            model.setRowCount(0);
-        }
-        else {
-            model.setRowCount(individuals.size());
-            int rowCount = 0;
-            for (Individual i : individuals) {
-                if (!i.getClass().equals(UnparsableIndividual.class)) {
-                    model.setValueAt(i.getTitle(), rowCount, 0);
-                    model.setValueAt(i.getFirstName(), rowCount, 1);
-                    model.setValueAt(Utils.chop(i.getLastName(), 20), rowCount, 2);
-                    model.setValueAt(i.getEmail(), rowCount, 3);
-                    model.setValueAt(Utils.chop(i.getRole(), 20), rowCount, 4);
-                    model.setValueAt(Utils.chop(i.getUnprocessed(), 20), rowCount, 5);
-                }
-                else {
-                    model.setValueAt("Edit to fix", rowCount, 0);
-                    model.setValueAt("NULL", rowCount, 1);
-                    model.setValueAt("NULL", rowCount, 2);
-                    model.setValueAt("NULL", rowCount, 3);
-                    model.setValueAt("NULL", rowCount, 4);
-                    model.setValueAt("NULL", rowCount, 5);
-                }
-                rowCount ++;
-            }
-        }
-        this.jAddressesFoundTable.setModel(model);
-        this.individuals = individuals;
+    /**
+     * Read the current department's Individuals again. Only the rows on
+     * show are read, in the background, so this is cheap however large the
+     * department is.
+     */
+    public void refreshResultsTable() {
+        this.tableModel.setDepartment(this.currentDepartment);
         AddressDiscoverer.application.statusChanged();
     }
     
@@ -264,10 +260,6 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
         this.jStageNameLabel.setText("Idle");
     }
     
-    public void notifyIndividualDeleted(Individual i) {
-        this.individuals.remove(i);
-    }
-    
     public void notifyParsingStage(StatusReporter status) {
         this.jStageNameLabel.setText(status.getLabel());
     }
@@ -310,6 +302,8 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
         jAddressesFoundTable = new javax.swing.JTable();
         jSelectFileButton = new javax.swing.JButton();
         jUseUnstructuredParserCheckbox = new javax.swing.JCheckBox();
+        jLabel5 = new javax.swing.JLabel();
+        jFilterField = new javax.swing.JTextField();
         jPageContentTab = new javax.swing.JPanel();
         jScrollPane4 = new javax.swing.JScrollPane();
         jDebugOutputTextArea = new javax.swing.JTextArea();
@@ -376,6 +370,10 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
 
         jUseUnstructuredParserCheckbox.setText("Use unstructured page parser");
 
+        jLabel5.setText("Filter:");
+
+        jFilterField.setToolTipText("Show only addresses with words beginning with these");
+
         javax.swing.GroupLayout jEmailSourceTabLayout = new javax.swing.GroupLayout(jEmailSourceTab);
         jEmailSourceTab.setLayout(jEmailSourceTabLayout);
         jEmailSourceTabLayout.setHorizontalGroup(
@@ -394,7 +392,12 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
                                 .addComponent(jBytesReceivedLabel)
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, 147, Short.MAX_VALUE)
                                 .addComponent(jUseUnstructuredParserCheckbox))
-                            .addComponent(jLabel3))
+                            .addGroup(jEmailSourceTabLayout.createSequentialGroup()
+                                .addComponent(jLabel3)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                                .addComponent(jLabel5)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                .addComponent(jFilterField, javax.swing.GroupLayout.PREFERRED_SIZE, 200, javax.swing.GroupLayout.PREFERRED_SIZE)))
                         .addGap(18, 18, 18)
                         .addComponent(jSaveResultsButton))
                     .addGroup(jEmailSourceTabLayout.createSequentialGroup()
@@ -430,7 +433,10 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
                     .addComponent(jLabel4)
                     .addComponent(jStageNameLabel))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
-                .addComponent(jLabel3)
+                .addGroup(jEmailSourceTabLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabel3)
+                    .addComponent(jLabel5)
+                    .addComponent(jFilterField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                 .addComponent(jScrollPane3, javax.swing.GroupLayout.DEFAULT_SIZE, 416, Short.MAX_VALUE)
                 .addContainerGap())
@@ -505,11 +511,13 @@ public class EmailDiscoveryPanel extends javax.swing.JPanel {
     private javax.swing.JLabel jBytesReceivedLabel;
     private javax.swing.JTextArea jDebugOutputTextArea;
     private javax.swing.JPanel jEmailSourceTab;
+    private javax.swing.JTextField jFilterField;
     private javax.swing.JTabbedPane jHTMLRenderPanel;
     private javax.swing.JLabel jLabel1;
     private javax.swing.JLabel jLabel2;
     private javax.swing.JLabel jLabel3;
     private javax.swing.JLabel jLabel4;
+    private javax.swing.JLabel jLabel5;
     private javax.swing.JFileChooser jOpenFileChooser;
     private javax.swing.JPanel jPageContentTab;
     private javax.swing.JButton jRetrieveHTMLButton;
@@ -42,8 +42,10 @@ public class ExportProgressDialog extends javax.swing.JDialog {
     
     public void doExport() {
         try {
-            this.jExportProgressBar.setIndeterminate(true);
-            this.jExportQuantityLabel.setText("Exporting " + Individual.getCount() + " individuals");
+            long count = Individual.getCount();
+            this.jExportProgressBar.setIndeterminate(false);
+            this.jExportProgressBar.setMaximum((int) count);
+            this.jExportQuantityLabel.setText("Exporting " + count + " individuals");
             worker = new ExportAllIndividualsWorker(file, this);
             worker.execute();
         } catch (SQLException ex) {
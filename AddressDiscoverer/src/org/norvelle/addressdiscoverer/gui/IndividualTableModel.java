@@ -0,0 +1,284 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.gui;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import org.norvelle.addressdiscoverer.AddressDiscoverer;
+import org.norvelle.addressdiscoverer.model.Department;
+import org.norvelle.addressdiscoverer.model.Individual;
+import org.norvelle.addressdiscoverer.model.IndividualQuery;
+import org.norvelle.utils.Utils;
+
+/**
+ * A table model over a department's Individuals that holds only the pages of
+ * rows that have been looked at recently. Pages are read from the database on
+ * a background thread as the table asks for them, and the page after each
+ * one shown is fetched ahead of time, so that scrolling seldom has to wait.
+ * Until a page arrives its rows are shown as loading. Sorting and filtering
+ * are done by the query, not here. All methods must be called on the EDT.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class IndividualTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    // A logger instance
+    private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); 
+
+    public static int defaultPageSize = 100;
+    public static int defaultCachedPages = 20;
+
+    private static final String[] COLUMN_NAMES = { "Title", "First", "Last", "Email", "Role", "Other" };
+
+    private final ExecutorService loader;
+    private final int pageSize;
+    private final Map<Integer, List<Individual>> pages;
+    private final Set<Integer> pending = new HashSet<>();
+    private IndividualQuery query;
+    private String filter;
+    private int rowCount = 0;
+
+    // Bumped whenever the query changes, so that pages read for an old
+    // query are thrown away when they arrive
+    private volatile int generation = 0;
+
+    public IndividualTableModel() {
+        this(defaultPageSize, defaultCachedPages);
+    }
+
+    public IndividualTableModel(int pageSize, final int cachedPages) {
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<Integer, List<Individual>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Individual>> eldest) {
+                return this.size() > cachedPages;
+            }
+        };
+        this.loader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "individual-table-loader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Show the given department's Individuals, keeping the current sort
+     * order and filter.
+     * 
+     * @param department The department, or null to empty the table
+     */
+    public void setDepartment(Department department) {
+        if (department == null)
+            this.setQuery(null);
+        else if (this.query == null)
+            this.setQuery(new IndividualQuery(department));
+        else
+            this.setQuery(new IndividualQuery(department, this.query.getSortField(),
+                    this.query.isAscending(), this.filter));
+    }
+
+    /**
+     * Sort on the given column, or reverse the order if already sorted on it.
+     * 
+     * @param column The model index of the column
+     */
+    public void sortBy(int column) {
+        if (this.query == null)
+            return;
+        String field = IndividualQuery.SORT_FIELDS.get(column);
+        boolean ascending = !field.equals(this.query.getSortField()) || !this.query.isAscending();
+        this.setQuery(new IndividualQuery(this.query.getDepartment(), field, ascending, this.filter));
+        this.fireTableStructureChanged();
+    }
+
+    /**
+     * Show only the Individuals matching the filter, as IndividualIndex.search
+     * would match them.
+     * 
+     * @param filter What the user typed
+     */
+    public void setFilter(String filter) {
+        this.filter = filter;
+        if (this.query != null)
+            this.setQuery(new IndividualQuery(this.query.getDepartment(), 
+                    this.query.getSortField(), this.query.isAscending(), filter));
+    }
+
+    /**
+     * Read the rows again, after Individuals have been added, changed or
+     * deleted. The pages held are dropped at once, so the rows show as
+     * loading until the new count and first page arrive.
+     */
+    public void refresh() {
+        this.setQuery(this.query);
+    }
+
+    /**
+     * @param row The row
+     * @return The Individual shown in the row, or null if it is still loading
+     */
+    public Individual getIndividual(int row) {
+        int page = row / this.pageSize;
+        List<Individual> individuals = this.pages.get(page);
+        if (individuals == null) {
+            this.request(page);
+            return null;
+        }
+        if ((page + 1) * this.pageSize < this.rowCount)
+            this.request(page + 1);
+        int index = row % this.pageSize;
+        return index < individuals.size() ? individuals.get(index) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        if (this.query == null || !IndividualQuery.SORT_FIELDS.get(column).equals(this.query.getSortField()))
+            return COLUMN_NAMES[column];
+        return COLUMN_NAMES[column] + (this.query.isAscending() ? " ▲" : " ▼");
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Individual i = this.getIndividual(row);
+        if (i == null)
+            return column == 0 && !this.pages.containsKey(row / this.pageSize) ? "Loading..." : "";
+        switch (column) {
+            case 0: return i.getTitle();
+            case 1: return i.getFirstName();
+            case 2: return Utils.chop(i.getLastName(), 20);
+            case 3: return i.getEmail();
+            case 4: return Utils.chop(i.getRole(), 20);
+            default: return Utils.chop(i.getUnprocessed(), 20);
+        }
+    }
+
+    // ===================== Private Methods =============================
+
+    private void setQuery(final IndividualQuery newQuery) {
+        this.query = newQuery;
+        this.generation ++;
+        this.pages.clear();
+        this.pending.clear();
+        if (newQuery == null) {
+            this.rowCount = 0;
+            this.fireTableDataChanged();
+            return;
+        }
+        final int myGeneration = this.generation;
+        this.loader.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Skip queries that were replaced before they got to run,
+                // as happens while the user is typing a filter
+                if (myGeneration != generation)
+                    return;
+                try {
+                    final long count = newQuery.getCount();
+                    final List<Individual> first = newQuery.getWindow(0, pageSize);
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (myGeneration != generation)
+                                return;
+                            rowCount = (int) count;
+                            pages.put(0, first);
+                            fireTableDataChanged();
+                        }
+                    });
+                } catch (SQLException ex) {
+                    reportLater(ex);
+                }
+            }
+        });
+    }
+
+    private void request(final int page) {
+        if (this.query == null || this.pending.contains(page))
+            return;
+        this.pending.add(page);
+        final IndividualQuery myQuery = this.query;
+        final int myGeneration = this.generation;
+        this.loader.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Skip pages asked for under a query that has since changed
+                if (myGeneration != generation)
+                    return;
+                try {
+                    long start = System.nanoTime();
+                    final List<Individual> individuals = 
+                            myQuery.getWindow((long) page * pageSize, pageSize);
+                    logger.log(Level.FINE, "Loaded page {0} of individuals in {1} ms", 
+                            new Object[] { page, (System.nanoTime() - start) / 1000000 });
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (myGeneration != generation)
+                                return;
+                            pending.remove(page);
+                            pages.put(page, individuals);
+                            int first = page * pageSize;
+                            int last = Math.min(rowCount, first + pageSize) - 1;
+                            if (last >= first)
+                                fireTableRowsUpdated(first, last);
+                        }
+                    });
+                } catch (SQLException ex) {
+                    // Let the page be asked for again
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (myGeneration == generation)
+                                pending.remove(page);
+                        }
+                    });
+                    reportLater(ex);
+                }
+            }
+        });
+    }
+
+    private void reportLater(final SQLException ex) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                AddressDiscoverer.reportException(ex);
+            }
+        });
+    }
+
+}
@@ -100,6 +100,7 @@ public class MainWindow extends javax.swing.JFrame {
         jExportAllMenuItem = new javax.swing.JMenuItem();
         jSeparator2 = new javax.swing.JPopupMenu.Separator();
         jDatabaseToolsMenuItem = new javax.swing.JMenuItem();
+        jSearchMenuItem = new javax.swing.JMenuItem();
         jSeparator1 = new javax.swing.JPopupMenu.Separator();
         jExitMenuItem = new javax.swing.JMenuItem();
         jHelpMenu = new javax.swing.JMenu();
@@ -167,6 +168,15 @@ public class MainWindow extends javax.swing.JFrame {
             }
         });
         jFileMenu.add(jDatabaseToolsMenuItem);
+
+        jSearchMenuItem.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_F, java.awt.event.InputEvent.CTRL_MASK));
+        jSearchMenuItem.setText("Search Individuals");
+        jSearchMenuItem.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jSearchMenuItemActionPerformed(evt);
+            }
+        });
+        jFileMenu.add(jSearchMenuItem);
         jFileMenu.add(jSeparator1);
 
         jExitMenuItem.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_X, java.awt.event.InputEvent.CTRL_MASK));
@@ -260,6 +270,12 @@ public class MainWindow extends javax.swing.JFrame {
         form.setVisible(true);
     }//GEN-LAST:event_jDatabaseToolsMenuItemActionPerformed
 
+    private void jSearchMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jSearchMenuItemActionPerformed
+        SearchIndividualsDialog dialog = new SearchIndividualsDialog(this);
+        dialog.setLocationRelativeTo(null);
+        dialog.setVisible(true);
+    }//GEN-LAST:event_jSearchMenuItemActionPerformed
+
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JMenuItem jAboutMenu;
@@ -272,6 +288,7 @@ public class MainWindow extends javax.swing.JFrame {
     private javax.swing.JMenuBar jMainMenuBar;
     private javax.swing.JPanel jMainPanel;
     private javax.swing.JFileChooser jSaveFileChooser;
+    private javax.swing.JMenuItem jSearchMenuItem;
     private javax.swing.JPopupMenu.Separator jSeparator1;
     private javax.swing.JPopupMenu.Separator jSeparator2;
     private javax.swing.JLabel jStatusLabel;
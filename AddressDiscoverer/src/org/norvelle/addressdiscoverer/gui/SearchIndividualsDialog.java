@@ -0,0 +1,206 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.gui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableModel;
+import org.norvelle.addressdiscoverer.model.Individual;
+import org.norvelle.addressdiscoverer.model.IndividualIndex;
+
+/**
+ * Searches the names, emails, titles and unprocessed text of all Individuals
+ * through the full-text index, as the user types.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class SearchIndividualsDialog extends javax.swing.JDialog {
+
+    private static final long serialVersionUID = 1L;
+
+    // A logger instance
+    private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); 
+
+    /**
+     * The most Individuals shown for a single search
+     */
+    public static int defaultMaxResults = 500;
+
+    // Wait for a pause in the typing before searching
+    private final Timer searchTimer;
+
+    /**
+     * Creates new form SearchIndividualsDialog
+     * @param parent
+     */
+    public SearchIndividualsDialog(java.awt.Frame parent) {
+        super(parent, false);
+        initComponents();
+        this.searchTimer = new Timer(250, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                search();
+            }
+        });
+        this.searchTimer.setRepeats(false);
+        this.jSearchField.getDocument().addDocumentListener(new DocumentListener() {
+
+            @Override
+            public void insertUpdate(DocumentEvent de) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent de) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent de) {
+                searchTimer.restart();
+            }
+        });
+    }
+
+    /**
+     * The search results: read-only rows of plain text.
+     */
+    private static class ResultsTableModel extends DefaultTableModel {
+
+        private static final long serialVersionUID = 1L;
+
+        ResultsTableModel() {
+            super(new Object[][] {}, new String[] {
+                "First Name", "Last Name", "Email", "Title", "Department"
+            });
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            return String.class;
+        }
+
+        @Override
+        public boolean isCellEditable(int rowIndex, int columnIndex) {
+            return false;
+        }
+    }
+
+    private void search() {
+        DefaultTableModel model = (DefaultTableModel) this.jResultsTable.getModel();
+        model.setRowCount(0);
+        try {
+            long start = System.nanoTime();
+            List<Individual> results = IndividualIndex.search(
+                    this.jSearchField.getText(), defaultMaxResults);
+            for (Individual i : results)
+                model.addRow(new Object[] { i.getFirstName(), i.getLastName(), i.getEmail(),
+                        i.getTitle(), i.getDepartment().getName() });
+            this.jResultsLabel.setText(String.format("%s%d found in %d ms", 
+                    results.size() == defaultMaxResults ? "First " : "",
+                    results.size(), (System.nanoTime() - start) / 1000000));
+        } catch (SQLException ex) {
+            logger.log(Level.SEVERE, "Search failed: {0}", ex.getMessage());
+            this.jResultsLabel.setText("Search failed: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        jSearchLabel = new javax.swing.JLabel();
+        jSearchField = new javax.swing.JTextField();
+        jResultsScrollPane = new javax.swing.JScrollPane();
+        jResultsTable = new javax.swing.JTable();
+        jResultsLabel = new javax.swing.JLabel();
+        jCloseButton = new javax.swing.JButton();
+
+        setDefaultCloseOperation(javax.swing.WindowConstants.DISPOSE_ON_CLOSE);
+        setTitle("Search Individuals");
+
+        jSearchLabel.setText("Search:");
+
+        jResultsTable.setModel(new ResultsTableModel());
+        jResultsScrollPane.setViewportView(jResultsTable);
+
+        jResultsLabel.setText(" ");
+
+        jCloseButton.setText("Close");
+        jCloseButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jCloseButtonActionPerformed(evt);
+            }
+        });
+
+        javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
+        getContentPane().setLayout(layout);
+        layout.setHorizontalGroup(
+            layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(jResultsScrollPane, javax.swing.GroupLayout.DEFAULT_SIZE, 680, Short.MAX_VALUE)
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(jSearchLabel)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(jSearchField))
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(jResultsLabel)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                        .addComponent(jCloseButton)))
+                .addContainerGap())
+        );
+        layout.setVerticalGroup(
+            layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(jSearchLabel)
+                    .addComponent(jSearchField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jResultsScrollPane, javax.swing.GroupLayout.DEFAULT_SIZE, 380, Short.MAX_VALUE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(jResultsLabel)
+                    .addComponent(jCloseButton))
+                .addContainerGap())
+        );
+
+        pack();
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void jCloseButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jCloseButtonActionPerformed
+        this.searchTimer.stop();
+        this.dispose();
+    }//GEN-LAST:event_jCloseButtonActionPerformed
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton jCloseButton;
+    private javax.swing.JLabel jResultsLabel;
+    private javax.swing.JScrollPane jResultsScrollPane;
+    private javax.swing.JTable jResultsTable;
+    private javax.swing.JTextField jSearchField;
+    private javax.swing.JLabel jSearchLabel;
+    // End of variables declaration//GEN-END:variables
+}
@@ -12,13 +12,10 @@ package org.norvelle.addressdiscoverer.gui.action;
 
 import java.io.File;
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.List;
-import org.apache.commons.io.FileUtils;
-import org.norvelle.addressdiscoverer.AddressDiscoverer;
+import org.norvelle.addressdiscoverer.IndividualExporter;
+import org.norvelle.addressdiscoverer.model.Department;
+import org.norvelle.addressdiscoverer.model.ExportBatch;
 import org.norvelle.addressdiscoverer.model.Individual;
 
 /**
@@ -28,33 +25,49 @@ import org.norvelle.addressdiscoverer.model.Individual;
 public class AbstractIndividualExportAction {
 
     protected final File file;
-    protected final Connection conn;
     
     public AbstractIndividualExportAction(File file) throws SQLException {
         this.file = file;
-        this.conn = DriverManager.getConnection(AddressDiscoverer.application.getJdbcUrl());
     }
 
-    protected void export(List<Individual> individuals) throws IOException, SQLException {
-        StringBuilder csvBuilder = new StringBuilder();
-        
-        // Create out header
-        csvBuilder.append("Gender").append("\tFirst Name(s)").append("\tLast Name(s)")
-                .append("\tEmail").append("\tSalutation").append("\tInstitution")
-                .append("\tDepartment").append("\tRole").append("\tOther").append("\n");
-        
-        // Write all the individuals out in CSV format
-        for (Individual i : individuals) {
-            csvBuilder.append(i.getGender()).append("\t").append(i.getFirstName())
-                    .append("\t").append(i.getLastName())
-                    .append("\t").append(i.getEmail()).append("\t").append(i.getTitle())
-                    .append("\t").append(i.getDepartment().getInstitution().toString())
-                    .append("\t").append(i.getDepartment().toString())
-                    .append("\t").append(i.getRole())
-                    .append("\t").append(i.getUnprocessed()).append("\n");
+    /**
+     * Stream the Individuals out to our file in the standard layout.
+     * 
+     * @param individuals The Individuals to export, typically a cursor
+     * @return The number of Individuals written
+     * @throws IOException
+     * @throws SQLException 
+     */
+    protected int export(Iterable<Individual> individuals) throws IOException, SQLException {
+        try (IndividualExporter exporter = 
+                new IndividualExporter(this.file, IndividualExporter.Layout.STANDARD)) 
+        {
+            return exporter.export(individuals);
         }
-        FileUtils.write(file, csvBuilder, "UTF-8");
-        
+    }
+
+    /**
+     * Export a batch of Individuals to our file and mark them as exported,
+     * all in one transaction.
+     * 
+     * @param onlyNotExported Only export Individuals not yet exported
+     * @param department Only export this department's Individuals, if not null
+     * @return The batch exported
+     * @throws IOException
+     * @throws SQLException 
+     */
+    protected ExportBatch exportBatch(boolean onlyNotExported, Department department) 
+            throws IOException, SQLException 
+    {
+        return ExportBatch.export(this.file.getName(), onlyNotExported, department, 
+                new ExportBatch.IExportBatchWriter() {
+                    @Override
+                    public int write(Iterable<Individual> individuals) 
+                            throws IOException, SQLException 
+                    {
+                        return AbstractIndividualExportAction.this.export(individuals);
+                    }
+                });
     }
     
 }
@@ -10,20 +10,23 @@
  */
 package org.norvelle.addressdiscoverer.gui.action;
 
-import java.io.File;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.logging.Level;
+import java.util.Arrays;
+import java.util.List;
 import java.util.logging.Logger;
-import org.norvelle.addressdiscoverer.AddressDiscoverer;
-import org.norvelle.addressdiscoverer.exceptions.CannotLoadJDBCDriverException;
+import org.norvelle.addressdiscoverer.model.Database;
+import org.norvelle.addressdiscoverer.model.IndividualIndex;
 
 /**
- * Given a likeClause, moves Individuals from the individual table to the deleted_individuals
- * table.
+ * Given a search term and a field, moves Individuals from the individual table
+ * to the deleted_individuals table. Fields in the full-text index are searched
+ * through it, so each word of the term matches the start of a word in the
+ * field, regardless of case and accents; other fields are searched for the
+ * term anywhere in them.
  * 
  * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
  */
@@ -31,90 +34,92 @@ public class DatabasePruner {
     
     // A logger instance
     private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); 
-    
-    // Our database connection
-    private String likeClause;
-    private String field;
-    private final String jdbcUrl;
 
-    public DatabasePruner() throws SQLException, CannotLoadJDBCDriverException {
-        try {
-            Class.forName("org.sqlite.JDBC");
-        } catch (ClassNotFoundException ex) {
-            logger.log(Level.SEVERE, "Could not load SQLite JDBC driver: {0}", ex.getMessage());
-            throw new CannotLoadJDBCDriverException(ex.getMessage());
-        }
+    private static final List<String> unindexedFields = Arrays.asList(
+            "affiliation", "role", "gender");
 
-        // create a database connection and initialize our tables.
-        // All object persistence is managed via ORMLite.
-        String dbFilename = AddressDiscoverer.application.getSettingsDirname()
-                + File.separator + "addresses.sqlite";
-        this.jdbcUrl = "jdbc:sqlite:" + dbFilename;
-    }
+    // The columns backed up to deleted_individuals. They are named on both
+    // sides since the individual table has since gained columns, such as the
+    // folded copies kept for the index, that the backup table does not have.
+    private static final String backedUpColumns = "id, firstName, lastName, fullName, "
+            + "email, title, affiliation, role, gender, unprocessed, parserName, "
+            + "originalText, exported, department_id";
+    
+    private String condition;
+    private String parameter;
     
     /**
-     * Given a regular expression and a field to apply it to, sets the private
+     * Given a search term and a field to apply it to, sets the private
      * fields and returns the number of rows that would be affected by the change.
      * 
-     * @param likeClause The regular expression to be applied
-     * @param field The field name to run the LIKE clause against
+     * @param likeClause The text to search for
+     * @param field The field name to search in
      * @return The number of Individuals that would be moved to the deleted_individuals table.
      * @throws java.sql.SQLException
      */
     public int setLikeClauseAndField(String likeClause, String field) throws SQLException {
-        Connection conn = null;
-        try {
-            conn = DriverManager.getConnection(this.jdbcUrl);
-            this.likeClause = likeClause;
-            this.field = field;
-            String sql = String.format(
-                    "SELECT COUNT(*) AS total FROM individual WHERE %s LIKE '%%%s%%'",
-                    this.field, this.likeClause);
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-            rs.next();
-            int numAffected = rs.getInt("total");
-            conn.close();
-            return numAffected;
-        } catch (SQLException ex) {
-            if (conn != null)
-                conn.close();
-            throw ex;
+        if (IndividualIndex.FIELDS.contains(field)) {
+            this.condition = IndividualIndex.getMatchCondition(field);
+            this.parameter = IndividualIndex.getMatchQuery(likeClause);
+        }
+        else if (unindexedFields.contains(field)) {
+            this.condition = field + " LIKE ?";
+            this.parameter = "%" + likeClause + "%";
+        }
+        else
+            throw new IllegalArgumentException("Cannot prune on " + field);
+        if (this.parameter == null) {
+            // Nothing to search for, so nothing to prune
+            this.condition = null;
+            return 0;
+        }
+        try (Connection conn = Database.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT COUNT(*) AS total FROM individual WHERE " + this.condition)) 
+        {
+            stmt.setString(1, this.parameter);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt("total");
+            }
         }
     }
     
     /**
-     * Run the pruner with the parameters tested by the SetRegexAndField method
+     * Run the pruner with the parameters tested by the setLikeClauseAndField method
      * 
      * @throws SQLException
      */
-    @SuppressWarnings("ConvertToTryWithResources")
     public void runPrune() throws SQLException {
-        Connection conn = null;
-        try {
-            // First back the records up to the deleted_individuals table
-            conn = DriverManager.getConnection(this.jdbcUrl);
-            Statement stmt = conn.createStatement();
-            String sql = String.format(
-                    "INSERT INTO deleted_individuals SELECT * FROM individual WHERE %s LIKE '%%%s%%'",
-                    this.field, this.likeClause);
-            stmt.execute(sql);
-            
-            // Save a timestamp so we can later do a rollback
-            String sql2 = "UPDATE deleted_individuals SET timestamp = "
-                    + "datetime('now','localtime') WHERE timestamp is NULL";
-            stmt.execute(sql2);
-            
-            // Now, perform the delete itself
-            String sql3 = String.format("DELETE FROM individual WHERE %s LIKE '%%%s%%'",
-                    this.field, this.likeClause);
-            stmt.execute(sql3);
-            
-            conn.close();
-        }  catch (SQLException ex) {
-            if (conn != null)
-                conn.close();
-            throw ex;
+        if (this.condition == null)
+            return;
+        try (Connection conn = Database.getConnection()) {
+            // The backup, timestamp and delete stand or fall together
+            conn.setAutoCommit(false);
+            try (PreparedStatement backup = conn.prepareStatement(
+                    "INSERT INTO deleted_individuals (" + backedUpColumns + ") SELECT " 
+                            + backedUpColumns + " FROM individual WHERE " + this.condition);
+                    Statement stmt = conn.createStatement()) 
+            {
+                // First back the records up to the deleted_individuals table
+                backup.setString(1, this.parameter);
+                backup.executeUpdate();
+
+                // Delete exactly the rows just backed up, which are the ones
+                // not yet timestamped, rather than searching a second time
+                stmt.execute("DELETE FROM individual WHERE id IN "
+                        + "(SELECT id FROM deleted_individuals WHERE timestamp IS NULL)");
+
+                // Save a timestamp so we can later do a rollback
+                stmt.execute("UPDATE deleted_individuals SET timestamp = "
+                        + "datetime('now','localtime') WHERE timestamp is NULL");
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
     }
     
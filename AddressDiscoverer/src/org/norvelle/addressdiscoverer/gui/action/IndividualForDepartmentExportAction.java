@@ -13,10 +13,8 @@ package org.norvelle.addressdiscoverer.gui.action;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.List;
 import org.norvelle.addressdiscoverer.model.Department;
-import org.norvelle.addressdiscoverer.model.Individual;
+import org.norvelle.addressdiscoverer.model.ExportBatch;
 
 /**
  * handles exporting Individual records to CSV
@@ -25,32 +23,16 @@ import org.norvelle.addressdiscoverer.model.Individual;
  */
 public class IndividualForDepartmentExportAction extends AbstractIndividualExportAction {
     
-    private final List<Individual> individuals;
-    private final int departmentId;
+    private final Department department;
     
     public IndividualForDepartmentExportAction(File file, Department department) 
             throws SQLException 
     {
         super(file);
-        this.individuals = Individual.getIndividualsForDepartment(department);
-        this.departmentId = department.getId();
+        this.department = department;
     }
     
-    public void export() throws IOException, SQLException {
-        this.export(this.individuals);
-
-        // Now mark all the exported individuals as having been exported
-        try {
-            String sql = "UPDATE individual SET exported = 1 WHERE department_id = " 
-                    + this.departmentId;
-            Statement stmt = conn.createStatement();
-            stmt.execute(sql);
-            this.conn.close();
-        } catch (SQLException ex) {
-            if (this.conn != null)
-                this.conn.close();
-            throw ex;
-        }
-            
+    public ExportBatch export() throws IOException, SQLException {
+        return this.exportBatch(false, this.department);
     }
 }
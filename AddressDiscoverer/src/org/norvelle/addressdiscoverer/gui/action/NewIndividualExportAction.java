@@ -13,10 +13,7 @@ package org.norvelle.addressdiscoverer.gui.action;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList;
-import java.util.List;
-import org.norvelle.addressdiscoverer.model.Individual;
+import org.norvelle.addressdiscoverer.model.ExportBatch;
 
 /**
  * handles exporting Individual records to CSV
@@ -29,25 +26,14 @@ public class NewIndividualExportAction extends AbstractIndividualExportAction {
         super(file);
     }
     
-    public void export() throws IOException, SQLException {
-        List<Individual> allIndividuals = Individual.getAll();
-        List<Individual> individualsToExport = new ArrayList<>();
-        for (Individual i : allIndividuals) 
-            if (!i.isExported())
-                individualsToExport.add(i);
-        this.export(individualsToExport);
-
-        // Now mark all the exported individuals as having been exported
-        try {
-            String sql = "UPDATE individual SET exported = 1";
-            Statement stmt = conn.createStatement();
-            stmt.execute(sql);
-            this.conn.close();
-        } catch (SQLException ex) {
-            if (this.conn != null)
-                this.conn.close();
-            throw ex;
-        }
-            
+    /**
+     * Export the Individuals not yet exported, marking exactly those.
+     * 
+     * @return The batch exported
+     * @throws IOException
+     * @throws SQLException 
+     */
+    public ExportBatch export() throws IOException, SQLException {
+        return this.exportBatch(true, null);
     }
 }
@@ -10,15 +10,11 @@
  */
 package org.norvelle.addressdiscoverer.gui.action;
 
-import java.io.File;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.norvelle.addressdiscoverer.AddressDiscoverer;
-import org.norvelle.addressdiscoverer.exceptions.CannotLoadJDBCDriverException;
+import org.norvelle.addressdiscoverer.model.Database;
 
 /**
  *
@@ -29,21 +25,12 @@ public class ResetExportFlagsAction {
     // A logger instance
     private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); 
 
-    public void execute() throws CannotLoadJDBCDriverException, SQLException {
-        try {
-            Class.forName("org.sqlite.JDBC");
-        } catch (ClassNotFoundException ex) {
-            logger.log(Level.SEVERE, "Could not load SQLite JDBC driver: {0}", ex.getMessage());
-            throw new CannotLoadJDBCDriverException(ex.getMessage());
+    public void execute() throws SQLException {
+        try (Connection conn = Database.getConnection();
+                Statement stmt = conn.createStatement()) 
+        {
+            stmt.execute("UPDATE individual SET exported = 0");
         }
-
-        // create a database connection and initialize our tables.
-        // All object persistence is managed via ORMLite.
-        String dbFilename = AddressDiscoverer.application.getSettingsDirname()
-                + File.separator + "addresses.sqlite";
-        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFilename);
-        Statement stmt = conn.createStatement();
-        stmt.execute("UPDATE individual SET exported = 0");
     }
     
 }
@@ -17,6 +17,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.norvelle.addressdiscoverer.gui.DatabaseToolsForm;
 import org.norvelle.addressdiscoverer.model.GenderDeterminer;
 import org.norvelle.addressdiscoverer.model.Individual;
+import org.norvelle.addressdiscoverer.model.IndividualCursor;
 
 /**
  * A SwingWorker to handle setting genders for all Individuals in the background,
@@ -42,52 +43,46 @@ public class DetermineGenderWorker
 
     @Override
     protected Integer doInBackground() throws Exception {
-        List<Individual> individuals = Individual.getAll();
-        this.parent.setMaxProgress(individuals.size());
+        // Unwanted Individuals are filtered out by the query itself
+        this.parent.setMaxProgress((int) Individual.getCount(
+                this.limitToNonExported, this.limitToUnassignedGender));
         int rowCount = 0;
-        for (Individual i : individuals) {
-            // Filter out unwanted Individuals
-            if (this.limitToNonExported && i.isExported()) {
-                rowCount ++;
-                continue;
-            }
-            if (this.limitToUnassignedGender && 
-                    (i.getGender().equals("F") || i.getGender().equals("M"))) {
-                rowCount ++;
-                continue;
-            }
-            
-            // If we get here, guess the gender and assign it.
-            String wholeName = i.getFirstName();
-            String[] parts = StringUtils.split(wholeName);
-            String firstName = parts[0];
-            GenderDeterminer.Gender gender = GenderDeterminer.getGender(firstName);
-            if (gender == GenderDeterminer.Gender.FEMALE)
-                i.setGender("F");
-            else if (gender == GenderDeterminer.Gender.MALE) 
-                i.setGender("M");
-            else {
-                // If there's a second name, try again with that.
-                if (parts.length > 1) {
-                    GenderDeterminer.Gender gender2 = GenderDeterminer.getGender(parts[1]);
-                    if (gender2 == GenderDeterminer.Gender.FEMALE)
-                        i.setGender("F");
-                    else if (gender2 == GenderDeterminer.Gender.MALE) 
-                        i.setGender("M");
+        try (IndividualCursor individuals = Individual.iterate(
+                this.limitToNonExported, this.limitToUnassignedGender)) 
+        {
+            for (Individual i : individuals) {
+                // Guess the gender and assign it.
+                String wholeName = i.getFirstName();
+                String[] parts = StringUtils.split(wholeName);
+                String firstName = parts[0];
+                GenderDeterminer.Gender gender = GenderDeterminer.getGender(firstName);
+                if (gender == GenderDeterminer.Gender.FEMALE)
+                    i.setGender("F");
+                else if (gender == GenderDeterminer.Gender.MALE) 
+                    i.setGender("M");
+                else {
+                    // If there's a second name, try again with that.
+                    if (parts.length > 1) {
+                        GenderDeterminer.Gender gender2 = GenderDeterminer.getGender(parts[1]);
+                        if (gender2 == GenderDeterminer.Gender.FEMALE)
+                            i.setGender("F");
+                        else if (gender2 == GenderDeterminer.Gender.MALE) 
+                            i.setGender("M");
+                        else i.setGender("U");
+                    }
+                
+                    // Only give up if nothing works.
                     else i.setGender("U");
                 }
-                
-                // Only give up if nothing works.
-                else i.setGender("U");
-            }
-            Individual.update(i);
+                Individual.update(i);
             
-            // Tell the GUI how far we've gotten.
-            publish(rowCount++);
+                // Tell the GUI how far we've gotten.
+                publish(rowCount++);
             
-            // Check to see if we've been canceled
-            if (Thread.currentThread().isInterrupted())
-                break;
+                // Check to see if we've been canceled
+                if (Thread.currentThread().isInterrupted())
+                    break;
+            }
         }
         this.parent.setProgressDone();
         return 0;
@@ -11,49 +11,41 @@
 package org.norvelle.addressdiscoverer.gui.threading;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JOptionPane;
 import javax.swing.SwingWorker;
-import org.apache.commons.io.FileUtils;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import org.norvelle.addressdiscoverer.AddressDiscoverer;
-import org.norvelle.addressdiscoverer.gui.threading.ExtractIndividualsStatusReporter.ClassificationStages;
-import org.norvelle.addressdiscoverer.classifier.IProgressConsumer;
-import org.norvelle.addressdiscoverer.exceptions.CantParseIndividualException;
-import org.norvelle.addressdiscoverer.exceptions.DoesNotContainContactLinkException;
-import org.norvelle.addressdiscoverer.exceptions.MultipleContactLinksOfSameTypeFoundException;
+import org.norvelle.addressdiscoverer.classifier.ExtractionJob;
+import org.norvelle.addressdiscoverer.classifier.ExtractionPipeline;
+import org.norvelle.addressdiscoverer.classifier.ExtractionResult;
+import org.norvelle.addressdiscoverer.fetch.FilePageSource;
+import org.norvelle.addressdiscoverer.fetch.IPageSource;
 import org.norvelle.addressdiscoverer.gui.EmailDiscoveryPanel;
 import org.norvelle.addressdiscoverer.model.Department;
-import org.norvelle.addressdiscoverer.model.Individual;
-import org.norvelle.addressdiscoverer.model.UnamName;
-import org.norvelle.addressdiscoverer.parse.INameElement;
-import org.norvelle.addressdiscoverer.parse.ContactLink;
-import org.norvelle.addressdiscoverer.parse.structured.StructuredPageContactLinkLocator;
-import org.norvelle.addressdiscoverer.parse.INameElementFinder;
-import org.norvelle.addressdiscoverer.parse.structured.StructuredNameElementFinder;
-import org.norvelle.addressdiscoverer.parse.unstructured.UnstructuredNameElementFinder;
+import org.norvelle.addressdiscoverer.model.ExtractionStatistics;
 import org.norvelle.utils.Utils;
 
 /**
  * A SwingWorker to handle background processing of the page classification
- * process. 
+ * process. Progress goes through a ProgressChannel, so the extraction never
+ * touches Swing components itself and never waits for the GUI to draw.
  * 
  * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
  */
 public class ExtractIndividualsFromFileWorker 
-    extends SwingWorker<String, String> implements IProgressConsumer
+    extends SwingWorker<ExtractionResult, String>
 {
     static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
-    protected File fileToClassify;
+    protected final IPageSource source;
     private final EmailDiscoveryPanel parent;
     private final Department department;
     private final boolean useSequentialParser;
+    private final ProgressChannel channel;
+    private final ExtractionStatistics statistics;
 
     /**
      * Run the classification process on the contents of a file in the filesystem
@@ -65,96 +57,97 @@ public class ExtractIndividualsFromFileWorker
      */
     public ExtractIndividualsFromFileWorker(EmailDiscoveryPanel parent, 
             File fileToClassify, Department department, boolean useSequentialParser) 
+    {
+        this(parent, new FilePageSource(fileToClassify), department, 
+                useSequentialParser, new ExtractionStatistics());
+    }
+
+    /**
+     * Run the classification process on a page from any source
+     * 
+     * @param parent
+     * @param source
+     * @param department
+     * @param useSequentialParser
+     * @param statistics The totals for this run, which the source may 
+     * already be counting its fetch in
+     */
+    protected ExtractIndividualsFromFileWorker(final EmailDiscoveryPanel parent, 
+            IPageSource source, Department department, boolean useSequentialParser,
+            ExtractionStatistics statistics) 
     {
         this.parent = parent;
-        this.fileToClassify = fileToClassify;
+        this.statistics = statistics;
+        this.source = source;
         this.department = department;
         this.useSequentialParser = useSequentialParser;
+        this.channel = new ProgressChannel(new IProgressListener() {
+            @Override
+            public void showText(String text) {
+                parent.getjStageNameLabel().setText(text);
+            }
+
+            @Override
+            public void showLines(List<String> lines) {
+                for (String line : lines)
+                    parent.addToOutput(line);
+            }
+        });
     }
 
     @Override
-    @SuppressWarnings({"UseSpecificCatch", "BroadCatchBlock", "TooBroadCatch"})
-    protected String doInBackground() throws Exception {
-        InputStream in = null;
-        try {
-            // Set the base URL if one is specified (in order to resolve urls
-            // that point to web links within downloaded pages
-            if (!department.getBaseUrl().isEmpty())
-                StructuredPageContactLinkLocator.baseUrl = department.getBaseUrl();
-            
-            // Delete any individuals present from last parse.
-            Individual.deleteIndividualsForDepartment(department);
-            
-            // Fetch the page and parse it into a JSoup document
-            in = new FileInputStream(this.fileToClassify);
-            String charset = Utils.getCharsetFromStream(in);
-            String html = FileUtils.readFileToString(this.fileToClassify, Charset.forName(charset));
-            Document soup = Jsoup.parse(html, charset);
-            
-            // Classify the page to discover its structure
-            parent.getjStageNameLabel().setText("Finding names");
-            ExtractIndividualsStatusReporter status = new ExtractIndividualsStatusReporter(
-                ClassificationStages.CREATING_ITERATOR, this);
-            INameElementFinder nameElementFinder;
-            if (!this.useSequentialParser)
-                nameElementFinder = new StructuredNameElementFinder(soup, charset, status);
-            else
-                nameElementFinder = new UnstructuredNameElementFinder(soup, charset, status);
+    protected ExtractionResult doInBackground() throws Exception {
+        this.channel.start();
 
-            // Now, fetch the individuals we've extract as a List
-            List<Individual> individuals = null; //extractor.getIndividuals();
-            List<INameElement> nameElements = nameElementFinder.getNameElements();
-            int count = 1;
-            for (INameElement ne : nameElements) {
-                parent.getjStageNameLabel().setText(String.format(
-                        "Processing name %d out of %d", count ++, nameElements.size()));
-                
-                // First, see if we can parse the name; if not, we skip this name
-                UnamName nm;
-                try {
-                    nm = ne.getUnamName();
-                }
-                catch (CantParseIndividualException e) {
-                    this.reportException("Couldn't parse name for " + ne.toString());
-                    continue;
-                }
-                
-                String email;
-                try {
-                    ContactLink cl = ne.getContactLink();
-                    email = cl.getAddress();
-                }
-                catch (DoesNotContainContactLinkException ex) {
-                    email = "Not found";
-                }
-                catch (MultipleContactLinksOfSameTypeFoundException ex2) {
-                    email = ex2.getMessage();
-                }
-                catch (Exception ex3) {
-                    this.reportException(String.format("Exception '%s' while processing %s", ex3.getMessage(), ne.toString()));
-                    continue;
-                }
-                Individual i = new Individual(nm, email, "", department);
-                Individual.store(i);
-            }
-            parent.getjStageNameLabel().setText(String.format("Found %d individuals", Individual.getCount()));
+        // Extract the individuals on the page, replacing any present
+        // from the last parse with them.
+        ExtractionPipeline pipeline = new ExtractionPipeline(this.statistics);
+        pipeline.start();
+        ExtractionJob job = pipeline.submit(
+                this.department, this.source, this.useSequentialParser, this.channel);
+        pipeline.shutdown();
+        ExtractionResult result;
+        try {
+            result = job.get();
+        } catch (ExecutionException ex) {
+            throw (Exception) ex.getCause();
+        }
+        if (result.isUnchanged())
+            this.channel.addLine("Page unchanged since the last extraction; kept the stored individuals");
+        else
+            this.channel.addLine(String.format(
+                    "Found %d individuals", result.getIndividuals().size()));
+        for (Department duplicate : result.getNearDuplicates())
+            this.channel.addLine("This page looks like a mirror of that of " + duplicate.getName());
+        this.channel.addLine(this.statistics.getSummary());
+        this.channel.addLine(pipeline.getMetricsSummary());
+        return result;
+    }
 
-            // All done    
-            this.parent.notifyParsingFinished();
-            this.parent.refreshResultsTable();
-        } catch (Exception ex) {
-            AddressDiscoverer.reportException(ex);
-        } finally {
-            try {
-                if (in != null)
-                    in.close();
-            } catch (IOException ex) {
-                AddressDiscoverer.reportException(ex);
-            }
+    /**
+     * Show the outcome of the extraction. Unlike doInBackground, this runs
+     * on the EDT, so it is free to update the panel.
+     */
+    @Override
+    protected void done() {
+        this.channel.addLine(this.channel.getStatisticsSummary());
+        this.channel.stop();
+        try {
+            ExtractionResult result = this.get();
+            this.parent.getjBytesReceivedLabel().setText(String.valueOf(result.getBytesRead()));
+            if (!result.getFailures().isEmpty())
+                this.reportException(Utils.join(result.getFailures(), "\n"));
+        } catch (InterruptedException | CancellationException ex) {
+            logger.log(Level.INFO, "Extraction was cancelled");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            AddressDiscoverer.reportException(cause instanceof Exception ? (Exception) cause : ex);
         }
-        
-        parent.getjStageNameLabel().setText("Done");
-        return "";
+
+        // All done    
+        this.parent.notifyParsingFinished();
+        this.parent.refreshResultsTable();
+        this.parent.getjStageNameLabel().setText("Done");
     }
     
     /**
@@ -168,28 +161,4 @@ public class ExtractIndividualsFromFileWorker
             "Program error", JOptionPane.ERROR_MESSAGE);
     }
 
-    @Override
-    public void reportProgressStage(ExtractIndividualsStatusReporter progress) {
-        publish(progress.toString());
-    }
-    
-    @Override
-    public void reportText(String text) {
-        this.parent.getjStageNameLabel().setText(text);
-    }
-
-    /**
-     * This method receives the signals that the doInBackground method sends out,
-     * allowing the SwingWorker to periodically check those signals and process
-     * them here.
-     *
-     * @param progressUpdates
-     */
-    @Override
-    protected void process(final List<String> progressUpdates) {
-        for (final String progress : progressUpdates) {
-            this.parent.addToOutput(progress);
-        }
-    }
-    
 }
@@ -10,18 +10,13 @@
  */
 package org.norvelle.addressdiscoverer.gui.threading;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.net.URLConnection;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import org.norvelle.addressdiscoverer.fetch.UrlPageSource;
 import org.norvelle.addressdiscoverer.gui.EmailDiscoveryPanel;
 import org.norvelle.addressdiscoverer.model.Department;
-import org.norvelle.addressdiscoverer.parse.structured.StructuredPageContactLinkLocator;
+import org.norvelle.addressdiscoverer.model.ExtractionStatistics;
 
 /**
  * A SwingWorker to handle setting genders for all Individuals in the background,
@@ -43,25 +38,24 @@ public class ExtractIndividualsFromUrlWorker extends  ExtractIndividualsFromFile
      */
     public ExtractIndividualsFromUrlWorker(EmailDiscoveryPanel parent, String uri, 
             Department department, boolean useSequentialParser) 
-            throws MalformedURLException, URISyntaxException, IOException 
+            throws MalformedURLException, URISyntaxException 
     {
-        super(parent, null, department, useSequentialParser);
-        StructuredPageContactLinkLocator.baseUrl = uri;
-        parent.getjStageNameLabel().setText("Reading remote web page");
+        this(parent, checkUrl(uri), department, useSequentialParser, 
+                new ExtractionStatistics());
+    }
+
+    private ExtractIndividualsFromUrlWorker(EmailDiscoveryPanel parent, URL url, 
+            Department department, boolean useSequentialParser, 
+            ExtractionStatistics statistics) 
+    {
+        super(parent, new UrlPageSource(url, statistics), department, 
+                useSequentialParser, statistics);
+    }
+    
+    private static URL checkUrl(String uri) throws MalformedURLException, URISyntaxException {
         URL u = new URL(uri); // this would check for the protocol
         u.toURI();
-        URLConnection con = u.openConnection();
-        con.setRequestProperty("User-Agent", "Mozilla/5.0 (Macintosh; U; Intel Mac OS X 10.4; "
-                + "en-US; rv:1.9.2.2) Gecko/20100316 Firefox/3.6.2");
-        InputStream in = con.getInputStream();
-        String encoding = con.getContentEncoding();
-        encoding = encoding == null ? "UTF-8" : encoding;
-        String body = IOUtils.toString(in, encoding);
-        File tempDir = FileUtils.getTempDirectory();
-        File tempFile = new File(tempDir.getAbsolutePath() + File.separator + "classifier.html.tmp");
-        FileUtils.write(tempFile, body, encoding);
-        this.fileToClassify = tempFile;
-        parent.getjBytesReceivedLabel().setText(String.valueOf(body.length()));
+        return u;
     }
     
 }
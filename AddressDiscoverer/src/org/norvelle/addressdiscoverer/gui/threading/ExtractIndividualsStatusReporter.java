@@ -56,6 +56,7 @@ public class ExtractIndividualsStatusReporter {
     private int currentNumericStep;
     private final IProgressConsumer progressConsumer;
     private int lastPercentReported = -1;
+    private int namesFound = 0;
    
     /**
      * Constructor
@@ -91,19 +92,34 @@ public class ExtractIndividualsStatusReporter {
         this.reportNumericProgress();
     }
 
+    /**
+     * Count a name found while walking the document. Names are reported
+     * along with the numeric progress, rather than one by one.
+     */
+    public void incrementNamesFound() {
+        this.namesFound ++;
+    }
+
+    public int getNamesFound() {
+        return this.namesFound;
+    }
+
+    /**
+     * This is called for every node of the document, so it does nothing but
+     * arithmetic unless another ten percent has been completed.
+     */
     private void reportNumericProgress() {
         if (this.progressConsumer == null) return;
         
-        int percentComplete = (int) (((double) this.currentNumericStep / 
-                (double) this.totalNumericSteps) * 100.0);
+        int percentComplete = (int) (this.currentNumericStep * 100L / 
+                Math.max(1, this.totalNumericSteps));
+        if (percentComplete % 10 != 0 || this.lastPercentReported == percentComplete)
+            return;
         this.label = String.format("%s: %2d%% complete", this.baseLabel, percentComplete);
-        int tensPlace = percentComplete % 10;
-        if (this.progressConsumer != null && tensPlace == 0 && 
-                this.lastPercentReported != percentComplete) 
-        {
-            this.progressConsumer.reportProgressStage(this);
-            this.lastPercentReported = percentComplete;
-        }
+        if (this.namesFound > 0)
+            this.label += String.format(", %d names found", this.namesFound);
+        this.progressConsumer.reportProgressStage(this);
+        this.lastPercentReported = percentComplete;
     }
     
     public void reportProgressText(String text) {
@@ -0,0 +1,32 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.gui.threading;
+
+import java.util.List;
+
+/**
+ * Receives the progress gathered by a ProgressChannel, always on the EDT.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public interface IProgressListener {
+
+    /**
+     * @param text The latest status text; any sent since the last frame have been dropped
+     */
+    public void showText(String text);
+
+    /**
+     * @param lines The log lines sent since the last frame, in order
+     */
+    public void showLines(List<String> lines);
+
+}
@@ -0,0 +1,126 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.gui.threading;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.Timer;
+import org.norvelle.addressdiscoverer.classifier.IProgressConsumer;
+
+/**
+ * Carries progress from extraction threads to the GUI without either waiting
+ * on the other. Reports are only recorded when they are made, which costs an
+ * atomic write; a Swing timer then hands whatever has changed to the
+ * listener on the EDT, by default at most ten times a second. Status
+ * text is coalesced, so only the latest of any sent between two frames is
+ * shown, while log lines are all delivered, in order, a frame's worth at a
+ * time. Any thread may report; start() and stop() belong on the EDT.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class ProgressChannel implements IProgressConsumer {
+
+    public static final int DEFAULT_FRAMES_PER_SECOND = 10;
+
+    private final IProgressListener listener;
+    private final Timer timer;
+    private final AtomicReference<String> text = new AtomicReference<>();
+    private final ConcurrentLinkedQueue<String> lines = new ConcurrentLinkedQueue<>();
+    private final AtomicLong textsReported = new AtomicLong();
+    private final AtomicLong textsShown = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+
+    public ProgressChannel(IProgressListener listener) {
+        this(listener, DEFAULT_FRAMES_PER_SECOND);
+    }
+
+    public ProgressChannel(IProgressListener listener, int framesPerSecond) {
+        this.listener = listener;
+        this.timer = new Timer(1000 / framesPerSecond, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent ae) {
+                deliver();
+            }
+        });
+        this.timer.setCoalesce(true);
+    }
+
+    public void start() {
+        this.timer.start();
+    }
+
+    /**
+     * Stop the timer and deliver anything still waiting, so that nothing
+     * reported before the call is lost.
+     */
+    public void stop() {
+        this.timer.stop();
+        this.deliver();
+    }
+
+    /**
+     * @param text The status text to show, replacing any not yet shown
+     */
+    public void setText(String text) {
+        this.textsReported.incrementAndGet();
+        this.text.set(text);
+    }
+
+    /**
+     * @param line A line to add to the log
+     */
+    public void addLine(String line) {
+        this.lines.add(line);
+    }
+
+    @Override
+    public void reportProgressStage(ExtractIndividualsStatusReporter progress) {
+        this.addLine(progress.toString());
+    }
+
+    @Override
+    public void reportText(String text) {
+        this.setText(text);
+    }
+
+    public String getStatisticsSummary() {
+        return String.format("Showed %d of %d status updates in %d frames",
+                this.textsShown.get(), this.textsReported.get(), this.frames.get());
+    }
+
+    // ===================== Private Methods =============================
+
+    /**
+     * Hand the listener whatever has been reported since the last frame. Only
+     * ever runs on the EDT.
+     */
+    private void deliver() {
+        String latest = this.text.getAndSet(null);
+        List<String> newLines = new ArrayList<>();
+        for (String line = this.lines.poll(); line != null; line = this.lines.poll())
+            newLines.add(line);
+        if (latest == null && newLines.isEmpty())
+            return;
+        this.frames.incrementAndGet();
+        if (!newLines.isEmpty())
+            this.listener.showLines(newLines);
+        if (latest != null) {
+            this.textsShown.incrementAndGet();
+            this.listener.showText(latest);
+        }
+    }
+
+}
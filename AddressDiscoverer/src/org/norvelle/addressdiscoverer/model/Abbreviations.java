@@ -32,6 +32,10 @@ public class Abbreviations {
     
     // The file where we store our last abbreviations
     private static File abbreviationsFile;
+
+    // A hash of the entries, worked out when first asked for and forgotten
+    // whenever they change
+    private static String fingerprint;
         
     // ===================== Static Data Manipulation Methods =============================
     
@@ -44,6 +48,7 @@ public class Abbreviations {
                 String[] pair = abbreviationPair.split("\t");
                 abbreviations.put(pair[0], pair[1]);
             }
+        forgetFingerprint();
     }
     
     public static void store() throws IOException {
@@ -70,4 +75,17 @@ public class Abbreviations {
         //abbreviations.put(abbreviation, 1);
     }
 
+    /**
+     * @return A hash of the entries loaded, which changes whenever they do
+     */
+    public static synchronized String getFingerprint() {
+        if (fingerprint == null)
+            fingerprint = PageStore.hashEntries(abbreviations.entrySet());
+        return fingerprint;
+    }
+
+    private static synchronized void forgetFingerprint() {
+        fingerprint = null;
+    }
+
 }
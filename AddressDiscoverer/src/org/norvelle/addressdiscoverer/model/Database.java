@@ -0,0 +1,158 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The single source of database connections for the whole application, used
+ * both by ORMLite and by the code that runs SQL directly. Connections are
+ * pooled and each is set up for WAL journaling, so that a background export or
+ * prune can write while the GUI goes on reading, with a busy timeout so that
+ * two writers wait for each other rather than failing outright.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class Database {
+
+    // A logger instance
+    private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); 
+
+    // Connection settings, applied to every connection as it is opened
+    public static int defaultBusyTimeout = 10000;
+    public static String defaultSynchronous = "NORMAL";
+    public static int defaultCacheSize = 8000;
+    public static int defaultMaxConnectionsFree = 4;
+
+    private static PooledSqliteConnectionSource connectionSource;
+
+    /**
+     * Open the pool for the given database, closing any pool opened before.
+     * 
+     * @param jdbcUrl The database to connect to
+     * @return The pool, for ORMLite to use
+     * @throws SQLException 
+     */
+    public static synchronized ConnectionSource open(String jdbcUrl) throws SQLException {
+        if (connectionSource != null)
+            connectionSource.close();
+        connectionSource = new PooledSqliteConnectionSource(jdbcUrl);
+        connectionSource.setMaxConnectionsFree(defaultMaxConnectionsFree);
+        connectionSource.setTestBeforeGet(false);
+        logger.log(Level.INFO, "Opened connection pool for {0}", jdbcUrl);
+        return connectionSource;
+    }
+
+    public static synchronized ConnectionSource getConnectionSource() {
+        if (connectionSource == null)
+            throw new IllegalStateException("The database has not been opened");
+        return connectionSource;
+    }
+
+    /**
+     * Borrow a plain JDBC connection from the pool. Closing it hands it back.
+     * If the calling thread is inside an ORMLite transaction, this is the
+     * connection that transaction is running on.
+     * 
+     * @return A connection, which must be closed
+     * @throws SQLException 
+     */
+    public static Connection getConnection() throws SQLException {
+        final ConnectionSource source = Database.getConnectionSource();
+        final DatabaseConnection borrowed = source.getReadWriteConnection();
+        final Connection connection = ((JdbcDatabaseConnection) borrowed).getInternalConnection();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new InvocationHandler() {
+                    private boolean closed = false;
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) 
+                            throws Throwable 
+                    {
+                        switch (method.getName()) {
+                            case "close":
+                                if (!this.closed) {
+                                    this.closed = true;
+                                    source.releaseConnection(borrowed);
+                                }
+                                return null;
+                            case "isClosed":
+                                return this.closed || connection.isClosed();
+                            default:
+                                if (this.closed)
+                                    throw new SQLException("Connection has been returned to the pool");
+                                try {
+                                    return method.invoke(connection, args);
+                                } catch (InvocationTargetException ex) {
+                                    throw ex.getCause();
+                                }
+                        }
+                    }
+                });
+    }
+
+    public static synchronized void close() throws SQLException {
+        if (connectionSource != null)
+            connectionSource.close();
+        connectionSource = null;
+    }
+
+    // ===================== Private Classes =============================
+
+    /**
+     * A connection pool that configures each SQLite connection it opens.
+     */
+    private static class PooledSqliteConnectionSource extends JdbcPooledConnectionSource {
+
+        PooledSqliteConnectionSource(String jdbcUrl) throws SQLException {
+            super(jdbcUrl);
+        }
+
+        @Override
+        protected DatabaseConnection makeConnection(com.j256.ormlite.logger.Logger ormLogger) 
+                throws SQLException 
+        {
+            DatabaseConnection connection = super.makeConnection(ormLogger);
+            Connection jdbc = ((JdbcDatabaseConnection) connection).getInternalConnection();
+            try (Statement stmt = jdbc.createStatement()) {
+                // WAL mode sticks to the database file, so this only does
+                // anything the first time round. The pragma returns a row,
+                // which must be read and closed or it holds a lock.
+                try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode = WAL")) {
+                    if (rs.next() && !"wal".equalsIgnoreCase(rs.getString(1)))
+                        logger.log(Level.WARNING, "Could not enable WAL journaling");
+                }
+
+                // The SQLite driver applies the query timeout as the
+                // connection's busy timeout; newer drivers also take the pragma.
+                stmt.setQueryTimeout(Math.max(1, defaultBusyTimeout / 1000));
+                stmt.execute("PRAGMA busy_timeout = " + defaultBusyTimeout);
+                stmt.execute("PRAGMA synchronous = " + defaultSynchronous);
+                stmt.execute("PRAGMA cache_size = " + defaultCacheSize);
+            }
+            return connection;
+        }
+    }
+
+}
@@ -10,15 +10,22 @@
  */
 package org.norvelle.addressdiscoverer.model;
 
+import com.j256.ormlite.dao.CloseableIterator;
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.stmt.DeleteBuilder;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.UpdateBuilder;
 import com.j256.ormlite.support.ConnectionSource;
 import com.j256.ormlite.table.DatabaseTable;
 import com.j256.ormlite.table.TableUtils;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.logging.Logger;
 import org.norvelle.utils.Utils;
 
@@ -44,7 +51,16 @@ public class Department implements Comparable {
     private String webAddress;
     
     @DatabaseField
-    private String html;
+    private String pageHash;
+    
+    @DatabaseField
+    private String pageFingerprint;
+    
+    @DatabaseField
+    private String extractorFingerprint;
+    
+    @DatabaseField
+    private Long pageSimhash;
     
     @DatabaseField
     private String director;
@@ -126,12 +142,48 @@ public class Department implements Comparable {
         this.webAddress = webAddress;
     }
 
-    public String getHtml() {
-        return html;
+    /**
+     * @return The hash of the department's latest page in the PageStore, or
+     * null if none has been stored
+     */
+    public String getPageHash() {
+        return pageHash;
+    }
+
+    public void setPageHash(String pageHash) {
+        this.pageHash = pageHash;
     }
 
-    public void setHtml(String html) {
-        this.html = html;
+    /**
+     * @return The digest of the normalized page body the department was last
+     * extracted from, or null if it never has been
+     */
+    public String getPageFingerprint() {
+        return pageFingerprint;
+    }
+
+    /**
+     * @return The fingerprint of the dictionaries and parser the department
+     * was last extracted with, or null if it never has been
+     */
+    public String getExtractorFingerprint() {
+        return extractorFingerprint;
+    }
+
+    /**
+     * @return The simhash of the page the department was last extracted from,
+     * or null if it never has been
+     */
+    public Long getPageSimhash() {
+        return pageSimhash;
+    }
+
+    public void setFingerprints(String pageFingerprint, String extractorFingerprint, 
+            Long pageSimhash) 
+    {
+        this.pageFingerprint = pageFingerprint;
+        this.extractorFingerprint = extractorFingerprint;
+        this.pageSimhash = pageSimhash;
     }
 
     public String getBaseUrl() {
@@ -169,9 +221,68 @@ public class Department implements Comparable {
         Department.dao.update(i);
     }
     
-    public static void delete(Department d) throws SQLException {
-        Individual.deleteIndividualsForDepartment(d);
-        Department.dao.delete(d);
+    /**
+     * Write a department's fingerprints, and nothing else, to its row.
+     * 
+     * @param d The department just extracted
+     * @throws SQLException 
+     */
+    public static void updateFingerprints(Department d) throws SQLException {
+        UpdateBuilder<Department, String> update = Department.dao.updateBuilder();
+        update.updateColumnValue("pageFingerprint", d.pageFingerprint);
+        update.updateColumnValue("extractorFingerprint", d.extractorFingerprint);
+        update.updateColumnValue("pageSimhash", d.pageSimhash);
+        update.where().idEq(Integer.toString(d.getId()));
+        update.update();
+    }
+    
+    /**
+     * Find the departments whose last extracted page is within a few bits
+     * of a simhash, such as mirrors of the same directory.
+     * 
+     * @param d The department whose page is being compared, which is left out
+     * @param simhash The simhash of its page
+     * @param maxDistance The most bits the simhashes may differ by
+     * @return The matching departments, with only their ids and names filled in
+     * @throws SQLException 
+     */
+    public static List<Department> getNearDuplicates(Department d, long simhash, 
+            int maxDistance) throws SQLException 
+    {
+        List<Department> duplicates = new ArrayList<>();
+        QueryBuilder<Department, String> query = Department.dao.queryBuilder();
+        query.selectColumns("id", "name", "pageSimhash").where()
+                .isNotNull("pageSimhash").and().ne("id", d.getId());
+        CloseableIterator<Department> it = query.iterator();
+        try {
+            while (it.hasNext()) {
+                Department other = it.next();
+                if (Long.bitCount(other.pageSimhash ^ simhash) <= maxDistance)
+                    duplicates.add(other);
+            }
+        } finally {
+            it.closeQuietly();
+        }
+        return duplicates;
+    }
+    
+    /**
+     * Delete a department together with its Individuals, in one transaction.
+     * 
+     * @param d The department to delete
+     * @throws SQLException 
+     */
+    public static void delete(final Department d) throws SQLException {
+        TransactionManager.callInTransaction(Department.dao.getConnectionSource(),
+                new Callable<Void>() {
+                    @Override
+                    public Void call() throws SQLException {
+                        Individual.deleteIndividualsForDepartment(d);
+                        PageStore.deleteHistory(d);
+                        Department.dao.delete(d);
+                        return null;
+                    }
+                });
     }
     
     public static HashMap<Integer, Department> getDepartmentsForInstitution(
@@ -187,17 +298,39 @@ public class Department implements Comparable {
         return departments;
     }
 
+    /**
+     * Delete all of an institution's departments and their Individuals with
+     * two set-based statements, in one transaction.
+     * 
+     * @param institution The institution whose departments should go
+     * @throws SQLException 
+     */
     public static void deleteDepartmentsForInstitution(
+            final Institution institution) throws SQLException 
+    {
+        TransactionManager.callInTransaction(Department.dao.getConnectionSource(),
+                new Callable<Void>() {
+                    @Override
+                    public Void call() throws SQLException {
+                        Individual.deleteIndividualsForInstitution(institution);
+                        PageStore.deleteHistoryForInstitution(institution);
+                        DeleteBuilder<Department, String> builder = Department.dao.deleteBuilder();
+                        builder.where().eq("institution_id", institution);
+                        builder.delete();
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * @return A subquery selecting the ids of an institution's departments
+     */
+    static QueryBuilder<Department, String> getIdQueryForInstitution(
             Institution institution) throws SQLException 
     {
-        List<Department> results =
-            Department.dao.queryBuilder().where().
-              eq("institution_id", institution).query();
-        HashMap<Integer, Department> departments = new HashMap();
-        for (Department d : results) {
-            Individual.deleteIndividualsForDepartment(d);
-            Department.delete(d);
-        }
+        QueryBuilder<Department, String> query = Department.dao.queryBuilder();
+        query.selectColumns("id").where().eq("institution_id", institution);
+        return query;
     }
     
     public static long getCount() throws SQLException {
@@ -205,4 +338,8 @@ public class Department implements Comparable {
         return total;
     }
 
+    static Dao<Department, String> getDao() {
+        return Department.dao;
+    }
+
 }
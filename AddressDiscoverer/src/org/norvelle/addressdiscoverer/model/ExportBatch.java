@@ -0,0 +1,198 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.DatabaseTable;
+import com.j256.ormlite.table.TableUtils;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A record of one export run: when it happened, which file it went to and
+ * the range of Individual ids it covered. Running an export through this
+ * class fixes the range of ids to export before the file is written, and
+ * afterwards marks only the rows in that range that it selected, so that rows
+ * added while the file is being written are neither marked nor lost, and a
+ * failed export marks nothing. The file is written outside any transaction;
+ * other writers are only held up while the marks are made.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+@DatabaseTable(tableName = "export_batch")
+public class ExportBatch {
+
+    // A logger instance
+    private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); 
+
+    private static Dao<ExportBatch, String> dao;
+
+    @DatabaseField(generatedId = true)
+    private int id;
+
+    @DatabaseField
+    private Date created;
+
+    @DatabaseField
+    private String fileName;
+
+    @DatabaseField
+    private int firstId;
+
+    @DatabaseField
+    private int lastId;
+
+    @DatabaseField
+    private int rowCount;
+
+    /**
+     * ORMLite needs a no-arg constructor
+     */
+    public ExportBatch() {
+    }
+
+    public ExportBatch(String fileName) {
+        this.fileName = fileName;
+        this.created = new Date();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @return The lowest Individual id in the batch, or 0 if it was empty
+     */
+    public int getFirstId() {
+        return firstId;
+    }
+
+    /**
+     * @return The high-water mark: no Individual above this id was exported
+     */
+    public int getLastId() {
+        return lastId;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Export batch %d to %s: %d individuals, ids %d to %d",
+                this.id, this.fileName, this.rowCount, this.firstId, this.lastId);
+    }
+
+    /**
+     * Writes the Individuals of a batch out, typically to a file.
+     */
+    public interface IExportBatchWriter {
+        int write(Iterable<Individual> individuals) throws IOException, SQLException;
+    }
+
+    // ===================== Static Data Manipulation Methods =============================
+
+    public static void initialize(ConnectionSource connectionSource) throws SQLException {
+        ExportBatch.dao = 
+            DaoManager.createDao(connectionSource, ExportBatch.class);
+        TableUtils.createTableIfNotExists(connectionSource, ExportBatch.class);
+    }
+
+    /**
+     * Export a batch of Individuals and mark them as exported. The id range
+     * is read first; new Individuals always get higher ids, so the rows the
+     * writer is handed and the rows marked afterwards are the same ones,
+     * barring rows changed by hand in the meantime. The batch record and the
+     * marks are written together in one short transaction.
+     * 
+     * @param fileName Where the batch is being written, for the record
+     * @param onlyNotExported Only export Individuals not yet exported
+     * @param department Only export this department's Individuals, if not null
+     * @param writer Writes the selected Individuals out
+     * @return The batch, with its id range and row count filled in
+     * @throws SQLException
+     * @throws IOException If the writer fails; nothing is marked
+     */
+    public static ExportBatch export(final String fileName, final boolean onlyNotExported,
+            final Department department, final IExportBatchWriter writer) 
+            throws SQLException, IOException
+    {
+        final ExportBatch batch = new ExportBatch(fileName);
+
+        // The id range of the selection is our high-water mark
+        final List<String> conditions = new ArrayList<>();
+        if (onlyNotExported)
+            conditions.add("exported = 0");
+        if (department != null)
+            conditions.add("department_id = " + department.getId());
+        String where = conditions.isEmpty() ? "" : " WHERE " + StringUtils.join(conditions, " AND ");
+        String[] range = Individual.getDao().queryRaw(
+                "SELECT MIN(id), MAX(id) FROM individual" + where).getFirstResult();
+        if (range[0] != null) {
+            batch.firstId = Integer.parseInt(range[0]);
+            batch.lastId = Integer.parseInt(range[1]);
+        }
+        conditions.add("id BETWEEN " + batch.firstId + " AND " + batch.lastId);
+
+        List<String> aliased = new ArrayList<>();
+        for (String condition : conditions)
+            aliased.add("i." + condition);
+        try (IndividualCursor cursor = new IndividualCursor(Individual.getDao().queryRaw(
+                IndividualCursor.getQuery(StringUtils.join(aliased, " AND ")),
+                new IndividualCursor.JoinedRowMapper())))
+        {
+            batch.rowCount = writer.write(cursor);
+        }
+
+        // Only rows not already marked need touching, and only those the
+        // cursor's joins let through were written
+        if (!onlyNotExported)
+            conditions.add(0, "exported = 0");
+        conditions.add(IndividualCursor.getJoinCondition("individual"));
+        TransactionManager.callInTransaction(ExportBatch.dao.getConnectionSource(),
+                new Callable<Void>() {
+                    @Override
+                    public Void call() throws SQLException {
+                        ExportBatch.dao.create(batch);
+                        Individual.getDao().updateRaw("UPDATE individual SET exported = 1 WHERE " 
+                                + StringUtils.join(conditions, " AND "));
+                        return null;
+                    }
+                });
+        logger.log(Level.INFO, batch.toString());
+        return batch;
+    }
+
+    static Dao<ExportBatch, String> getDao() {
+        return ExportBatch.dao;
+    }
+
+}
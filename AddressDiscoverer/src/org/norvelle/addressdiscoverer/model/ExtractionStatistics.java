@@ -0,0 +1,213 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.norvelle.utils.Utils;
+
+/**
+ * The running totals of a single extraction run: the pages fetched from each
+ * host, the linked pages scanned for emails and the rows stored. Each run
+ * keeps its own, handed down to whatever does the counting, so that runs
+ * going on at the same time neither reset nor mix each other's totals.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class ExtractionStatistics {
+
+    // Fetching
+    private final ConcurrentHashMap<String, HostStatistics> hosts = new ConcurrentHashMap<>();
+    private final AtomicLong bytesTransferred = new AtomicLong();
+    private final AtomicLong bytesDecoded = new AtomicLong();
+
+    // Scanning linked pages
+    private final AtomicLong pagesScanned = new AtomicLong();
+    private final AtomicLong earlyExits = new AtomicLong();
+    private final AtomicLong bytesScanned = new AtomicLong();
+    private final AtomicLong bytesSkipped = new AtomicLong();
+
+    // Storing
+    private final AtomicLong rowsStored = new AtomicLong();
+    private final AtomicLong storeNanos = new AtomicLong();
+    private final AtomicLong rowsUpdated = new AtomicLong();
+    private final AtomicLong rowsDeleted = new AtomicLong();
+    private final AtomicLong rowsUnchanged = new AtomicLong();
+
+    // ===================== Recording =============================
+
+    /**
+     * @param host The host a request went to
+     * @param latencyNanos How long it took to answer
+     * @param error Whether it answered with an error, or not at all
+     */
+    public void recordRequest(String host, long latencyNanos, boolean error) {
+        this.getHost(host).record(latencyNanos, error);
+    }
+
+    /**
+     * @param host A host whose name could not be resolved, so that no
+     * request was ever made to it
+     */
+    public void recordUnknownHost(String host) {
+        this.getHost(host).markUnknown();
+    }
+
+    /**
+     * @param transferred The bytes of a page that came over the wire
+     * @param decoded The bytes they decompressed to
+     */
+    public void recordTransfer(long transferred, long decoded) {
+        this.bytesTransferred.addAndGet(transferred);
+        this.bytesDecoded.addAndGet(decoded);
+    }
+
+    /**
+     * @param bytesRead The bytes of a linked page that were scanned
+     * @param contentLength The page's length, or -1 if it is not known
+     * @param earlyExit Whether scanning stopped at a mailto: link
+     */
+    public void recordScan(long bytesRead, long contentLength, boolean earlyExit) {
+        this.pagesScanned.incrementAndGet();
+        this.bytesScanned.addAndGet(bytesRead);
+        if (contentLength > bytesRead)
+            this.bytesSkipped.addAndGet(contentLength - bytesRead);
+        if (earlyExit)
+            this.earlyExits.incrementAndGet();
+    }
+
+    public void recordStore(long rows, long nanos) {
+        this.rowsStored.addAndGet(rows);
+        this.storeNanos.addAndGet(nanos);
+    }
+
+    public void recordMerge(long updated, long deleted, long unchanged) {
+        this.rowsUpdated.addAndGet(updated);
+        this.rowsDeleted.addAndGet(deleted);
+        this.rowsUnchanged.addAndGet(unchanged);
+    }
+
+    // ===================== Reporting =============================
+
+    public long getBytesScanned() {
+        return bytesScanned.get();
+    }
+
+    public long getBytesSkipped() {
+        return bytesSkipped.get();
+    }
+
+    public long getRowsStored() {
+        return rowsStored.get();
+    }
+
+    /**
+     * @return One line per host with request counts, errors and latencies
+     */
+    public List<String> getHostSummaries() {
+        List<String> summaries = new ArrayList<>();
+        for (HostStatistics host : this.hosts.values())
+            summaries.add(host.toString());
+        return summaries;
+    }
+
+    public String getFetchSummary() {
+        List<String> lines = this.getHostSummaries();
+        lines.add(String.format("Transferred %d bytes for %d bytes of page content",
+                this.bytesTransferred.get(), this.bytesDecoded.get()));
+        return Utils.join(lines, "\n");
+    }
+
+    public String getScanSummary() {
+        return String.format(
+                "Scanned %d linked pages (%d stopped early): %d bytes read, %d bytes skipped",
+                this.pagesScanned.get(), this.earlyExits.get(), this.bytesScanned.get(), 
+                this.bytesSkipped.get());
+    }
+
+    public String getStoreSummary() {
+        long rows = this.rowsStored.get();
+        long nanos = this.storeNanos.get();
+        return String.format("Stored %d individuals in %d ms (%d rows/sec); "
+                + "%d updated, %d deleted, %d unchanged",
+                rows, nanos / 1000000, rowsPerSecond(rows, nanos),
+                this.rowsUpdated.get(), this.rowsDeleted.get(), this.rowsUnchanged.get());
+    }
+
+    /**
+     * @return Every summary, one after another
+     */
+    public String getSummary() {
+        return Utils.join(Arrays.asList(this.getScanSummary(), this.getStoreSummary(), 
+                this.getFetchSummary()), "\n");
+    }
+
+    // ===================== Private Methods =============================
+
+    private HostStatistics getHost(String host) {
+        HostStatistics statistics = this.hosts.get(host);
+        if (statistics == null) {
+            HostStatistics newStatistics = new HostStatistics(host);
+            statistics = this.hosts.putIfAbsent(host, newStatistics);
+            if (statistics == null)
+                statistics = newStatistics;
+        }
+        return statistics;
+    }
+
+    private static long rowsPerSecond(long rows, long nanos) {
+        return nanos == 0 ? 0 : (long) (rows * 1e9 / nanos);
+    }
+
+    // ===================== Private Classes =============================
+
+    /**
+     * Request counts and latencies for a single host.
+     */
+    private static class HostStatistics {
+
+        private final String name;
+        private long requests = 0;
+        private long errors = 0;
+        private long totalLatency = 0;
+        private long maxLatency = 0;
+        private boolean unknown = false;
+
+        HostStatistics(String name) {
+            this.name = name;
+        }
+
+        synchronized void record(long latencyNanos, boolean error) {
+            long millis = latencyNanos / 1000000;
+            this.requests ++;
+            if (error)
+                this.errors ++;
+            this.totalLatency += millis;
+            this.maxLatency = Math.max(this.maxLatency, millis);
+        }
+
+        synchronized void markUnknown() {
+            this.unknown = true;
+        }
+
+        @Override
+        public synchronized String toString() {
+            long average = this.requests == 0 ? 0 : this.totalLatency / this.requests;
+            return String.format("%s: %d requests, %d errors, avg %d ms, max %d ms%s",
+                    this.name, this.requests, this.errors, average, this.maxLatency,
+                    this.unknown ? " (unknown host)" : "");
+        }
+    }
+
+}
@@ -34,6 +34,10 @@ public class GenderDeterminer {
     
     // The file where we store our last firstNames
     private static File firstNamesFile;
+
+    // A hash of the entries, worked out when first asked for and forgotten
+    // whenever they change
+    private static String fingerprint;
         
     public enum Gender {
         MALE, FEMALE, UNKNOWN
@@ -53,6 +57,7 @@ public class GenderDeterminer {
                 else
                     girls.put(pair[0], 1);
             }
+        forgetFingerprint();
     }
     
     /**
@@ -94,4 +99,18 @@ public class GenderDeterminer {
         else return Gender.UNKNOWN;
     }
 
+    /**
+     * @return A hash of the entries loaded, which changes whenever they do
+     */
+    public static synchronized String getFingerprint() {
+        if (fingerprint == null)
+            fingerprint = PageStore.hashEntries(boys.entrySet()) 
+                    + PageStore.hashEntries(girls.entrySet());
+        return fingerprint;
+    }
+
+    private static synchronized void forgetFingerprint() {
+        fingerprint = null;
+    }
+
 }
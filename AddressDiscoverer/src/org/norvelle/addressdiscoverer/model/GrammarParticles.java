@@ -33,6 +33,10 @@ public class GrammarParticles {
     
     // The file where we store our last grammarParticles
     private static File grammarParticlesFile;
+
+    // A hash of the entries, worked out when first asked for and forgotten
+    // whenever they change
+    private static String fingerprint;
         
     // ===================== Static Data Manipulation Methods =============================
     
@@ -43,6 +47,7 @@ public class GrammarParticles {
         String[] grammarParticlesArray = StringUtils.split(particleStr, "\n");
         for (String particle : grammarParticlesArray) 
             grammarParticles.add(particle.trim());
+        forgetFingerprint();
     }
     
     public static void store() throws IOException {
@@ -70,4 +75,17 @@ public class GrammarParticles {
         //grammarParticles.put(abbreviation, 1);
     }
 
+    /**
+     * @return A hash of the entries loaded, which changes whenever they do
+     */
+    public static synchronized String getFingerprint() {
+        if (fingerprint == null)
+            fingerprint = PageStore.hashEntries(grammarParticles);
+        return fingerprint;
+    }
+
+    private static synchronized void forgetFingerprint() {
+        fingerprint = null;
+    }
+
 }
@@ -13,12 +13,25 @@ package org.norvelle.addressdiscoverer.model;
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.stmt.DeleteBuilder;
 import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
 import com.j256.ormlite.table.TableUtils;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.lang3.StringUtils;
 import org.norvelle.addressdiscoverer.exceptions.CannotStoreNullIndividualException;
@@ -36,7 +49,7 @@ public class Individual implements Comparable {
     private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); 
 
     private static Dao<Individual, String> dao;
-    
+
     @DatabaseField
     private String firstName;
     
@@ -73,6 +86,27 @@ public class Individual implements Comparable {
     @DatabaseField
     private boolean exported;    
 
+    // Folded copies of the fields in IndividualIndex, which its triggers
+    // index, and of those IndividualQuery sorts on. They are filled in
+    // whenever the Individual is written.
+    @DatabaseField
+    private String foldedFirstName;
+
+    @DatabaseField
+    private String foldedLastName;
+
+    @DatabaseField
+    private String foldedEmail;
+
+    @DatabaseField
+    private String foldedTitle;
+
+    @DatabaseField
+    private String foldedUnprocessed;
+
+    @DatabaseField
+    private String foldedRole;
+
     @DatabaseField(generatedId = true)
     private int id;
     
@@ -281,10 +315,81 @@ public class Individual implements Comparable {
             throw new CannotStoreNullIndividualException(i);
         if (i.getDepartment() == null) 
             throw new IndividualHasNoDepartmentException();
+        i.foldIndexedFields();
         Individual.dao.create(i);
     }
     
+    /**
+     * Store a whole list of Individuals in a single transaction. SQLite syncs
+     * to disk on every commit, so storing rows one by one in autocommit mode
+     * is dominated by the syncs; here there is just one. ORMLite would also
+     * compile its insert statement again for every row, so the rows go
+     * through a single JDBC batch instead. Nothing is written unless every
+     * Individual can be stored. If a transaction is already open the rows
+     * become part of it.
+     *
+     * @param individuals The Individuals to store
+     * @return The number of rows stored
+     * @throws SQLException
+     * @throws IndividualHasNoDepartmentException
+     * @throws CannotStoreNullIndividualException
+     */
+    public static int storeAll(final List<Individual> individuals) throws SQLException,
+            IndividualHasNoDepartmentException,
+            CannotStoreNullIndividualException
+    {
+        return Individual.storeAll(individuals, new ExtractionStatistics());
+    }
+
+    /**
+     * Store a list of Individuals, as above, counting the rows stored.
+     *
+     * @param individuals The Individuals to store
+     * @param statistics The extraction run's totals
+     * @return The number of rows stored
+     * @throws SQLException
+     * @throws IndividualHasNoDepartmentException
+     * @throws CannotStoreNullIndividualException
+     */
+    public static int storeAll(final List<Individual> individuals, 
+            ExtractionStatistics statistics) throws SQLException,
+            IndividualHasNoDepartmentException,
+            CannotStoreNullIndividualException
+    {
+        for (Individual i : individuals) {
+            if (i.getClass().equals(UnparsableIndividual.class))
+                throw new CannotStoreNullIndividualException(i);
+            if (i.getDepartment() == null)
+                throw new IndividualHasNoDepartmentException();
+        }
+        if (individuals.isEmpty())
+            return 0;
+
+        long start = System.nanoTime();
+        final ConnectionSource source = Individual.dao.getConnectionSource();
+        TransactionManager.callInTransaction(source, new Callable<Void>() {
+                    @Override
+                    public Void call() throws SQLException {
+                        // Inside the transaction this is the connection it runs on
+                        DatabaseConnection connection = source.getReadWriteConnection();
+                        try {
+                            Individual.insertAll(((JdbcDatabaseConnection) connection)
+                                    .getInternalConnection(), individuals);
+                        } finally {
+                            source.releaseConnection(connection);
+                        }
+                        return null;
+                    }
+                });
+        long elapsed = System.nanoTime() - start;
+        statistics.recordStore(individuals.size(), elapsed);
+        logger.log(Level.FINE, "Stored {0} individuals at {1} rows/sec",
+                new Object[] { individuals.size(), rowsPerSecond(individuals.size(), elapsed) });
+        return individuals.size();
+    }
+
     public static void update(Individual i) throws SQLException {
+        i.foldIndexedFields();
         Individual.dao.update(i);
     }
     
@@ -302,34 +407,205 @@ public class Individual implements Comparable {
         return results;
     }
 
+    /**
+     * Load every Individual into memory. Prefer iterateAll() where the
+     * Individuals can be dealt with one at a time.
+     * 
+     * @return All Individuals, with their departments and institutions
+     * @throws SQLException 
+     */
     public static List<Individual> getAll() 
             throws SQLException 
     {
         List<Individual> results = new ArrayList();
-        List<Institution> institutions = Institution.getAll();
-        for (Institution institution : institutions) {
-            HashMap<Integer, Department> departments = Department.getDepartmentsForInstitution(institution);
-            for (Department department : departments.values()) {
-                department.setInstitution(institution);
-                List<Individual> individuals = Individual.getIndividualsForDepartment(department);
-                for (Individual individual : individuals) {
-                    individual.setDepartment(department);
-                    results.add(individual);
-                }
-            }
+        try (IndividualCursor cursor = Individual.iterateAll()) {
+            for (Individual individual : cursor)
+                results.add(individual);
         }
-        //Individual.dao.queryForAll();
         return results;
     }
 
-    public static void deleteIndividualsForDepartment(Department department) 
+    public static IndividualCursor iterateAll() throws SQLException {
+        return Individual.iterate(false, false);
+    }
+
+    /**
+     * Stream Individuals from a single joined query, with their departments
+     * and institutions attached.
+     * 
+     * @param onlyNotExported Skip Individuals that have already been exported
+     * @param onlyUnknownGender Skip Individuals whose gender is F or M
+     * @return A cursor over the Individuals, which must be closed
+     * @throws SQLException 
+     */
+    public static IndividualCursor iterate(boolean onlyNotExported, boolean onlyUnknownGender) 
             throws SQLException 
     {
-        List<Individual> results =
-            Individual.dao.queryBuilder().where().
-              eq("department_id", department).query();
-        for (Individual i : results) {
-            Individual.delete(i);
+        String sql = IndividualCursor.getQuery(
+                Individual.getWhereClause(onlyNotExported, onlyUnknownGender));
+        return new IndividualCursor(Individual.dao.queryRaw(sql, 
+                new IndividualCursor.JoinedRowMapper()));
+    }
+
+    /**
+     * @return The number of Individuals iterate() will return for the same arguments
+     */
+    public static long getCount(boolean onlyNotExported, boolean onlyUnknownGender) 
+            throws SQLException 
+    {
+        String where = Individual.getWhereClause(onlyNotExported, onlyUnknownGender);
+        return Individual.dao.queryRawValue("SELECT COUNT(*) FROM individual i"
+                + (where == null ? "" : " WHERE " + where));
+    }
+
+    /**
+     * Delete all of a department's Individuals with a single statement.
+     * 
+     * @param department The department whose Individuals should go
+     * @return The number of rows deleted
+     * @throws SQLException 
+     */
+    public static int deleteIndividualsForDepartment(Department department) 
+            throws SQLException 
+    {
+        DeleteBuilder<Individual, String> builder = Individual.dao.deleteBuilder();
+        builder.where().eq("department_id", department);
+        return builder.delete();
+    }
+
+    /**
+     * Delete the Individuals of every department of an institution with a
+     * single statement.
+     * 
+     * @param institution The institution whose Individuals should go
+     * @return The number of rows deleted
+     * @throws SQLException 
+     */
+    public static int deleteIndividualsForInstitution(Institution institution) 
+            throws SQLException 
+    {
+        DeleteBuilder<Individual, String> builder = Individual.dao.deleteBuilder();
+        builder.where().in("department_id", Department.getIdQueryForInstitution(institution));
+        return builder.delete();
+    }
+
+    /**
+     * Replace a department's Individuals with a freshly extracted list, in
+     * one transaction so that a failure part way leaves the old ones in place.
+     * 
+     * @param department The department being re-extracted
+     * @param individuals Its new Individuals
+     * @throws SQLException
+     * @throws IndividualHasNoDepartmentException
+     * @throws CannotStoreNullIndividualException 
+     */
+    public static void replaceIndividualsForDepartment(final Department department,
+            final List<Individual> individuals) throws SQLException,
+            IndividualHasNoDepartmentException,
+            CannotStoreNullIndividualException
+    {
+        Individual.replaceIndividualsForDepartment(department, individuals, 
+                new ExtractionStatistics());
+    }
+
+    /**
+     * Replace a department's Individuals, as above, counting the rows stored.
+     * 
+     * @param department The department being re-extracted
+     * @param individuals Its new Individuals
+     * @param statistics The extraction run's totals
+     * @throws SQLException
+     * @throws IndividualHasNoDepartmentException
+     * @throws CannotStoreNullIndividualException 
+     */
+    public static void replaceIndividualsForDepartment(final Department department,
+            final List<Individual> individuals, final ExtractionStatistics statistics) 
+            throws SQLException, IndividualHasNoDepartmentException,
+            CannotStoreNullIndividualException
+    {
+        try {
+            TransactionManager.callInTransaction(Individual.dao.getConnectionSource(),
+                    new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            Individual.deleteIndividualsForDepartment(department);
+                            Individual.storeAll(individuals, statistics);
+                            return null;
+                        }
+                    });
+        } catch (SQLException ex) {
+            // The transaction manager wraps whatever was thrown inside it
+            if (ex.getCause() instanceof IndividualHasNoDepartmentException)
+                throw (IndividualHasNoDepartmentException) ex.getCause();
+            if (ex.getCause() instanceof CannotStoreNullIndividualException)
+                throw (CannotStoreNullIndividualException) ex.getCause();
+            throw ex;
+        }
+    }
+    
+    /**
+     * Bring a department's stored Individuals into line with a freshly
+     * extracted list, touching only the rows that differ. Old and new are
+     * matched on their email and normalized name: matches whose extracted
+     * fields changed are updated in place, keeping their id, exported flag,
+     * gender, and any affiliation or role the new ones lack; new Individuals
+     * are inserted and those no longer found are
+     * deleted, all in one transaction. Re-extracting a page that hasn't
+     * changed writes nothing.
+     * 
+     * @param department The department being re-extracted
+     * @param individuals Its new Individuals
+     * @return The number of rows inserted, updated or deleted
+     * @throws SQLException
+     * @throws IndividualHasNoDepartmentException
+     * @throws CannotStoreNullIndividualException 
+     */
+    public static int mergeIndividualsForDepartment(final Department department,
+            final List<Individual> individuals) throws SQLException,
+            IndividualHasNoDepartmentException,
+            CannotStoreNullIndividualException
+    {
+        return Individual.mergeIndividualsForDepartment(department, individuals, 
+                new ExtractionStatistics());
+    }
+
+    /**
+     * Merge a department's Individuals, as above, counting the rows written.
+     * 
+     * @param department The department being re-extracted
+     * @param individuals Its new Individuals
+     * @param statistics The extraction run's totals
+     * @return The number of rows inserted, updated or deleted
+     * @throws SQLException
+     * @throws IndividualHasNoDepartmentException
+     * @throws CannotStoreNullIndividualException 
+     */
+    public static int mergeIndividualsForDepartment(final Department department,
+            final List<Individual> individuals, final ExtractionStatistics statistics) 
+            throws SQLException, IndividualHasNoDepartmentException,
+            CannotStoreNullIndividualException
+    {
+        for (Individual i : individuals) {
+            if (i.getClass().equals(UnparsableIndividual.class))
+                throw new CannotStoreNullIndividualException(i);
+            if (i.getDepartment() == null)
+                throw new IndividualHasNoDepartmentException();
+        }
+        try {
+            return TransactionManager.callInTransaction(Individual.dao.getConnectionSource(),
+                    new Callable<Integer>() {
+                        @Override
+                        public Integer call() throws Exception {
+                            return Individual.merge(department, individuals, statistics);
+                        }
+                    });
+        } catch (SQLException ex) {
+            // The transaction manager wraps whatever was thrown inside it
+            if (ex.getCause() instanceof IndividualHasNoDepartmentException)
+                throw (IndividualHasNoDepartmentException) ex.getCause();
+            if (ex.getCause() instanceof CannotStoreNullIndividualException)
+                throw (CannotStoreNullIndividualException) ex.getCause();
+            throw ex;
         }
     }
     
@@ -338,5 +614,186 @@ public class Individual implements Comparable {
         return total;
     }
 
+    static Dao<Individual, String> getDao() {
+        return Individual.dao;
+    }
+
+    private static int merge(Department department, List<Individual> individuals,
+            ExtractionStatistics statistics) throws SQLException, IndividualHasNoDepartmentException,
+            CannotStoreNullIndividualException
+    {
+        // Several rows may share a key, e.g. two people listed without an
+        // email; they are paired off in the order they were stored.
+        Map<String, LinkedList<Individual>> existing = new HashMap<>();
+        for (Individual old : Individual.dao.queryBuilder().orderBy("id", true)
+                .where().eq("department_id", department).query()) 
+        {
+            String key = old.getMergeKey();
+            LinkedList<Individual> matches = existing.get(key);
+            if (matches == null) {
+                matches = new LinkedList<>();
+                existing.put(key, matches);
+            }
+            matches.add(old);
+        }
+
+        List<Individual> added = new ArrayList<>();
+        int updated = 0, unchanged = 0;
+        for (Individual i : individuals) {
+            LinkedList<Individual> matches = existing.get(i.getMergeKey());
+            Individual old = matches == null ? null : matches.poll();
+            if (old == null)
+                added.add(i);
+            else if (old.copyExtractedFields(i)) {
+                old.foldIndexedFields();
+                Individual.dao.update(old);
+                updated ++;
+            }
+            else 
+                unchanged ++;
+        }
+
+        List<String> vanished = new ArrayList<>();
+        for (LinkedList<Individual> matches : existing.values())
+            for (Individual old : matches)
+                vanished.add(Integer.toString(old.getId()));
+        // Keep well inside SQLite's limit on bound parameters
+        for (int start = 0; start < vanished.size(); start += 500)
+            Individual.dao.deleteIds(
+                    vanished.subList(start, Math.min(start + 500, vanished.size())));
+
+        Individual.storeAll(added, statistics);
+        statistics.recordMerge(updated, vanished.size(), unchanged);
+        logger.log(Level.FINE, "Merged {0}: {1} added, {2} updated, {3} deleted, {4} unchanged",
+                new Object[] { department.getName(), added.size(), updated, vanished.size(), unchanged });
+        return added.size() + updated + vanished.size();
+    }
+
+    /**
+     * Insert the Individuals with one prepared statement, and give each the
+     * id it was stored under. Must be called inside a transaction: nobody
+     * else can insert meanwhile, so the rows get consecutive ids.
+     */
+    private static void insertAll(Connection connection, List<Individual> individuals) 
+            throws SQLException 
+    {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO individual (firstName, lastName, fullName, email, title, "
+                + "affiliation, role, gender, unprocessed, parserName, originalText, "
+                + "exported, department_id, foldedFirstName, foldedLastName, foldedEmail, "
+                + "foldedTitle, foldedUnprocessed, foldedRole) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) 
+        {
+            for (Individual i : individuals) {
+                i.foldIndexedFields();
+                insert.setString(1, i.firstName);
+                insert.setString(2, i.lastName);
+                insert.setString(3, i.fullName);
+                insert.setString(4, i.email);
+                insert.setString(5, i.title);
+                insert.setString(6, i.affiliation);
+                insert.setString(7, i.role);
+                insert.setString(8, i.gender);
+                insert.setString(9, i.unprocessed);
+                insert.setString(10, i.parserName);
+                insert.setString(11, i.originalText);
+                insert.setBoolean(12, i.exported);
+                insert.setInt(13, i.department.getId());
+                insert.setString(14, i.foldedFirstName);
+                insert.setString(15, i.foldedLastName);
+                insert.setString(16, i.foldedEmail);
+                insert.setString(17, i.foldedTitle);
+                insert.setString(18, i.foldedUnprocessed);
+                insert.setString(19, i.foldedRole);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        long lastId;
+        try (Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) 
+        {
+            rs.next();
+            lastId = rs.getLong(1);
+        }
+        int firstId = (int) lastId - individuals.size() + 1;
+        for (int i = 0; i < individuals.size(); i ++)
+            individuals.get(i).id = firstId + i;
+    }
+
+    /**
+     * Bring the folded copies of the indexed and sorted fields up to date.
+     */
+    private void foldIndexedFields() {
+        this.foldedFirstName = IndividualIndex.fold(this.firstName);
+        this.foldedLastName = IndividualIndex.fold(this.lastName);
+        this.foldedEmail = IndividualIndex.fold(this.email);
+        this.foldedTitle = IndividualIndex.fold(this.title);
+        this.foldedUnprocessed = IndividualIndex.fold(this.unprocessed);
+        this.foldedRole = IndividualIndex.fold(this.role);
+    }
+
+    /**
+     * @return What identifies this Individual across extractions of a page
+     */
+    private String getMergeKey() {
+        String name = StringUtils.stripAccents(
+                StringUtils.defaultString(this.firstName) + " " 
+                + StringUtils.defaultString(this.lastName));
+        return StringUtils.normalizeSpace(name).toLowerCase() + "|" 
+                + StringUtils.trimToEmpty(this.email).toLowerCase();
+    }
+
+    /**
+     * Take on the fields an extraction produces, leaving the exported flag
+     * and gender alone. Extraction leaves the affiliation and role empty, so
+     * those are only taken on when the new ones aren't, and otherwise the
+     * values entered by hand are kept.
+     * 
+     * @param other The freshly extracted Individual
+     * @return Whether anything changed
+     */
+    private boolean copyExtractedFields(Individual other) {
+        String newAffiliation = StringUtils.isEmpty(other.affiliation) 
+                ? this.affiliation : other.affiliation;
+        String newRole = StringUtils.isEmpty(other.role) ? this.role : other.role;
+        boolean changed = !(Objects.equals(this.firstName, other.firstName)
+                && Objects.equals(this.lastName, other.lastName)
+                && Objects.equals(this.fullName, other.fullName)
+                && Objects.equals(this.email, other.email)
+                && Objects.equals(this.title, other.title)
+                && Objects.equals(this.affiliation, newAffiliation)
+                && Objects.equals(this.role, newRole)
+                && Objects.equals(this.unprocessed, other.unprocessed)
+                && Objects.equals(this.parserName, other.parserName)
+                && Objects.equals(this.originalText, other.originalText));
+        if (changed) {
+            this.firstName = other.firstName;
+            this.lastName = other.lastName;
+            this.fullName = other.fullName;
+            this.email = other.email;
+            this.title = other.title;
+            this.affiliation = newAffiliation;
+            this.role = newRole;
+            this.unprocessed = other.unprocessed;
+            this.parserName = other.parserName;
+            this.originalText = other.originalText;
+        }
+        return changed;
+    }
+
+    private static String getWhereClause(boolean onlyNotExported, boolean onlyUnknownGender) {
+        List<String> conditions = new ArrayList<>();
+        if (onlyNotExported)
+            conditions.add("i.exported = 0");
+        if (onlyUnknownGender)
+            conditions.add("(i.gender IS NULL OR i.gender NOT IN ('F', 'M'))");
+        return conditions.isEmpty() ? null : StringUtils.join(conditions, " AND ");
+    }
+
+    private static long rowsPerSecond(long rows, long nanos) {
+        return nanos == 0 ? 0 : (long) (rows * 1e9 / nanos);
+    }
+
 
 }
@@ -0,0 +1,139 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.dao.CloseableIterator;
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.dao.RawRowMapper;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * Streams Individuals out of the database one row at a time, each with its
+ * Department and Institution already attached, using a single joined query.
+ * Only the row being looked at and the departments seen so far are held in
+ * memory. Departments are loaded with every column, so they may be written
+ * back with Department.update. The cursor must be closed, which
+ * try-with-resources will take care of.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class IndividualCursor implements Iterable<Individual>, AutoCloseable {
+
+    static final String[] individualColumns = { "id", "firstName", "lastName", "fullName", 
+        "email", "title", "affiliation", "role", "gender", "unprocessed", "parserName", 
+        "originalText", "exported", "department_id" };
+    static final String[] departmentColumns = { "id", "name", "webAddress", "pageHash",
+        "pageFingerprint", "extractorFingerprint", "pageSimhash", "director", 
+        "directorEmail", "baseUrl", "institution_id" };
+    static final String[] institutionColumns = { "id", "name", "country", "city", "affiliation" };
+
+    private final GenericRawResults<Individual> results;
+
+    IndividualCursor(GenericRawResults<Individual> results) {
+        this.results = results;
+    }
+
+    /**
+     * Build the joined query, restricted by the given WHERE clause, whose
+     * columns may refer to the individual table as i.
+     * 
+     * @param where The condition, or null for all Individuals
+     * @return The SQL to run
+     */
+    static String getQuery(String where) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        appendColumns(sql, "i", individualColumns);
+        sql.append(", ");
+        appendColumns(sql, "d", departmentColumns);
+        sql.append(", ");
+        appendColumns(sql, "n", institutionColumns);
+        sql.append(" FROM individual i JOIN department d ON i.department_id = d.id")
+                .append(" JOIN institution n ON d.institution_id = n.id");
+        if (where != null)
+            sql.append(" WHERE ").append(where);
+        return sql.toString();
+    }
+
+    /**
+     * @param individual The name or alias of the individual table in a query
+     * @return A condition holding for exactly the rows getQuery()'s joins let
+     * through: those whose department and institution exist
+     */
+    static String getJoinCondition(String individual) {
+        return String.format("EXISTS (SELECT 1 FROM department d JOIN institution n "
+                + "ON d.institution_id = n.id WHERE d.id = %s.department_id)", individual);
+    }
+
+    @Override
+    public Iterator<Individual> iterator() {
+        return this.results.iterator();
+    }
+
+    public CloseableIterator<Individual> closeableIterator() {
+        return this.results.closeableIterator();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        this.results.close();
+    }
+
+    // ===================== Private Methods =============================
+
+    private static void appendColumns(StringBuilder sql, String table, String[] columns) {
+        for (int c = 0; c < columns.length; c ++) {
+            if (c > 0)
+                sql.append(", ");
+            sql.append(table).append('.').append(columns[c]);
+        }
+    }
+
+    /**
+     * Maps a row of the joined query by splitting it into its three parts and
+     * letting each DAO map its own, reusing departments and institutions
+     * already seen.
+     */
+    static class JoinedRowMapper implements RawRowMapper<Individual> {
+
+        private final HashMap<String, Department> departments = new HashMap<>();
+        private final HashMap<String, Institution> institutions = new HashMap<>();
+
+        @Override
+        public Individual mapRow(String[] columnNames, String[] values) throws SQLException {
+            int numIndividual = individualColumns.length;
+            int numDepartment = departmentColumns.length;
+            Individual individual = Individual.getDao().getRawRowMapper().mapRow(
+                    individualColumns, Arrays.copyOfRange(values, 0, numIndividual));
+
+            String departmentId = values[numIndividual];
+            Department department = this.departments.get(departmentId);
+            if (department == null) {
+                department = Department.getDao().getRawRowMapper().mapRow(departmentColumns,
+                        Arrays.copyOfRange(values, numIndividual, numIndividual + numDepartment));
+                String institutionId = values[numIndividual + numDepartment];
+                Institution institution = this.institutions.get(institutionId);
+                if (institution == null) {
+                    institution = Institution.getDao().getRawRowMapper().mapRow(institutionColumns,
+                            Arrays.copyOfRange(values, numIndividual + numDepartment, values.length));
+                    this.institutions.put(institutionId, institution);
+                }
+                department.setInstitution(institution);
+                this.departments.put(departmentId, department);
+            }
+            individual.setDepartment(department);
+            return individual;
+        }
+    }
+
+}
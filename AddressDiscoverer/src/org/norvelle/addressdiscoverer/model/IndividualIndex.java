@@ -0,0 +1,212 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.support.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The full-text index over each Individual's names, email, title and
+ * unprocessed text. It lives in the individual_fts table, keyed by the
+ * Individual's id. Each Individual is stored with a folded copy of those
+ * fields, and triggers on the individual table copy them into the index.
+ * 
+ * The FTS3 tokenizer built into our SQLite only folds the case of ASCII
+ * letters, and SQLite's own lower() is no better, so text is folded in Java
+ * before it is stored: lower-cased, with all accents removed. Queries are
+ * folded the same way, so that "jose" finds "JOSÉ" and "lluisa" finds
+ * "LLUÏSA". Each word of a query matches any indexed word it is a prefix of,
+ * and all words must match.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class IndividualIndex {
+
+    public static final String TABLE = "individual_fts";
+
+    /**
+     * The Individual fields that are indexed, which are also the index's columns
+     */
+    public static final List<String> FIELDS = Arrays.asList(
+            "firstName", "lastName", "email", "title", "unprocessed");
+
+    // What is left of accented letters once they are decomposed
+    private static final Pattern MARKS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+    /**
+     * @return The statements that create the index from the folded columns,
+     * which must already be filled in, and the triggers that keep it up to date
+     */
+    static String[] getCreateStatements() {
+        List<String> folded = new ArrayList<>();
+        for (String field : FIELDS)
+            folded.add(IndividualIndex.getFoldedColumn(field));
+        String columns = StringUtils.join(FIELDS, ", ");
+        String insertNew = String.format("INSERT INTO %s (docid, %s) VALUES (new.id, new.%s);",
+                TABLE, columns, StringUtils.join(folded, ", new."));
+        String deleteOld = String.format("DELETE FROM %s WHERE docid = old.id;", TABLE);
+        return new String[] {
+            String.format("CREATE VIRTUAL TABLE %s USING fts3(%s)", TABLE, columns),
+            String.format("INSERT INTO %s (docid, %s) SELECT id, %s FROM individual", 
+                    TABLE, columns, StringUtils.join(folded, ", ")),
+            "CREATE TRIGGER individual_fts_insert AFTER INSERT ON individual BEGIN " 
+                    + insertNew + " END",
+            "CREATE TRIGGER individual_fts_update AFTER UPDATE OF id, " 
+                    + StringUtils.join(folded, ", ") + " ON individual BEGIN " 
+                    + deleteOld + " " + insertNew + " END",
+            "CREATE TRIGGER individual_fts_delete AFTER DELETE ON individual BEGIN " 
+                    + deleteOld + " END"
+        };
+    }
+
+    /**
+     * @return The fields Individuals keep folded copies of: those indexed
+     * here and those IndividualQuery sorts on
+     */
+    static List<String> getFoldedFields() {
+        List<String> fields = new ArrayList<>(FIELDS);
+        for (String field : IndividualQuery.SORT_FIELDS)
+            if (!fields.contains(field))
+                fields.add(field);
+        return fields;
+    }
+
+    /**
+     * @param field One of FIELDS or IndividualQuery.SORT_FIELDS
+     * @return The individual column holding the field's folded copy
+     */
+    static String getFoldedColumn(String field) {
+        return "folded" + StringUtils.capitalize(field);
+    }
+
+    /**
+     * Fill in the folded copies of some fields for every Individual. Called
+     * from schema migrations, inside their transaction.
+     * 
+     * @param connection The connection the migration is running on
+     * @param fields The fields whose folded copies are wanted
+     * @throws SQLException 
+     */
+    static void fillFoldedColumns(DatabaseConnection connection, List<String> fields) 
+            throws SQLException 
+    {
+        Connection conn = ((JdbcDatabaseConnection) connection).getInternalConnection();
+        List<String> assignments = new ArrayList<>();
+        for (String field : fields)
+            assignments.add(IndividualIndex.getFoldedColumn(field) + " = ?");
+        try (Statement query = conn.createStatement();
+                ResultSet rs = query.executeQuery(String.format("SELECT id, %s FROM individual",
+                        StringUtils.join(fields, ", ")));
+                PreparedStatement update = conn.prepareStatement(String.format(
+                        "UPDATE individual SET %s WHERE id = ?", 
+                        StringUtils.join(assignments, ", "))))
+        {
+            int pending = 0;
+            while (rs.next()) {
+                for (int f = 0; f < fields.size(); f ++)
+                    update.setString(f + 1, IndividualIndex.fold(rs.getString(f + 2)));
+                update.setInt(fields.size() + 1, rs.getInt(1));
+                update.addBatch();
+                if (++ pending % 1000 == 0)
+                    update.executeBatch();
+            }
+            update.executeBatch();
+        }
+    }
+
+    /**
+     * Fold text the way it is folded for the index.
+     * 
+     * @param text The text to fold, or null
+     * @return The text in lower case and without accents
+     */
+    public static String fold(String text) {
+        if (text == null)
+            return null;
+        for (int i = 0; i < text.length(); i ++) {
+            if (text.charAt(i) > 0x7f) {
+                text = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+                break;
+            }
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Turn what the user typed into an FTS query: every word, folded, must
+     * begin some indexed word. Anything but letters and digits separates
+     * words, as it does for the tokenizer, so "unav.es" is searched for as
+     * the phrase "unav es".
+     * 
+     * @param text What the user typed
+     * @return The query, or null if there is nothing to search for
+     */
+    public static String getMatchQuery(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String word : StringUtils.split(IndividualIndex.fold(text))) {
+            String phrase = word.replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+            if (!phrase.isEmpty())
+                terms.add("\"" + phrase + "*\"");
+        }
+        return terms.isEmpty() ? null : StringUtils.join(terms, " ");
+    }
+
+    /**
+     * Build a condition on the individual table that selects the Individuals
+     * whose field matches an FTS query, to be bound as the one parameter.
+     * 
+     * @param field One of FIELDS, or null to search them all
+     * @return The condition, e.g. "id IN (SELECT docid FROM ...)"
+     */
+    public static String getMatchCondition(String field) {
+        if (field != null && !FIELDS.contains(field))
+            throw new IllegalArgumentException(field + " is not indexed");
+        return String.format("id IN (SELECT docid FROM %s WHERE %s MATCH ?)", 
+                TABLE, field == null ? TABLE : TABLE + "." + field);
+    }
+
+    /**
+     * Find the Individuals any of whose indexed fields match the text.
+     * 
+     * @param text What the user typed
+     * @param limit The most Individuals to return
+     * @return The matching Individuals with their departments, in id order
+     * @throws SQLException 
+     */
+    public static List<Individual> search(String text, int limit) throws SQLException {
+        List<Individual> results = new ArrayList<>();
+        String query = IndividualIndex.getMatchQuery(text);
+        if (query == null)
+            return results;
+        String sql = IndividualCursor.getQuery("i." + IndividualIndex.getMatchCondition(null))
+                + " ORDER BY i.id LIMIT " + limit;
+        try (IndividualCursor cursor = new IndividualCursor(Individual.getDao().queryRaw(
+                sql, new IndividualCursor.JoinedRowMapper(), query))) 
+        {
+            for (Individual individual : cursor)
+                results.add(individual);
+        }
+        return results;
+    }
+
+}
@@ -0,0 +1,146 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.field.SqlType;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
+import com.j256.ormlite.stmt.Where;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A department's Individuals, optionally filtered and sorted, read a window
+ * at a time so that a table can show a department of any size without
+ * loading all of it. The filter is a full-text query on the fields in
+ * IndividualIndex, and both it and the sort order are left to SQLite. Values
+ * are sorted on the folded copies Individuals are stored with, so that
+ * "Álvarez" comes before "Muñoz". Each is indexed along with the department,
+ * so a window is read straight off the index rather than sorting the whole
+ * department for it. Rows with equal sort values are ordered by id, so that
+ * windows never overlap.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class IndividualQuery {
+
+    /**
+     * The fields Individuals can be sorted on
+     */
+    public static final List<String> SORT_FIELDS = Arrays.asList(
+            "title", "firstName", "lastName", "email", "role", "unprocessed");
+
+    private final Department department;
+    private final String sortField;
+    private final boolean ascending;
+    private final String matchQuery;
+
+    /**
+     * All of a department's Individuals, in the order they were stored
+     * 
+     * @param department The department whose Individuals we want
+     */
+    public IndividualQuery(Department department) {
+        this(department, null, true, null);
+    }
+
+    /**
+     * @param department The department whose Individuals we want
+     * @param sortField One of SORT_FIELDS, or null for the order they were stored in
+     * @param ascending Whether to sort ascending
+     * @param filter What the user typed to filter on, or null for no filter
+     */
+    public IndividualQuery(Department department, String sortField, boolean ascending, 
+            String filter) 
+    {
+        if (sortField != null && !SORT_FIELDS.contains(sortField))
+            throw new IllegalArgumentException("Individuals cannot be sorted on " + sortField);
+        this.department = department;
+        this.sortField = sortField;
+        this.ascending = ascending;
+        this.matchQuery = filter == null ? null : IndividualIndex.getMatchQuery(filter);
+    }
+
+    /**
+     * @return The statements that create an index on department and folded
+     * value for each sort field. The id comes last in every SQLite index, so
+     * these also give the order of rows with equal values.
+     */
+    static String[] getIndexStatements() {
+        String[] statements = new String[SORT_FIELDS.size()];
+        for (int f = 0; f < statements.length; f ++) {
+            String column = IndividualIndex.getFoldedColumn(SORT_FIELDS.get(f));
+            statements[f] = String.format("CREATE INDEX IF NOT EXISTS individual_%s_idx "
+                    + "ON individual (department_id, %s)", column, column);
+        }
+        return statements;
+    }
+
+    /**
+     * @return The number of Individuals the query selects
+     * @throws SQLException 
+     */
+    public long getCount() throws SQLException {
+        QueryBuilder<Individual, String> builder = Individual.getDao().queryBuilder();
+        builder.setCountOf(true);
+        this.addConditions(builder.where());
+        return Individual.getDao().countOf(builder.prepare());
+    }
+
+    /**
+     * Read a window of the Individuals the query selects. The department index
+     * narrows the rows down, so the cost of a window depends on the size of
+     * the department rather than of the whole table.
+     * 
+     * @param offset The position of the first Individual wanted
+     * @param limit The most Individuals to return
+     * @return The Individuals, with this query's department attached
+     * @throws SQLException 
+     */
+    public List<Individual> getWindow(long offset, int limit) throws SQLException {
+        QueryBuilder<Individual, String> builder = Individual.getDao().queryBuilder();
+        this.addConditions(builder.where());
+        String direction = this.ascending ? " ASC" : " DESC";
+        if (this.sortField != null)
+            builder.orderByRaw(IndividualIndex.getFoldedColumn(this.sortField) 
+                    + direction + ", id" + direction);
+        else
+            builder.orderBy("id", this.ascending);
+        builder.offset(offset).limit((long) limit);
+        List<Individual> individuals = builder.query();
+        for (Individual individual : individuals)
+            individual.setDepartment(this.department);
+        return individuals;
+    }
+
+    public Department getDepartment() {
+        return department;
+    }
+
+    public String getSortField() {
+        return sortField;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    // ===================== Private Methods =============================
+
+    private void addConditions(Where<Individual, String> where) throws SQLException {
+        where.eq("department_id", this.department.getId());
+        if (this.matchQuery != null)
+            where.and().raw(IndividualIndex.getMatchCondition(null), 
+                    new SelectArg(SqlType.STRING, this.matchQuery));
+    }
+
+}
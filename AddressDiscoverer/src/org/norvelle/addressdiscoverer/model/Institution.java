@@ -10,12 +10,14 @@ package org.norvelle.addressdiscoverer.model;
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.misc.TransactionManager;
 import com.j256.ormlite.support.ConnectionSource;
 import com.j256.ormlite.table.DatabaseTable;
 import com.j256.ormlite.table.TableUtils;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * Represents a single institution. Uses the ORMLite framework for persistence.
@@ -132,9 +134,16 @@ public class Institution implements Comparable {
         Institution.dao.update(i);
     }
     
-    public static void delete(Institution i) throws SQLException {
-        Department.deleteDepartmentsForInstitution(i);
-        Institution.dao.delete(i);
+    public static void delete(final Institution i) throws SQLException {
+        TransactionManager.callInTransaction(Institution.dao.getConnectionSource(),
+                new Callable<Void>() {
+                    @Override
+                    public Void call() throws SQLException {
+                        Department.deleteDepartmentsForInstitution(i);
+                        Institution.dao.delete(i);
+                        return null;
+                    }
+                });
     }
     
     public static HashMap<Integer, Institution> getInstitutions() {
@@ -150,4 +159,8 @@ public class Institution implements Comparable {
         return total;
     }
 
+    static Dao<Institution, String> getDao() {
+        return Institution.dao;
+    }
+
 }
@@ -12,7 +12,7 @@ package org.norvelle.addressdiscoverer.model;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.io.FileUtils;
@@ -30,10 +30,14 @@ public class KnownFirstName {
     private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); 
     
     // Our hashmap for tracking existing first names
-    private static final HashMap<String, Integer> firstNames = new HashMap<>();
+    private static final ConcurrentHashMap<String, Integer> firstNames = new ConcurrentHashMap<>();
     
     // The file where we store our last names
     private static File namesFile;
+
+    // A hash of the entries, worked out when first asked for and forgotten
+    // whenever they change
+    private static String fingerprint;
         
     // ===================== Static Data Manipulation Methods =============================
     
@@ -43,6 +47,7 @@ public class KnownFirstName {
         String[] namesArray = StringUtils.split(nameStr, "\n");
         for (String name : namesArray) 
             firstNames.put(name, 1);
+        forgetFingerprint();
     }
     
     public static void store() throws IOException {
@@ -63,19 +68,34 @@ public class KnownFirstName {
         name = Utils.normalizeName(name);
         boolean isMatch = firstNames.containsKey(name);
         if (isMatch)
-            logger.log(Level.INFO, String.format("%s is a first name", name));
+            logger.log(Level.INFO, "{0} is a first name", name);
         else
-            logger.log(Level.FINE, String.format("%s is NOT a first name", name));
+            logger.log(Level.FINE, "{0} is NOT a first name", name);
         return isMatch;
     }
 
     public static void delete(String name) {
         if (firstNames.containsKey(name))
             firstNames.remove(name);
+        forgetFingerprint();
     }
 
     public static void add(String name) {
         firstNames.put(name, 1);
+        forgetFingerprint();
+    }
+
+    /**
+     * @return A hash of the entries loaded, which changes whenever they do
+     */
+    public static synchronized String getFingerprint() {
+        if (fingerprint == null)
+            fingerprint = PageStore.hashEntries(firstNames.entrySet());
+        return fingerprint;
+    }
+
+    private static synchronized void forgetFingerprint() {
+        fingerprint = null;
     }
 
 }
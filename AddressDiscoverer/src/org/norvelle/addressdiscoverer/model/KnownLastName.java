@@ -12,7 +12,7 @@ package org.norvelle.addressdiscoverer.model;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.io.FileUtils;
@@ -30,10 +30,14 @@ public class KnownLastName {
     private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); 
     
     // Our hashmap for tracking existing first names
-    private static final HashMap<String, Integer> lastNames = new HashMap<>();
+    private static final ConcurrentHashMap<String, Integer> lastNames = new ConcurrentHashMap<>();
     
     // The file where we store our last names
     private static File namesFile;
+
+    // A hash of the entries, worked out when first asked for and forgotten
+    // whenever they change
+    private static String fingerprint;
     
     // ===================== Static Data Manipulation Methods =============================
     
@@ -43,6 +47,7 @@ public class KnownLastName {
         String[] namesArray = StringUtils.split(nameStr, "\n");
         for (String name : namesArray) 
             lastNames.put(name, 1);
+        forgetFingerprint();
     }
     
     public static void store() throws IOException {
@@ -63,30 +68,36 @@ public class KnownLastName {
         
         // Instead of using a standard charset translator, we translate only vowels
         name = Utils.normalizeName(name);
-        boolean isMatch = hasLastName(name);
+        boolean isMatch = lastNames.containsKey(name);
         if (isMatch)
-            logger.log(Level.INFO, String.format("%s is a last name", name));
+            logger.log(Level.INFO, "{0} is a last name", name);
         else
-            logger.log(Level.FINE, String.format("%s is NOT a last name", name));
+            logger.log(Level.FINE, "{0} is NOT a last name", name);
         return isMatch;
     }
-    
-    private static boolean hasLastName(String name) {
-        for (String currName : lastNames.keySet()) {
-            String diff = StringUtils.difference(name, currName);
-            String diff2 = StringUtils.difference(currName, name);
-            if (diff.isEmpty() && diff2.isEmpty())
-                return true;
-        }
-        return false;
-    }
 
     public static void delete(String name) {
         if (lastNames.containsKey(name))
             lastNames.remove(name);
+        forgetFingerprint();
     }
     
     public static void add(String name) {
         lastNames.put(name, 1);
+        forgetFingerprint();
     }
+
+    /**
+     * @return A hash of the entries loaded, which changes whenever they do
+     */
+    public static synchronized String getFingerprint() {
+        if (fingerprint == null)
+            fingerprint = PageStore.hashEntries(lastNames.entrySet());
+        return fingerprint;
+    }
+
+    private static synchronized void forgetFingerprint() {
+        fingerprint = null;
+    }
+
 }
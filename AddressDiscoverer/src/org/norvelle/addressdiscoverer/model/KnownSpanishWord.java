@@ -12,7 +12,7 @@ package org.norvelle.addressdiscoverer.model;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.io.FileUtils;
@@ -29,10 +29,14 @@ public class KnownSpanishWord {
     private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); 
     
     // Our hashmap for tracking existing first words
-    private static final HashMap<String, Integer> lastNames = new HashMap<>();
+    private static final ConcurrentHashMap<String, Integer> lastNames = new ConcurrentHashMap<>();
     
     // The file where we store our last words
     private static File wordsFile;
+
+    // A hash of the entries, worked out when first asked for and forgotten
+    // whenever they change
+    private static String fingerprint;
     
     // ===================== Static Data Manipulation Methods =============================
     
@@ -42,6 +46,7 @@ public class KnownSpanishWord {
         String[] wordsArray = StringUtils.split(wordStr, "\n");
         for (String word : wordsArray) 
             lastNames.put(word, 1);
+        forgetFingerprint();
     }
     
     public static void store() throws IOException {
@@ -51,26 +56,36 @@ public class KnownSpanishWord {
     
     public static boolean isWord(String word) {
         word = word.toLowerCase();
-        boolean isMatch = false;
-        for (String currName : lastNames.keySet()) {
-            String diff = StringUtils.difference(word, currName);
-            String diff2 = StringUtils.difference(currName, word);
-            if (diff.isEmpty() && diff2.isEmpty())
-                isMatch = true;
-        }
+        boolean isMatch = lastNames.containsKey(word);
         if (isMatch)
-            logger.log(Level.FINE, String.format("%s is a word", word));
+            logger.log(Level.FINE, "{0} is a word", word);
         else
-            logger.log(Level.FINE, String.format("%s is NOT a word", word));
+            logger.log(Level.FINE, "{0} is NOT a word", word);
         return isMatch;
     }
 
     public static void delete(String word) {
         if (lastNames.containsKey(word))
             lastNames.remove(word);
+        forgetFingerprint();
     }
     
     public static void add(String word) {
         lastNames.put(word, 1);
+        forgetFingerprint();
+    }
+
+    /**
+     * @return A hash of the entries loaded, which changes whenever they do
+     */
+    public static synchronized String getFingerprint() {
+        if (fingerprint == null)
+            fingerprint = PageStore.hashEntries(lastNames.entrySet());
+        return fingerprint;
     }
+
+    private static synchronized void forgetFingerprint() {
+        fingerprint = null;
+    }
+
 }
@@ -21,16 +21,27 @@ import org.norvelle.addressdiscoverer.Constants;
 import org.norvelle.addressdiscoverer.exceptions.CantParseIndividualException;
 
 /**
+ * A person's name, parsed out of a chunk of text. All the normalization the
+ * getters return is done once, when the name is constructed, so a Name never
+ * changes afterwards and its getters are simple field reads.
  *
  * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
  */
-public class Name {
+public final class Name {
 
+    // Working state while the chunk is being parsed
     private String firstName;
     private String lastName;
     private String rest = "";
     private String title = "";
     private String suffix = "";
+    private final TokenClassifier tokens;
+
+    // The normalized values handed out by the getters
+    private final String normalizedFirstName;
+    private final String normalizedLastName;
+    private final String fullName;
+    private final String unprocessed;
     
     private static final Pattern hyphenatedPattern = Pattern.compile("^(.*)-(.*)$");
     
@@ -45,6 +56,19 @@ public class Name {
      * @return 
      */
     public static boolean isName(String chunk) {
+        return isName(chunk, new TokenClassifier());
+    }
+    
+    /**
+     * Determine whether a chunk of text contains a name, remembering what was
+     * found out about each word so that parsing the name later need not ask
+     * the dictionaries again.
+     * 
+     * @param chunk
+     * @param tokens The classifier for the page the chunk comes from
+     * @return 
+     */
+    public static boolean isName(String chunk, TokenClassifier tokens) {
         chunk = chunk.replace(" ", " ");
         String[] words = StringUtils.split(chunk);
         for (String word : words) {
@@ -52,11 +76,11 @@ public class Name {
             word = word.replace(",", "");
             word = word.replace(".", "");
             word = StringUtils.capitalize(word.toLowerCase());
-            if (KnownFirstName.isFirstName(word)) {
+            if (tokens.isFirstName(word)) {
                 logger.log(Level.FINE, String.format("Word '%s' is a first name", word));
                 return true;
             }
-            if (KnownLastName.isLastName(word)) {
+            if (tokens.isLastName(word)) {
                 logger.log(Level.FINE, String.format("Word '%s' is a last name", word));
                 return true;
             }
@@ -71,15 +95,23 @@ public class Name {
      * @throws org.norvelle.addressdiscoverer.exceptions.CantParseIndividualException 
      */
     public Name(String textChunk) throws CantParseIndividualException {
-        // Eliminate non-breaking spaces
-        textChunk = textChunk.replaceAll("\\xA0", " ");
+        this(textChunk, new TokenClassifier());
+    }
+    
+    /**
+     * Parse a name using what is already known about the words on its page.
+     * 
+     * @param textChunk A chunk of text that supposedly contains a name 
+     * @param tokens The classifier for the page the chunk comes from
+     * @throws org.norvelle.addressdiscoverer.exceptions.CantParseIndividualException 
+     */
+    public Name(String textChunk, TokenClassifier tokens) throws CantParseIndividualException {
+        this.tokens = tokens;
         
-        // Replace single quotes with apostrophes, to avoid SQL problems
-        textChunk = textChunk.replaceAll("'", "ʼ");
-
-        // Eliminate numbers... no use for them, but only ones that exist separately
-        // and not as part of emails.
-        textChunk = textChunk.replaceAll("\\b\\d+\\b", "").trim();
+        // Eliminate non-breaking spaces, replace single quotes with apostrophes
+        // to avoid SQL problems, and eliminate numbers... no use for them, but
+        // only ones that exist separately and not as part of emails.
+        textChunk = NameTokenizer.clean(textChunk);
 
         // See if we can use a comma to find first, last parts or not.
         if (textChunk.contains(","))
@@ -93,6 +125,14 @@ public class Name {
 
         if (this.getScore() == 0.0)
             throw new CantParseIndividualException(textChunk);
+
+        // Words with symbols are moved to the rest as the names are
+        // normalized, so the unprocessed text must come last.
+        this.normalizedFirstName = this.normalizeFirstName();
+        this.normalizedLastName = this.normalizeLastName();
+        this.fullName = this.escapeSingleQuotes((this.title + " " + this.normalizedFirstName 
+                + " " + this.normalizedLastName).trim());
+        this.unprocessed = this.escapeSingleQuotes(this.rest.trim());
     }
         
     /**
@@ -130,7 +170,7 @@ public class Name {
         // First see if we can pull out anything from the first name that
         // is a title
         for (String word : StringUtils.split(myFirstName)) 
-            if (Constants.possibleTitles.contains(word)) {
+            if (this.tokens.isTitle(word)) {
                 myFirstName = myFirstName.replace(word, "");
                 myTitle += word + " ";
             }
@@ -141,12 +181,12 @@ public class Name {
         boolean restHasBegun = false;
         int wordNum = 1;
         for (String word : StringUtils.split(myLastName)) {
-            if (Constants.suffixes.contains(word)) {
+            if (this.tokens.isSuffix(word)) {
                 myLastName = myLastName.replace(word, "");
                 mySuffix += word + " ";
             }
-            else if ((!KnownLastName.isLastName(word) 
-                        && KnownSpanishWord.isWord(word) && wordNum > 1) 
+            else if ((!this.tokens.isLastName(word) 
+                        && this.tokens.isSpanishWord(word) && wordNum > 1) 
                     || restHasBegun) 
             {
                 restHasBegun = true;
@@ -178,7 +218,7 @@ public class Name {
         String myTitle = "";
         for (String word : words) {
             // First order of business is to see if we have a title
-            if (Constants.possibleTitles.contains(word))
+            if (this.tokens.isTitle(word))
                 myTitle += word + " ";
             
             // If not, but we are at the first word, we always put it as a first name
@@ -186,7 +226,7 @@ public class Name {
                 myFirstName = word + " ";
             
             // Otherwise, if it is a known last name we add it to our last names
-            else if (KnownLastName.isLastName(word) || !KnownSpanishWord.isWord(word))
+            else if (this.tokens.isLastName(word) || !this.tokens.isSpanishWord(word))
                 myLastName += word + " ";
             
             // Otherwise, it's not a last name and we haven't seen any last 
@@ -234,9 +274,9 @@ public class Name {
         String possibleRest = this.firstName;
         String possibleFirst = "";
         String possibleSuffix = "";
-        String[] words = this.firstName.split("\\s+");
+        String[] words = NameTokenizer.WHITESPACE.split(this.firstName);
         for (String word : words) {
-            if (KnownFirstName.isFirstName(word) || !KnownSpanishWord.isWord(word)) {
+            if (this.tokens.isFirstName(word) || !this.tokens.isSpanishWord(word)) {
                 possibleFirst += word + " ";
                 possibleRest = possibleRest.replace(word, "").trim();
             }
@@ -248,18 +288,22 @@ public class Name {
     }
 
     private void moveParensToUnprocessed() {
-        Pattern pp = Pattern.compile("\\(.*\\)");
-        Matcher matcherFirst = pp.matcher(this.firstName);
-        while (matcherFirst.find())  {
-            String foundParens = matcherFirst.group();
-            this.firstName = this.firstName.replace(foundParens, "").trim();
-            this.rest = (this.rest + " " + foundParens).trim();
+        // Most names have no parentheses at all, so don't bother the matcher
+        if (this.firstName.indexOf('(') != -1) {
+            Matcher matcherFirst = NameTokenizer.PARENS.matcher(this.firstName);
+            while (matcherFirst.find())  {
+                String foundParens = matcherFirst.group();
+                this.firstName = this.firstName.replace(foundParens, "").trim();
+                this.rest = (this.rest + " " + foundParens).trim();
+            }
         }
-        Matcher matcherLast = Constants.parensPattern.matcher(this.lastName);
-        if (matcherLast.find())  {
-            String foundParens = matcherLast.group();
-            this.lastName = this.lastName.replace(foundParens, "").trim();
-            this.rest = (this.rest + " " + foundParens).trim();
+        if (this.lastName.indexOf('(') != -1) {
+            Matcher matcherLast = NameTokenizer.PARENS.matcher(this.lastName);
+            if (matcherLast.find())  {
+                String foundParens = matcherLast.group();
+                this.lastName = this.lastName.replace(foundParens, "").trim();
+                this.rest = (this.rest + " " + foundParens).trim();
+            }
         }
     }
     
@@ -279,7 +323,7 @@ public class Name {
         chunk = chunk.replace("'", "YYYY");
         chunk = chunk.replace(".", "ZZZZ");
         for (String word : StringUtils.split(chunk)) {
-            if (!word.matches(".*(\\p{P}|\\p{S}).*"))
+            if (!NameTokenizer.hasSymbol(word))
                 result += " " + word;
             else this.rest += " " + word;
         }
@@ -290,28 +334,27 @@ public class Name {
     }
     
     private String escapeSingleQuotes(String chunk) {
-        String result = chunk.replaceAll("'", "ʼ");
-        return result;
+        return chunk.replace('\'', 'ʼ');
     }
     
     private String fixOddCapitals(String namePart) {
         String recapitalized = "";
         for (String word : StringUtils.split(namePart)) {
-            if (GrammarParticles.isGrammarParticle(word))
+            if (this.tokens.isParticle(word))
                 word = word.toLowerCase();
-            Matcher matcher = Name.hyphenatedPattern.matcher(word);
-            if (matcher.matches())
-                word = matcher.group(1) + "-" + StringUtils.capitalize(matcher.group(2));
+            if (word.indexOf('-') != -1) {
+                Matcher matcher = Name.hyphenatedPattern.matcher(word);
+                if (matcher.matches())
+                    word = matcher.group(1) + "-" + StringUtils.capitalize(matcher.group(2));
+            }
             recapitalized += word + " ";
         }
         return recapitalized.trim();
     }
 
-    // ===================== Getters =============================
-    
-    public String getFirstName() {
+    private String normalizeFirstName() {
         String name = Abbreviations.fixAbbreviations(this.firstName);
-        name = name.replaceAll("\\.", ". ").replaceAll("  ", " ");
+        name = name.replace(".", ". ").replace("  ", " ");
         name = WordUtils.capitalizeFully(
             this.eliminateWordsWithSymbols(
                 this.escapeSingleQuotes(name)));
@@ -319,7 +362,7 @@ public class Name {
         return name;
     }
 
-    public String getLastName() {
+    private String normalizeLastName() {
         String name = Abbreviations.fixAbbreviations(this.lastName);
         name = WordUtils.capitalizeFully(
                 this.eliminateWordsWithSymbols(
@@ -328,17 +371,26 @@ public class Name {
         return name;
     }
 
+    // ===================== Getters =============================
+    
+    public String getFirstName() {
+        return this.normalizedFirstName;
+    }
+
+    public String getLastName() {
+        return this.normalizedLastName;
+    }
+
     public String getFullName() {
-        return this.escapeSingleQuotes((this.title + " " + this.getFirstName() + " " + 
-                this.getLastName()).trim());
+        return this.fullName;
     }
 
     public String getUnprocessed() {
-        return this.escapeSingleQuotes(rest.trim());
+        return this.unprocessed;
     }
 
     public String getTitle() {
-        return title.trim();
+        return this.title;
     }
 
     @Override
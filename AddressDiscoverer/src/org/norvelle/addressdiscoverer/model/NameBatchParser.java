@@ -0,0 +1,187 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.norvelle.addressdiscoverer.exceptions.CantParseIndividualException;
+
+/**
+ * Parses whole lists of name chunks at once, splitting them into slices that
+ * are parsed in parallel on a pool of threads. The results come back in the
+ * order of the chunks, whatever order the slices finish in. Small lists are
+ * parsed on the calling thread, since handing them off would cost more than
+ * it saves. The dictionaries and the TokenClassifier may be read by several
+ * threads at once, so all the slices of a page can share its classifier.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class NameBatchParser {
+
+    // Settings for the shared parser; other parsers are given theirs
+    public static final int DEFAULT_NUM_THREADS = Runtime.getRuntime().availableProcessors();
+
+    // Lists shorter than this are parsed on the calling thread
+    public static final int DEFAULT_MIN_PARALLEL_SIZE = 256;
+
+    // The number of slices made per thread, so that threads that finish
+    // early can help with the rest
+    private static final int SLICES_PER_THREAD = 4;
+
+    private static NameBatchParser shared;
+
+    private final ExecutorService executor;
+    private final int numThreads;
+    private final int minParallelSize;
+
+    public NameBatchParser() {
+        this(DEFAULT_NUM_THREADS, DEFAULT_MIN_PARALLEL_SIZE);
+    }
+
+    public NameBatchParser(int numThreads, int minParallelSize) {
+        this.numThreads = Math.max(1, numThreads);
+        this.minParallelSize = minParallelSize;
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.numThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "name-parser-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @return The parser shared by all extractions in this JVM
+     */
+    public static synchronized NameBatchParser getShared() {
+        if (shared == null)
+            shared = new NameBatchParser();
+        return shared;
+    }
+
+    /**
+     * Parse each chunk into a Name.
+     * 
+     * @param chunks The chunks of text, one name each
+     * @param tokens The classifier for the page the chunks come from
+     * @return The names and failures, in the order of the chunks
+     * @throws InterruptedException 
+     */
+    public ParsedNames<Name> parseNames(List<String> chunks, TokenClassifier tokens) 
+            throws InterruptedException 
+    {
+        return this.parse(chunks, tokens, new Parser<Name>() {
+            @Override
+            public Name parse(String chunk, TokenClassifier tokens) throws CantParseIndividualException {
+                return new Name(chunk, tokens);
+            }
+        });
+    }
+
+    /**
+     * Parse each chunk into a UnamName.
+     * 
+     * @param chunks The chunks of text, one name each
+     * @param tokens The classifier for the page the chunks come from
+     * @return The names and failures, in the order of the chunks
+     * @throws InterruptedException 
+     */
+    public ParsedNames<UnamName> parseUnamNames(List<String> chunks, TokenClassifier tokens) 
+            throws InterruptedException 
+    {
+        return this.parse(chunks, tokens, new Parser<UnamName>() {
+            @Override
+            public UnamName parse(String chunk, TokenClassifier tokens) throws CantParseIndividualException {
+                return new UnamName(chunk, tokens);
+            }
+        });
+    }
+
+    /**
+     * Stop the pool's threads once any batches in progress are done.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    // ===================== Private Methods =============================
+
+    private interface Parser<T> {
+
+        public T parse(String chunk, TokenClassifier tokens) throws CantParseIndividualException;
+
+    }
+
+    private <T> ParsedNames<T> parse(final List<String> chunks, final TokenClassifier tokens, 
+            final Parser<T> parser) throws InterruptedException 
+    {
+        final ParsedNames<T> results = new ParsedNames<>(chunks.size());
+        int numSlices = Math.min(this.numThreads * SLICES_PER_THREAD, chunks.size());
+        if (chunks.size() < this.minParallelSize || this.numThreads == 1)
+            numSlices = 1;
+
+        if (numSlices <= 1)
+            this.parseSlice(chunks, 0, chunks.size(), tokens, parser, results);
+        else {
+            List<Callable<Void>> slices = new ArrayList<>(numSlices);
+            for (int i = 0; i < numSlices; i ++) {
+                final int from = (int) ((long) chunks.size() * i / numSlices);
+                final int to = (int) ((long) chunks.size() * (i + 1) / numSlices);
+                slices.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        parseSlice(chunks, from, to, tokens, parser, results);
+                        return null;
+                    }
+                });
+            }
+
+            // invokeAll waits for every slice, and the futures carry the
+            // happens-before edge that makes their results visible here.
+            for (Future<Void> slice : this.executor.invokeAll(slices)) {
+                try {
+                    slice.get();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+                    if (cause instanceof Error)
+                        throw (Error) cause;
+                    throw new IllegalStateException(cause);
+                }
+            }
+        }
+        results.finish();
+        return results;
+    }
+
+    private <T> void parseSlice(List<String> chunks, int from, int to, TokenClassifier tokens,
+            Parser<T> parser, ParsedNames<T> results) 
+    {
+        for (int i = from; i < to; i ++) {
+            try {
+                results.setName(i, parser.parse(chunks.get(i), tokens));
+            } catch (CantParseIndividualException ex) {
+                results.setFailure(i, ex);
+            }
+        }
+    }
+
+}
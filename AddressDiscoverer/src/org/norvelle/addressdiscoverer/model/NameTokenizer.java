@@ -0,0 +1,158 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.norvelle.addressdiscoverer.Constants;
+
+/**
+ * The text clean-up shared by Name and UnamName, done in a single pass over
+ * the characters of a chunk with all patterns compiled once. Non-breaking
+ * spaces become spaces and single quotes become apostrophes (to avoid SQL
+ * problems) as the chunk is copied, and the copy notes whether any digits
+ * were seen, so that the number pattern only runs on the few chunks that
+ * have some. The results are exactly those of the replaceAll calls this
+ * replaces.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+final class NameTokenizer {
+
+    static final Pattern NUMBER = Pattern.compile("\\b\\d+\\b");
+    static final Pattern PARENS = Constants.parensPattern;
+    static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Set<String> titles = new HashSet<>(Constants.possibleTitles);
+    private static final Set<String> suffixes = new HashSet<>(Constants.suffixes);
+
+    private static final char NBSP = '\u00A0';
+    private static final char APOSTROPHE = 'ʼ';
+
+    private NameTokenizer() {
+    }
+
+    /**
+     * Clean a chunk for Name: fold non-breaking spaces, replace single quotes
+     * and drop numbers that stand on their own, but not those that are part
+     * of a word, such as an email.
+     * 
+     * @param chunk The raw chunk
+     * @return The cleaned chunk, trimmed
+     */
+    static String clean(String chunk) {
+        StringBuilder cleaned = new StringBuilder(chunk.length());
+        boolean hasDigits = copyFolded(chunk, cleaned);
+        return removeNumbers(cleaned, hasDigits).trim();
+    }
+
+    /**
+     * Clean a chunk for UnamName, which also drops the "M en C" degree and
+     * all commas and periods.
+     * 
+     * @param chunk The raw chunk
+     * @return The cleaned chunk, trimmed
+     */
+    static String cleanUnam(String chunk) {
+        StringBuilder folded = new StringBuilder(chunk.length());
+        boolean hasDigits = copyFolded(chunk, folded);
+        String text = folded.toString();
+        if (text.indexOf('M') != -1)
+            text = text.replace("M en C", "").replace("M. en C.", "");
+        text = removeNumbers(text, hasDigits);
+        StringBuilder cleaned = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i ++) {
+            char c = text.charAt(i);
+            if (c != ',' && c != '.')
+                cleaned.append(c);
+        }
+        return cleaned.toString().trim();
+    }
+
+    static boolean isTitle(String word) {
+        return titles.contains(word);
+    }
+
+    static boolean isSuffix(String word) {
+        return suffixes.contains(word);
+    }
+
+    /**
+     * The same test as word.matches(".*(\\p{P}|\\p{S}).*"), without the
+     * regex: true if some character is punctuation or a symbol, unless the
+     * word holds a line terminator, which the regex's dots do not match.
+     * 
+     * @param word The word to test
+     * @return True if the word contains punctuation or symbols
+     */
+    static boolean hasSymbol(String word) {
+        boolean found = false;
+        for (int i = 0; i < word.length(); ) {
+            int c = word.codePointAt(i);
+            switch (c) {
+                case '\n': case '\r': case '\u0085': case '\u2028': case '\u2029':
+                    return false;
+                default:
+                    if (!found)
+                        found = isSymbolType(Character.getType(c));
+            }
+            i += Character.charCount(c);
+        }
+        return found;
+    }
+
+    // ===================== Private Methods =============================
+
+    /**
+     * @return True if any ASCII digits were copied
+     */
+    private static boolean copyFolded(String chunk, StringBuilder out) {
+        boolean hasDigits = false;
+        for (int i = 0; i < chunk.length(); i ++) {
+            char c = chunk.charAt(i);
+            if (c == NBSP)
+                c = ' ';
+            else if (c == '\'')
+                c = APOSTROPHE;
+            else if (c >= '0' && c <= '9')
+                hasDigits = true;
+            out.append(c);
+        }
+        return hasDigits;
+    }
+
+    private static String removeNumbers(CharSequence text, boolean hasDigits) {
+        if (!hasDigits)
+            return text.toString();
+        return NUMBER.matcher(text).replaceAll("");
+    }
+
+    private static boolean isSymbolType(int type) {
+        switch (type) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+            case Character.MATH_SYMBOL:
+            case Character.CURRENCY_SYMBOL:
+            case Character.MODIFIER_SYMBOL:
+            case Character.OTHER_SYMBOL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+/**
+ * The deflate-compressed text of a page, stored once however many snapshots
+ * refer to it. Its id is the SHA-1 hash of the uncompressed text. Use the
+ * PageStore to read and write these.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+@DatabaseTable(tableName = "page_content")
+public class PageContent {
+
+    @DatabaseField(id = true)
+    private String hash;
+
+    @DatabaseField
+    private int length;
+
+    @DatabaseField(dataType = DataType.BYTE_ARRAY)
+    private byte[] data;
+
+    /**
+     * ORMLite needs a no-arg constructor
+     */
+    public PageContent() {
+    }
+
+    PageContent(String hash, int length, byte[] data) {
+        this.hash = hash;
+        this.length = length;
+        this.data = data;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * @return The length of the page in bytes, before compression
+     */
+    public int getLength() {
+        return length;
+    }
+
+    byte[] getData() {
+        return data;
+    }
+
+}
@@ -0,0 +1,82 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+import java.util.Date;
+
+/**
+ * Records that a department's page had a given content at a given time. A
+ * snapshot is only taken when the content differs from the last one.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+@DatabaseTable(tableName = "page_snapshot")
+public class PageSnapshot {
+
+    @DatabaseField(generatedId = true)
+    private int id;
+
+    @DatabaseField(canBeNull = false, foreign = true, index = true)
+    private Department department;
+
+    @DatabaseField(canBeNull = false, index = true)
+    private String hash;
+
+    @DatabaseField
+    private String address;
+
+    @DatabaseField
+    private Date created;
+
+    /**
+     * ORMLite needs a no-arg constructor
+     */
+    public PageSnapshot() {
+    }
+
+    PageSnapshot(Department department, String hash, String address) {
+        this.department = department;
+        this.hash = hash;
+        this.address = address;
+        this.created = new Date();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Department getDepartment() {
+        return department;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * @return Where the page was read from
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s from %s at %tF %<tT", this.hash, this.address, this.created);
+    }
+
+}
@@ -0,0 +1,349 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.stmt.DeleteBuilder;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.UpdateBuilder;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import com.j256.ormlite.table.TableUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Keeps the pages departments were extracted from, out of the department
+ * table so that loading departments never drags their pages along. Page
+ * text is stored deflate-compressed in PageContent rows keyed by its SHA-1
+ * hash, so a page that hasn't changed, or that several departments share, is
+ * stored once. Each department keeps a history of PageSnapshots, the latest
+ * of which its pageHash refers to.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class PageStore {
+
+    // A logger instance
+    private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); 
+
+    /**
+     * The number of snapshots kept for each department
+     */
+    public static int defaultMaxSnapshots = 10;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static Dao<PageContent, String> contentDao;
+    private static Dao<PageSnapshot, String> snapshotDao;
+
+    public static void initialize(ConnectionSource connectionSource) throws SQLException {
+        PageStore.contentDao = 
+            DaoManager.createDao(connectionSource, PageContent.class);
+        PageStore.snapshotDao = 
+            DaoManager.createDao(connectionSource, PageSnapshot.class);
+        TableUtils.createTableIfNotExists(connectionSource, PageContent.class);
+        TableUtils.createTableIfNotExists(connectionSource, PageSnapshot.class);
+    }
+
+    /**
+     * Record a department's page. If it differs from the last one stored for
+     * the department, a new snapshot is taken and the department is pointed
+     * at it, and the oldest snapshots beyond defaultMaxSnapshots are dropped.
+     * 
+     * @param department The department the page belongs to
+     * @param html The page
+     * @param address Where the page was read from
+     * @return The new snapshot, or null if the page hadn't changed
+     * @throws SQLException 
+     */
+    public static PageSnapshot save(final Department department, final String html, 
+            final String address) throws SQLException 
+    {
+        final String hash = PageStore.hash(html);
+        if (hash.equals(department.getPageHash()))
+            return null;
+        return TransactionManager.callInTransaction(PageStore.snapshotDao.getConnectionSource(),
+                new Callable<PageSnapshot>() {
+                    @Override
+                    public PageSnapshot call() throws SQLException {
+                        PageStore.put(hash, html);
+                        PageSnapshot snapshot = new PageSnapshot(department, hash, address);
+                        PageStore.snapshotDao.create(snapshot);
+
+                        // Only the reference is written, not the whole department
+                        UpdateBuilder<Department, String> update = Department.getDao().updateBuilder();
+                        update.updateColumnValue("pageHash", hash).where().idEq(
+                                Integer.toString(department.getId()));
+                        update.update();
+                        department.setPageHash(hash);
+
+                        PageStore.trimHistory(department);
+                        return snapshot;
+                    }
+                });
+    }
+
+    /**
+     * @param hash The hash of a stored page
+     * @return The page, or null if there is none with that hash
+     * @throws SQLException If the page is missing or cannot be decompressed
+     */
+    public static String getPage(String hash) throws SQLException {
+        PageContent content = PageStore.contentDao.queryForId(hash);
+        if (content == null)
+            return null;
+        try (InputStream in = new InflaterInputStream(
+                new java.io.ByteArrayInputStream(content.getData()))) 
+        {
+            return IOUtils.toString(in, UTF8);
+        } catch (IOException ex) {
+            throw new SQLException("Stored page " + hash + " is corrupt", ex);
+        }
+    }
+
+    /**
+     * @return The department's latest page, or null if none has been stored
+     * @throws SQLException 
+     */
+    public static String getLatestPage(Department department) throws SQLException {
+        String hash = department.getPageHash();
+        return hash == null ? null : PageStore.getPage(hash);
+    }
+
+    /**
+     * @return The department's snapshots, newest first
+     * @throws SQLException 
+     */
+    public static List<PageSnapshot> getHistory(Department department) throws SQLException {
+        return PageStore.snapshotDao.queryBuilder().orderBy("id", false)
+                .where().eq("department_id", department).query();
+    }
+
+    /**
+     * Drop a department's snapshots, and any pages no longer referred to.
+     * 
+     * @param department The department being deleted
+     * @throws SQLException 
+     */
+    public static void deleteHistory(Department department) throws SQLException {
+        QueryBuilder<PageSnapshot, String> query = PageStore.snapshotDao.queryBuilder();
+        query.selectColumns("hash").where().eq("department_id", department);
+        Set<String> hashes = PageStore.getHashes(query.query());
+        DeleteBuilder<PageSnapshot, String> builder = PageStore.snapshotDao.deleteBuilder();
+        builder.where().eq("department_id", department);
+        if (builder.delete() > 0)
+            PageStore.deleteUnreferencedPages(hashes);
+    }
+
+    /**
+     * Drop the snapshots of all of an institution's departments, and any
+     * pages no longer referred to.
+     * 
+     * @param institution The institution being deleted
+     * @throws SQLException 
+     */
+    public static void deleteHistoryForInstitution(Institution institution) throws SQLException {
+        QueryBuilder<PageSnapshot, String> query = PageStore.snapshotDao.queryBuilder();
+        query.selectColumns("hash").where().in("department_id", 
+                Department.getIdQueryForInstitution(institution));
+        Set<String> hashes = PageStore.getHashes(query.query());
+        DeleteBuilder<PageSnapshot, String> builder = PageStore.snapshotDao.deleteBuilder();
+        builder.where().in("department_id", Department.getIdQueryForInstitution(institution));
+        if (builder.delete() > 0)
+            PageStore.deleteUnreferencedPages(hashes);
+    }
+
+    /**
+     * @param html A page
+     * @return The hex SHA-1 hash of the page's UTF-8 bytes
+     */
+    public static String hash(String html) {
+        MessageDigest digest = newDigest();
+        return toHex(digest.digest(html.getBytes(UTF8)));
+    }
+
+    /**
+     * @param entries The entries of a dictionary, such as a map's entrySet()
+     * @return The hex SHA-1 hash of the entries' string forms, taken in sorted
+     * order so that it doesn't depend on how the dictionary holds them
+     */
+    public static String hashEntries(Collection<?> entries) {
+        List<String> sorted = new ArrayList<>(entries.size());
+        for (Object entry : entries)
+            sorted.add(entry.toString());
+        Collections.sort(sorted);
+        MessageDigest digest = newDigest();
+        for (String entry : sorted) {
+            digest.update(entry.getBytes(UTF8));
+            digest.update((byte) '\n');
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Move any pages still held in the old department.html column into the
+     * store. Called from a schema migration, inside its transaction.
+     * 
+     * @param connection The connection the migration is running on
+     * @throws SQLException 
+     */
+    static void importDepartmentHtml(DatabaseConnection connection) throws SQLException {
+        Connection conn = ((JdbcDatabaseConnection) connection).getInternalConnection();
+        boolean hasHtml = false;
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("PRAGMA table_info(department)")) 
+        {
+            while (rs.next())
+                hasHtml |= rs.getString("name").equalsIgnoreCase("html");
+        }
+        if (!hasHtml)
+            return;
+
+        List<String> ids = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(
+                        "SELECT id FROM department WHERE html IS NOT NULL AND html <> ''")) 
+        {
+            while (rs.next())
+                ids.add(rs.getString(1));
+        }
+        if (ids.isEmpty())
+            return;
+        if (PageStore.snapshotDao == null)
+            throw new SQLException("The page store must be initialized before migrating");
+
+        // One page at a time, so that they are never all in memory at once
+        try (PreparedStatement select = conn.prepareStatement(
+                "SELECT html FROM department WHERE id = ?");
+                PreparedStatement clear = conn.prepareStatement(
+                        "UPDATE department SET html = NULL WHERE id = ?"))
+        {
+            for (String id : ids) {
+                select.setString(1, id);
+                String html;
+                try (ResultSet rs = select.executeQuery()) {
+                    rs.next();
+                    html = rs.getString(1);
+                }
+                // Only the columns this migration knows exist are read, since
+                // later migrations may add others to the Department class
+                Department department = Department.getDao().queryBuilder()
+                        .selectColumns("id", "webAddress", "pageHash")
+                        .where().idEq(id).queryForFirst();
+                PageStore.save(department, html, department.getWebAddress());
+                clear.setString(1, id);
+                clear.executeUpdate();
+            }
+        }
+        logger.log(Level.INFO, "Moved {0} department pages into the page store", ids.size());
+    }
+
+    static Dao<PageContent, String> getContentDao() {
+        return PageStore.contentDao;
+    }
+
+    // ===================== Private Methods =============================
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JVM is required to provide SHA-1
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String toHex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest)
+            hex.append(String.format("%02x", b & 0xff));
+        return hex.toString();
+    }
+
+    private static void put(String hash, String html) throws SQLException {
+        if (PageStore.contentDao.idExists(hash))
+            return;
+        byte[] bytes = html.getBytes(UTF8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed)) {
+            out.write(bytes);
+        } catch (IOException ex) {
+            // Writing to memory doesn't fail
+            throw new IllegalStateException(ex);
+        }
+        PageStore.contentDao.create(new PageContent(hash, bytes.length, compressed.toByteArray()));
+    }
+
+    private static void trimHistory(Department department) throws SQLException {
+        QueryBuilder<PageSnapshot, String> query = PageStore.snapshotDao.queryBuilder();
+        query.selectColumns("id", "hash").orderBy("id", false)
+                .offset((long) defaultMaxSnapshots).limit(-1L)
+                .where().eq("department_id", department);
+        List<PageSnapshot> old = query.query();
+        if (old.isEmpty())
+            return;
+        List<String> oldIds = new ArrayList<>();
+        for (PageSnapshot snapshot : old)
+            oldIds.add(Integer.toString(snapshot.getId()));
+        PageStore.snapshotDao.deleteIds(oldIds);
+        PageStore.deleteUnreferencedPages(PageStore.getHashes(old));
+    }
+
+    private static Set<String> getHashes(List<PageSnapshot> snapshots) {
+        Set<String> hashes = new HashSet<>();
+        for (PageSnapshot snapshot : snapshots)
+            hashes.add(snapshot.getHash());
+        return hashes;
+    }
+
+    /**
+     * Delete those of the given pages that no snapshot refers to any more.
+     * Only these pages are looked at, through the snapshots' hash index,
+     * rather than the whole store.
+     */
+    private static void deleteUnreferencedPages(Set<String> hashes) throws SQLException {
+        List<String> candidates = new ArrayList<>(hashes);
+        // Keep well inside SQLite's limit on bound parameters
+        for (int start = 0; start < candidates.size(); start += 500) {
+            List<String> chunk = candidates.subList(start, Math.min(start + 500, candidates.size()));
+            PageStore.contentDao.updateRaw(String.format("DELETE FROM page_content WHERE hash IN (%s) "
+                    + "AND NOT EXISTS (SELECT 1 FROM page_snapshot s WHERE s.hash = page_content.hash)",
+                    StringUtils.repeat("?", ", ", chunk.size())), chunk.toArray(new String[chunk.size()]));
+        }
+    }
+
+}
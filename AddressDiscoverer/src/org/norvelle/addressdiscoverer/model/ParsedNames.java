@@ -0,0 +1,93 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.norvelle.addressdiscoverer.exceptions.CantParseIndividualException;
+
+/**
+ * The outcome of parsing a batch of name chunks: for each chunk, in the order
+ * given, either the parsed name or the reason it could not be parsed.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ * @param <T> The kind of name parsed, Name or UnamName
+ */
+public class ParsedNames<T> {
+
+    private final Object[] names;
+    private final CantParseIndividualException[] failures;
+    private int numFailures = 0;
+
+    ParsedNames(int size) {
+        this.names = new Object[size];
+        this.failures = new CantParseIndividualException[size];
+    }
+
+    void setName(int i, T name) {
+        this.names[i] = name;
+    }
+
+    void setFailure(int i, CantParseIndividualException failure) {
+        this.failures[i] = failure;
+    }
+
+    /**
+     * Called once all the chunks have been parsed, from the thread that will
+     * read the results.
+     */
+    void finish() {
+        for (CantParseIndividualException failure : this.failures)
+            if (failure != null)
+                this.numFailures ++;
+    }
+
+    public int size() {
+        return this.names.length;
+    }
+
+    public boolean isParsed(int i) {
+        return this.failures[i] == null;
+    }
+
+    /**
+     * @param i The position of the chunk in the batch
+     * @return The name parsed from the chunk, or null if it could not be
+     */
+    @SuppressWarnings("unchecked")
+    public T getName(int i) {
+        return (T) this.names[i];
+    }
+
+    /**
+     * @param i The position of the chunk in the batch
+     * @return Why the chunk could not be parsed, or null if it was
+     */
+    public CantParseIndividualException getFailure(int i) {
+        return this.failures[i];
+    }
+
+    /**
+     * @return The names that could be parsed, in order
+     */
+    public List<T> getNames() {
+        List<T> parsed = new ArrayList<>(this.names.length - this.numFailures);
+        for (int i = 0; i < this.names.length; i ++)
+            if (this.isParsed(i))
+                parsed.add(this.getName(i));
+        return parsed;
+    }
+
+    public int getNumFailures() {
+        return this.numFailures;
+    }
+
+}
@@ -0,0 +1,85 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the number of rows in the institution, department and individual
+ * tables in a small row_count table, so that the status bar can show them
+ * without counting every row each time something changes. Triggers keep the
+ * counts in step with every insert and delete, whichever path makes them and
+ * in the same transaction; reconcile() recounts them outright, in case they
+ * ever drift.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class RowCounts {
+
+    public static final String TABLE = "row_count";
+
+    /**
+     * The tables whose rows are counted
+     */
+    public static final List<String> TABLES = Arrays.asList(
+            "institution", "department", "individual");
+
+    /**
+     * @return The statements that create the counts table, fill it with the
+     * current counts, and add the triggers that maintain it
+     */
+    static String[] getCreateStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.add(String.format(
+                "CREATE TABLE IF NOT EXISTS %s (name VARCHAR PRIMARY KEY, n BIGINT NOT NULL)", 
+                TABLE));
+        for (String table : TABLES) {
+            statements.add(String.format(
+                    "INSERT OR REPLACE INTO %s (name, n) SELECT '%s', COUNT(*) FROM %s",
+                    TABLE, table, table));
+            statements.add(String.format("CREATE TRIGGER %s_count_insert AFTER INSERT ON %s "
+                    + "BEGIN UPDATE %s SET n = n + 1 WHERE name = '%s'; END",
+                    table, table, TABLE, table));
+            statements.add(String.format("CREATE TRIGGER %s_count_delete AFTER DELETE ON %s "
+                    + "BEGIN UPDATE %s SET n = n - 1 WHERE name = '%s'; END",
+                    table, table, TABLE, table));
+        }
+        return statements.toArray(new String[statements.size()]);
+    }
+
+    /**
+     * @param table One of the TABLES
+     * @return The number of rows in the table
+     * @throws SQLException 
+     */
+    public static long getCount(String table) throws SQLException {
+        return Individual.getDao().queryRawValue(
+                "SELECT n FROM " + TABLE + " WHERE name = ?", table);
+    }
+
+    /**
+     * Recount every table and correct the stored counts. Each count is
+     * replaced in a single statement, so that no insert or delete made
+     * meanwhile can be lost.
+     * 
+     * @throws SQLException 
+     */
+    public static void reconcile() throws SQLException {
+        for (String table : TABLES)
+            Individual.getDao().updateRaw(String.format(
+                    "UPDATE %s SET n = (SELECT COUNT(*) FROM %s) WHERE name = '%s'", 
+                    TABLE, table, table));
+    }
+
+}
@@ -0,0 +1,215 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Brings the database schema up to date. ORMLite creates the tables but knows
+ * nothing about indexes or later changes, so each such change is written here
+ * as a numbered migration. The number of the last one applied is kept in
+ * SQLite's user_version pragma, and any newer ones are applied in order, each
+ * in its own transaction, whenever the database is attached. Migrations must
+ * only ever be appended to the list, never edited once released.
+ * 
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class SchemaMigrator {
+
+    // A logger instance
+    private static final Logger logger = Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); 
+
+    private static final List<Migration> migrations = new ArrayList<>();
+
+    static {
+        migrations.add(new SqlMigration("Index individuals by department",
+                "CREATE INDEX IF NOT EXISTS individual_department_idx ON individual (department_id)"));
+        migrations.add(new SqlMigration("Index individuals by exported flag",
+                "CREATE INDEX IF NOT EXISTS individual_exported_idx ON individual (exported)"));
+        migrations.add(new SqlMigration("Index individuals by email",
+                "CREATE INDEX IF NOT EXISTS individual_email_idx ON individual (email)"));
+        migrations.add(new SqlMigration("Index departments by institution",
+                "CREATE INDEX IF NOT EXISTS department_institution_idx ON department (institution_id)"));
+        for (String field : IndividualIndex.getFoldedFields())
+            migrations.add(new AddColumnMigration("Keep individuals' folded " + field,
+                    "individual", IndividualIndex.getFoldedColumn(field), "VARCHAR"));
+        migrations.add(new Migration("Fold individuals' indexed and sorted fields") {
+            @Override
+            public void apply(DatabaseConnection connection) throws SQLException {
+                IndividualIndex.fillFoldedColumns(connection, IndividualIndex.getFoldedFields());
+            }
+        });
+        migrations.add(new SqlMigration("Full-text index individuals",
+                IndividualIndex.getCreateStatements()));
+        migrations.add(new SqlMigration("Index individuals by their sort fields",
+                IndividualQuery.getIndexStatements()));
+        migrations.add(new AddColumnMigration("Refer departments to their stored page",
+                "department", "pageHash", "VARCHAR"));
+        migrations.add(new Migration("Move department pages into the page store") {
+            @Override
+            public void apply(DatabaseConnection connection) throws SQLException {
+                PageStore.importDepartmentHtml(connection);
+            }
+        });
+        migrations.add(new AddColumnMigration("Fingerprint departments' extracted pages",
+                "department", "pageFingerprint", "VARCHAR"));
+        migrations.add(new AddColumnMigration("Fingerprint departments' extraction settings",
+                "department", "extractorFingerprint", "VARCHAR"));
+        migrations.add(new AddColumnMigration("Simhash departments' extracted pages",
+                "department", "pageSimhash", "BIGINT"));
+        migrations.add(new SqlMigration("Count rows as they are inserted and deleted",
+                RowCounts.getCreateStatements()));
+    }
+
+    /**
+     * Apply every migration newer than the database's schema version. The
+     * tables must already have been created.
+     * 
+     * @param connectionSource The database to migrate
+     * @return The number of migrations applied
+     * @throws SQLException If a migration fails; it is rolled back, and the
+     * ones before it stay applied
+     */
+    public static int migrate(final ConnectionSource connectionSource) throws SQLException {
+        int version = SchemaMigrator.getVersion(connectionSource);
+        int applied = 0;
+        for (int i = version; i < migrations.size(); i ++) {
+            final Migration migration = migrations.get(i);
+            final int newVersion = i + 1;
+            logger.log(Level.INFO, "Migrating database to version {0}: {1}",
+                    new Object[] { newVersion, migration.getDescription() });
+            TransactionManager.callInTransaction(connectionSource, new Callable<Void>() {
+                @Override
+                public Void call() throws SQLException {
+                    DatabaseConnection connection = connectionSource.getReadWriteConnection();
+                    try {
+                        migration.apply(connection);
+                        connection.executeStatement("PRAGMA user_version = " + newVersion,
+                                DatabaseConnection.DEFAULT_RESULT_FLAGS);
+                    } finally {
+                        connectionSource.releaseConnection(connection);
+                    }
+                    return null;
+                }
+            });
+            applied ++;
+        }
+        return applied;
+    }
+
+    /**
+     * @return The number of the last migration applied to the database
+     */
+    public static int getVersion(ConnectionSource connectionSource) throws SQLException {
+        DatabaseConnection connection = connectionSource.getReadOnlyConnection();
+        try {
+            return (int) connection.queryForLong("PRAGMA user_version");
+        } finally {
+            connectionSource.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * @return The version a fully migrated database has
+     */
+    public static int getLatestVersion() {
+        return migrations.size();
+    }
+
+    // ===================== Migrations =============================
+
+    /**
+     * A single change to the schema.
+     */
+    public static abstract class Migration {
+
+        private final String description;
+
+        public Migration(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Make the change. This is called inside a transaction.
+         * 
+         * @param connection The connection to make it on
+         * @throws SQLException 
+         */
+        public abstract void apply(DatabaseConnection connection) throws SQLException;
+    }
+
+    /**
+     * A migration consisting of nothing but SQL statements.
+     */
+    public static class SqlMigration extends Migration {
+
+        private final String[] statements;
+
+        public SqlMigration(String description, String... statements) {
+            super(description);
+            this.statements = statements;
+        }
+
+        @Override
+        public void apply(DatabaseConnection connection) throws SQLException {
+            for (String statement : this.statements)
+                connection.executeStatement(statement, DatabaseConnection.DEFAULT_RESULT_FLAGS);
+        }
+    }
+
+    /**
+     * A migration adding a column to a table. ORMLite will already have
+     * created the column if the table is new, so it is only added if missing.
+     */
+    public static class AddColumnMigration extends Migration {
+
+        private final String table;
+        private final String column;
+        private final String type;
+
+        public AddColumnMigration(String description, String table, String column, String type) {
+            super(description);
+            this.table = table;
+            this.column = column;
+            this.type = type;
+        }
+
+        @Override
+        public void apply(DatabaseConnection connection) throws SQLException {
+            try (Statement stmt = ((JdbcDatabaseConnection) connection)
+                    .getInternalConnection().createStatement();
+                    ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + this.table + ")"))
+            {
+                while (rs.next())
+                    if (rs.getString("name").equalsIgnoreCase(this.column))
+                        return;
+            }
+            connection.executeStatement(String.format("ALTER TABLE %s ADD COLUMN %s %s",
+                    this.table, this.column, this.type), DatabaseConnection.DEFAULT_RESULT_FLAGS);
+        }
+    }
+
+}
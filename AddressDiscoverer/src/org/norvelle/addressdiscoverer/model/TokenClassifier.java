@@ -0,0 +1,139 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers what the dictionaries said about each word seen on a page, so
+ * that finding the names and then parsing them never asks a dictionary about
+ * the same word twice. Each word has a bitmask with one bit per kind of word,
+ * and a second bit per kind recording whether it has been looked up yet; a
+ * dictionary is only consulted the first time some parser asks about a word.
+ * 
+ * Words are kept exactly as they were asked about, since the dictionaries
+ * care about case and punctuation. A classifier belongs to a single page, but
+ * the names on that page may be parsed by several threads at once; should two
+ * of them ask about a new word at the same moment, both may look it up, and
+ * both will get the same answer.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class TokenClassifier {
+
+    // The kinds of words we can ask about
+    public static final int FIRST_NAME = 1;
+    public static final int LAST_NAME = 1 << 1;
+    public static final int SPANISH_WORD = 1 << 2;
+    public static final int TITLE = 1 << 3;
+    public static final int SUFFIX = 1 << 4;
+    public static final int PARTICLE = 1 << 5;
+    public static final int ALL_KINDS = (1 << 6) - 1;
+
+    // The bits saying which kinds have been looked up sit just above the kinds
+    private static final int LOOKED_UP_SHIFT = 6;
+
+    private final ConcurrentHashMap<String, Integer> classes = new ConcurrentHashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    public boolean isFirstName(String word) {
+        return this.is(word, FIRST_NAME);
+    }
+
+    public boolean isLastName(String word) {
+        return this.is(word, LAST_NAME);
+    }
+
+    public boolean isSpanishWord(String word) {
+        return this.is(word, SPANISH_WORD);
+    }
+
+    public boolean isTitle(String word) {
+        return this.is(word, TITLE);
+    }
+
+    public boolean isSuffix(String word) {
+        return this.is(word, SUFFIX);
+    }
+
+    public boolean isParticle(String word) {
+        return this.is(word, PARTICLE);
+    }
+
+    /**
+     * Determine whether a word is of the given kind, looking it up only if
+     * nobody has asked before.
+     * 
+     * @param word The word, as it appears in the text being parsed
+     * @param kind One of the kinds of word, such as FIRST_NAME
+     * @return True if the word is of that kind
+     */
+    public boolean is(String word, int kind) {
+        Boolean answer = null;
+        while (true) {
+            Integer known = this.classes.get(word);
+            int mask = known == null ? 0 : known;
+            if ((mask & (kind << LOOKED_UP_SHIFT)) != 0)
+                return (mask & kind) != 0;
+            if (answer == null)
+                answer = this.lookUp(word, kind);
+            
+            // Other kinds may have been filled in for the word meanwhile, so
+            // we only store ours if the mask is still the one we read.
+            int updated = mask | (kind << LOOKED_UP_SHIFT) | (answer ? kind : 0);
+            boolean stored = known == null 
+                    ? this.classes.putIfAbsent(word, updated) == null
+                    : this.classes.replace(word, known, updated);
+            if (stored)
+                return answer;
+        }
+    }
+
+    /**
+     * @param word A word
+     * @return The kinds the word has been found to be so far, as a bitmask
+     */
+    public int getClasses(String word) {
+        Integer known = this.classes.get(word);
+        return known == null ? 0 : known & ALL_KINDS;
+    }
+
+    /**
+     * @return The number of times a dictionary has been consulted
+     */
+    public int getLookups() {
+        return this.lookups.get();
+    }
+
+    // ===================== Private Methods =============================
+
+    private boolean lookUp(String word, int kind) {
+        this.lookups.incrementAndGet();
+        switch (kind) {
+            case FIRST_NAME:
+                return KnownFirstName.isFirstName(word);
+            case LAST_NAME:
+                return KnownLastName.isLastName(word);
+            case SPANISH_WORD:
+                return KnownSpanishWord.isWord(word);
+            case TITLE:
+                return NameTokenizer.isTitle(word);
+            case SUFFIX:
+                return NameTokenizer.isSuffix(word);
+            case PARTICLE:
+                return GrammarParticles.isGrammarParticle(word);
+            default:
+                throw new IllegalArgumentException("Not a single kind of word: " + kind);
+        }
+    }
+
+}
@@ -16,20 +16,21 @@ import java.util.List;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import org.apache.commons.lang3.StringUtils;
-import org.norvelle.addressdiscoverer.Constants;
 import org.norvelle.addressdiscoverer.exceptions.CantParseIndividualException;
 
 /**
  *
  * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
  */
-public class UnamName {
+public final class UnamName {
 
     private String firstName = "";
     private String lastName = "";
     private String rest = "";
     private String title = "";
     private String suffix = "";
+    private final String fullName;
+    private final TokenClassifier tokens;
     
     private static final Pattern hyphenatedPattern = Pattern.compile("^(.*)-(.*)$");
     
@@ -43,21 +44,22 @@ public class UnamName {
      * @throws org.norvelle.addressdiscoverer.exceptions.CantParseIndividualException 
      */
     public UnamName(String textChunk) throws CantParseIndividualException {
-        // Eliminate non-breaking spaces
-        textChunk = textChunk.replaceAll("\\xA0", " ");
+        this(textChunk, new TokenClassifier());
+    }
+    
+    /**
+     * Parse a name using what is already known about the words on its page.
+     * 
+     * @param textChunk A chunk of text that supposedly contains a name 
+     * @param tokens The classifier for the page the chunk comes from
+     * @throws org.norvelle.addressdiscoverer.exceptions.CantParseIndividualException 
+     */
+    public UnamName(String textChunk, TokenClassifier tokens) throws CantParseIndividualException {
+        this.tokens = tokens;
         
-        // Replace single quotes with apostrophes, to avoid SQL problems
-        textChunk = textChunk.replaceAll("'", "ʼ");
-        textChunk = textChunk.replaceAll("M en C", "").trim();
-        textChunk = textChunk.replaceAll("M\\. en C\\.", "").trim();
-
-        // Eliminate numbers... no use for them, but only ones that exist separately
-        // and not as part of emails.
-        textChunk = textChunk.replaceAll("\\b\\d+\\b", "").trim();
-
-        // eliminate commas and periods
-        textChunk = textChunk.replaceAll(",", "").trim();
-        textChunk = textChunk.replaceAll("\\.", "").trim();
+        // Eliminate non-breaking spaces, single quotes, the "M en C" degree,
+        // numbers that stand on their own, and all commas and periods
+        textChunk = NameTokenizer.cleanUnam(textChunk);
         
         String[] chunks = StringUtils.split(textChunk, " ");
         List<String> list = new ArrayList<String>(Arrays.asList(chunks));
@@ -66,7 +68,7 @@ public class UnamName {
         list = this.removeTitle(list);
         boolean firstNameEncountered = false;
         for (String word : list) {
-            if (KnownFirstName.isFirstName(word)) 
+            if (this.tokens.isFirstName(word)) 
                 firstNameEncountered = true;
             if (firstNameEncountered) 
                 this.firstName += word + " ";
@@ -83,10 +85,11 @@ public class UnamName {
         
         this.firstName = this.firstName.trim();
         this.lastName = this.lastName.trim();
+        this.fullName = this.firstName + " " + this.lastName;
     }
     
     private List<String> removeTitle(List<String> list) {
-        if (Constants.possibleTitles.contains(list.get(list.size() - 1))) 
+        if (this.tokens.isTitle(list.get(list.size() - 1))) 
             list.remove(list.size() - 1);
         return list;
     }
@@ -102,7 +105,7 @@ public class UnamName {
     }
 
     public String getFullName() {
-        return this.getFirstName() + " " + this.getLastName().trim();
+        return this.fullName;
     }
 
     public String getUnprocessed() {
@@ -110,7 +113,7 @@ public class UnamName {
     }
 
     public String getTitle() {
-        return title.trim();
+        return this.title;
     }
 
     @Override
@@ -11,7 +11,6 @@
 package org.norvelle.addressdiscoverer.parse;
 
 import java.io.UnsupportedEncodingException;
-import org.norvelle.addressdiscoverer.parse.structured.StructuredPageContactLinkLocator;
 import org.norvelle.utils.Utils;
 
 /**
@@ -20,22 +19,38 @@ import org.norvelle.utils.Utils;
  */
 public class ContactLinkLocator {
     
+    /**
+     * The base URL used by code that has no ExtractionContext to hand.
+     * Extractions should resolve links through their context instead, so
+     * that they do not interfere with each other.
+     */
     public static String baseUrl = null;
     
     public static String resolveAddress(String address) {
+        return resolveAddress(address, ContactLinkLocator.baseUrl);
+    }
+    
+    /**
+     * Turn a link into an absolute URL, relative to the given page.
+     * 
+     * @param address The link as found on the page
+     * @param baseUrl The URL of the page the link was found on
+     * @return The absolute, de-urlencoded URL
+     */
+    public static String resolveAddress(String address, String baseUrl) {
         String newAddress;
         // Do we already have a fully-formed URL?
         if (address.startsWith("http:")) {
             newAddress = address;
         }
         // Change https to http
-        if (address.startsWith("https:")) {
+        else if (address.startsWith("https:")) {
             newAddress = address;
             //    newAddress = address.replace("https:", "http:");
             // Now check is we have an absolute path but no protocol
         } else if (address.startsWith("/")) {
-            int slashslash = StructuredPageContactLinkLocator.baseUrl.indexOf("//") + 2;
-            String domainAndProtocol = StructuredPageContactLinkLocator.baseUrl.substring(0, StructuredPageContactLinkLocator.baseUrl.indexOf('/', slashslash));
+            int slashslash = baseUrl.indexOf("//") + 2;
+            String domainAndProtocol = baseUrl.substring(0, baseUrl.indexOf('/', slashslash));
             String fullUrl = domainAndProtocol + address;
             newAddress = fullUrl;
         }
@@ -44,8 +59,8 @@ public class ContactLinkLocator {
             if (address.startsWith("./")) {
                 address = address.substring(2);
             }
-            int lastSlash = StructuredPageContactLinkLocator.baseUrl.lastIndexOf("/");
-            String choppedUrl = StructuredPageContactLinkLocator.baseUrl.substring(0, lastSlash + 1);
+            int lastSlash = baseUrl.lastIndexOf("/");
+            String choppedUrl = baseUrl.substring(0, lastSlash + 1);
             String fullUrl = choppedUrl + address;
             newAddress = fullUrl;
         }
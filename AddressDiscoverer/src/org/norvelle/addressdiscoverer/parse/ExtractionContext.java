@@ -0,0 +1,104 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.parse;
+
+import org.norvelle.addressdiscoverer.fetch.FetchScheduler;
+import org.norvelle.addressdiscoverer.gui.threading.ExtractIndividualsStatusReporter;
+import org.norvelle.addressdiscoverer.model.ExtractionStatistics;
+import org.norvelle.addressdiscoverer.model.TokenClassifier;
+
+/**
+ * Everything a single extraction needs to know about the page it is working
+ * on: the URL that relative links are resolved against, the page's encoding,
+ * where to report progress, which scheduler to fetch linked pages through,
+ * which run's statistics to count them in and what the dictionaries have
+ * already said about the words on it.
+ * It is handed to the finders, which pass it on to the name elements and
+ * contact links they create, so that several extractions can run at once.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class ExtractionContext {
+
+    private final String baseUrl;
+    private final String encoding;
+    private final ExtractIndividualsStatusReporter status;
+    private final FetchScheduler fetchScheduler;
+    private final ExtractionStatistics statistics;
+    private final TokenClassifier tokenClassifier = new TokenClassifier();
+
+    /**
+     * @param baseUrl The URL to resolve relative links against, or null to
+     * fall back to the global ContactLinkLocator.baseUrl
+     * @param encoding The encoding of the page
+     * @param status Where to report progress, possibly null
+     * @param fetchScheduler The scheduler used to fetch linked pages
+     */
+    public ExtractionContext(String baseUrl, String encoding,
+            ExtractIndividualsStatusReporter status, FetchScheduler fetchScheduler)
+    {
+        this(baseUrl, encoding, status, fetchScheduler, new ExtractionStatistics());
+    }
+
+    /**
+     * @param baseUrl The URL to resolve relative links against, or null to
+     * fall back to the global ContactLinkLocator.baseUrl
+     * @param encoding The encoding of the page
+     * @param status Where to report progress, possibly null
+     * @param fetchScheduler The scheduler used to fetch linked pages
+     * @param statistics The totals of the extraction run this page belongs to
+     */
+    public ExtractionContext(String baseUrl, String encoding,
+            ExtractIndividualsStatusReporter status, FetchScheduler fetchScheduler,
+            ExtractionStatistics statistics)
+    {
+        this.baseUrl = baseUrl;
+        this.encoding = encoding;
+        this.status = status;
+        this.fetchScheduler = fetchScheduler;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Turn a link found on the page into an absolute URL.
+     *
+     * @param address The link as it appears on the page
+     * @return The absolute URL
+     */
+    public String resolveAddress(String address) {
+        return ContactLinkLocator.resolveAddress(address, this.getBaseUrl());
+    }
+
+    public String getBaseUrl() {
+        return this.baseUrl == null ? ContactLinkLocator.baseUrl : this.baseUrl;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public ExtractIndividualsStatusReporter getStatus() {
+        return status;
+    }
+
+    public FetchScheduler getFetchScheduler() {
+        return fetchScheduler;
+    }
+
+    public ExtractionStatistics getStatistics() {
+        return statistics;
+    }
+
+    public TokenClassifier getTokenClassifier() {
+        return tokenClassifier;
+    }
+
+}
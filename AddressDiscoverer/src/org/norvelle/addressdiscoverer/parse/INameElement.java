@@ -30,6 +30,11 @@ public interface INameElement {
 
     UnamName getUnamName() throws CantParseIndividualException;
 
+    /**
+     * @return The text the name is parsed from, for parsing in a batch
+     */
+    String getNameText();
+
     void setContactLink(StructuredPageEmailContactLink link);
     
     public Element getNameContainingElement();
@@ -0,0 +1,221 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.parse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.norvelle.addressdiscoverer.Constants;
+import org.norvelle.addressdiscoverer.fetch.FetchedPage;
+import org.norvelle.addressdiscoverer.model.ExtractionStatistics;
+
+/**
+ * Scans a page for email addresses while its bytes are still arriving, so that
+ * detail pages fetched from weblinks never have to be held in memory or parsed
+ * into a DOM. Reading stops as soon as a mailto: link is seen, since that is
+ * the address the page is advertising, or once the byte cap has been reached.
+ * If no mailto: link turns up, all distinct addresses found in the portion read
+ * are returned, as the old DOM-based code did. As with the DOM-based code, only
+ * the body is searched: the head and any script or style blocks are skipped.
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class StreamingEmailExtractor {
+
+    /**
+     * The maximum number of bytes we will read from any single page
+     */
+    public static int defaultByteCap = 256 * 1024;
+
+    private static final Pattern emailPattern = Pattern.compile(Constants.emailRegex);
+    private static final String MAILTO = "mailto:";
+    private static final int CHUNK_SIZE = 8192;
+
+    // The amount of trailing text kept between chunks so that an address, or
+    // the mailto: in front of it, split across two reads is still found.
+    private static final int OVERLAP = 512;
+
+    // The tags whose content is skipped, and the markers that end them. A
+    // head without a closing tag ends where the body starts.
+    private static final Pattern skippedStart = Pattern.compile(
+            "<(head|script|style)[\\s/>]", Pattern.CASE_INSENSITIVE);
+    private static final Pattern headEnd = Pattern.compile(
+            "</head\\s*>|<body[\\s/>]", Pattern.CASE_INSENSITIVE);
+    private static final Pattern scriptEnd = Pattern.compile(
+            "</script\\s*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern styleEnd = Pattern.compile(
+            "</style\\s*>", Pattern.CASE_INSENSITIVE);
+
+    // The amount of unfiltered text held back so that a tag split across two
+    // reads is still recognized.
+    private static final int TAG_OVERLAP = 16;
+
+    private final ExtractionStatistics statistics;
+    private final int byteCap;
+
+    public StreamingEmailExtractor() {
+        this(new ExtractionStatistics());
+    }
+
+    public StreamingEmailExtractor(ExtractionStatistics statistics) {
+        this(statistics, defaultByteCap);
+    }
+
+    public StreamingEmailExtractor(ExtractionStatistics statistics, int byteCap) {
+        this.statistics = statistics;
+        this.byteCap = byteCap;
+    }
+
+    /**
+     * Scan a fetched page, as below. Its advertised length is only used to
+     * count the bytes skipped if the page was sent without a Content-Encoding,
+     * since otherwise it is the length of the gzip or deflate stream rather
+     * than of the page.
+     *
+     * @param page The page, whose body has not been read yet
+     * @return As for {@link #extract(InputStream, String, long)}
+     * @throws IOException
+     */
+    public String extract(FetchedPage page) throws IOException {
+        long contentLength = page.getContentEncoding() == null 
+                ? page.getContentLength() : -1;
+        return this.extract(page.getBody(), page.getCharset(), contentLength);
+    }
+
+    /**
+     * Read the stream until a confident match is found, the byte cap is reached
+     * or the stream ends, and return what was found.
+     *
+     * @param in The raw page bytes
+     * @param encoding The character set to decode them with
+     * @param contentLength The length of the page's decoded bytes, or -1 if
+     * unknown
+     * @return The mailto: address, or a comma-separated list of all addresses
+     * found, or an empty string if there were none.
+     * @throws IOException
+     */
+    public String extract(InputStream in, String encoding, long contentLength)
+            throws IOException
+    {
+        CountingInputStream counter = new CountingInputStream(in);
+        Reader reader = new InputStreamReader(
+                new BoundedInputStream(counter, this.byteCap), encoding);
+        LinkedHashSet<String> emails = new LinkedHashSet<>();
+        StringBuilder raw = new StringBuilder();
+        StringBuilder window = new StringBuilder();
+        Pattern skipUntil = null;
+        char[] buffer = new char[CHUNK_SIZE];
+        String confident = null;
+        boolean finished = false;
+
+        while (confident == null && !finished) {
+            int numRead = reader.read(buffer);
+            if (numRead == -1)
+                finished = true;
+            else
+                raw.append(buffer, 0, numRead);
+            skipUntil = this.filter(raw, window, skipUntil, finished);
+
+            // A match touching the end of the window may still grow with the
+            // next chunk, so we only accept it once the stream is finished.
+            int keepFrom = Math.max(0, window.length() - OVERLAP);
+            Matcher matcher = emailPattern.matcher(window);
+            while (matcher.find()) {
+                if (!finished && matcher.end() == window.length()) {
+                    keepFrom = Math.min(keepFrom, 
+                            Math.max(0, matcher.start() - MAILTO.length()));
+                    break;
+                }
+                String email = matcher.group();
+                int start = matcher.start();
+                if (start >= MAILTO.length() && window.substring(
+                        start - MAILTO.length(), start).equalsIgnoreCase(MAILTO))
+                {
+                    confident = email;
+                    break;
+                }
+                emails.add(email);
+                keepFrom = Math.max(keepFrom, matcher.end());
+            }
+            window.delete(0, Math.min(keepFrom, window.length()));
+        }
+
+        this.statistics.recordScan(counter.getByteCount(), contentLength, 
+                confident != null);
+        if (confident != null)
+            return confident;
+        return StringUtils.join(emails, ", ");
+    }
+
+    // ===================== Private Methods =============================
+
+    /**
+     * Move the text in raw that lies outside the head and any script or style
+     * blocks onto the end of window, holding back a short tail that may be the
+     * start of a tag still arriving.
+     *
+     * @param raw The text read but not yet filtered
+     * @param window The text waiting to be scanned for addresses
+     * @param skipUntil The end marker of the block being skipped, or null
+     * @param finished Whether the stream has ended
+     * @return The end marker of the block being skipped afterwards, or null
+     */
+    private Pattern filter(StringBuilder raw, StringBuilder window, 
+            Pattern skipUntil, boolean finished) 
+    {
+        while (raw.length() > 0) {
+            if (skipUntil != null) {
+                Matcher matcher = skipUntil.matcher(raw);
+                if (!matcher.find()) {
+                    raw.delete(0, finished ? raw.length() 
+                            : Math.max(0, raw.length() - TAG_OVERLAP));
+                    break;
+                }
+                raw.delete(0, matcher.end());
+                skipUntil = null;
+                continue;
+            }
+            Matcher matcher = skippedStart.matcher(raw);
+            if (!matcher.find()) {
+                int flushTo = finished ? raw.length() 
+                        : Math.max(0, raw.length() - TAG_OVERLAP);
+                window.append(raw, 0, flushTo);
+                raw.delete(0, flushTo);
+                break;
+            }
+            // The space keeps text on either side of the block from being
+            // joined into a single address.
+            String tag = matcher.group(1).toLowerCase(Locale.ROOT);
+            window.append(raw, 0, matcher.start()).append(' ');
+            raw.delete(0, matcher.end());
+            switch (tag) {
+                case "head":
+                    skipUntil = headEnd;
+                    break;
+                case "script":
+                    skipUntil = scriptEnd;
+                    break;
+                default:
+                    skipUntil = styleEnd;
+            }
+        }
+        return skipUntil;
+    }
+
+}
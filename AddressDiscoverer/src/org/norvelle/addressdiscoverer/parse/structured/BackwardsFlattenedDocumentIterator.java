@@ -26,6 +26,7 @@ import org.jsoup.nodes.TextNode;
 import org.norvelle.addressdiscoverer.gui.threading.ExtractIndividualsStatusReporter;
 import org.norvelle.addressdiscoverer.exceptions.EndNodeWalkingException;
 import org.norvelle.addressdiscoverer.model.Name;
+import org.norvelle.addressdiscoverer.model.TokenClassifier;
 import org.norvelle.utils.Utils;
 
 /**
@@ -46,6 +47,7 @@ public class BackwardsFlattenedDocumentIterator
     private final List<Node> allNodes = new ArrayList<>(); 
     private int currPosition;
     private final ExtractIndividualsStatusReporter status;
+    private final TokenClassifier tokens;
     private static int counter = 0;
 
     /**
@@ -61,8 +63,28 @@ public class BackwardsFlattenedDocumentIterator
     public BackwardsFlattenedDocumentIterator(Document soup, String encoding, 
             ExtractIndividualsStatusReporter status) 
             throws UnsupportedEncodingException, EndNodeWalkingException 
+    {
+        this(soup, encoding, status, new TokenClassifier());
+    }
+    
+    /**
+     * Generate the iterator, recording what the dictionaries say about each
+     * word in the given classifier, so that the names found can later be
+     * parsed without looking the same words up again.
+     * 
+     * @param soup
+     * @param encoding
+     * @param status
+     * @param tokens The classifier for this page
+     * @throws java.io.UnsupportedEncodingException
+     * @throws org.norvelle.addressdiscoverer.exceptions.EndNodeWalkingException
+     */
+    public BackwardsFlattenedDocumentIterator(Document soup, String encoding, 
+            ExtractIndividualsStatusReporter status, TokenClassifier tokens) 
+            throws UnsupportedEncodingException, EndNodeWalkingException 
     {
         this.status = status;
+        this.tokens = tokens;
         this.status.setTotalNumericSteps(soup.getAllElements().size());
         
         // First we generate the flattened list of elements
@@ -97,7 +119,7 @@ public class BackwardsFlattenedDocumentIterator
                     counter ++;
                     if (processedString.trim().isEmpty()) isName = false;
                     else 
-                        isName = Name.isName(processedString);
+                        isName = Name.isName(processedString, this.tokens);
                 }
                 catch (Exception ex) {
                     logger.log(Level.SEVERE, ex.getMessage());
@@ -107,7 +129,7 @@ public class BackwardsFlattenedDocumentIterator
                             ex.getMessage()));
                 }
                 if (isName)
-                    this.status.reportProgressText("Found name: " + processedString);
+                    this.status.incrementNamesFound();
                 if (!this.elementsWithNames.contains((Element) currNode) && isName) {
                     this.elementsWithNames.add(0, (Element) currNode);
                     /*this.status.reportProgressText(
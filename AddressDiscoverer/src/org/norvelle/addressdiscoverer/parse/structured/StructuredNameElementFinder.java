@@ -18,6 +18,8 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.norvelle.addressdiscoverer.gui.threading.ExtractIndividualsStatusReporter;
 import org.norvelle.addressdiscoverer.exceptions.EndNodeWalkingException;
+import org.norvelle.addressdiscoverer.fetch.FetchScheduler;
+import org.norvelle.addressdiscoverer.parse.ExtractionContext;
 import org.norvelle.addressdiscoverer.parse.INameElement;
 
 /**
@@ -29,13 +31,31 @@ public class StructuredNameElementFinder implements INameElementFinder {
     
     private final List<INameElement> nameElements;
     private final int numberOfNames;
+    private final ExtractionContext context;
     
+    /**
+     * Find the names on a page whose links resolve against the global
+     * ContactLinkLocator.baseUrl.
+     * 
+     * @param soup
+     * @param encoding
+     * @param status
+     * @throws UnsupportedEncodingException
+     * @throws EndNodeWalkingException 
+     */
     public StructuredNameElementFinder(Document soup, String encoding, 
             ExtractIndividualsStatusReporter status) 
             throws UnsupportedEncodingException, EndNodeWalkingException 
     {
-        BackwardsFlattenedDocumentIterator nameNodes = 
-                new BackwardsFlattenedDocumentIterator(soup, encoding, status);
+        this(soup, new ExtractionContext(null, encoding, status, FetchScheduler.getShared()));
+    }
+    
+    public StructuredNameElementFinder(Document soup, ExtractionContext context) 
+            throws UnsupportedEncodingException, EndNodeWalkingException 
+    {
+        this.context = context;
+        BackwardsFlattenedDocumentIterator nameNodes = new BackwardsFlattenedDocumentIterator(
+                soup, context.getEncoding(), context.getStatus(), context.getTokenClassifier());
         this.nameElements = this.generateNameElements(nameNodes);
         this.numberOfNames = nameElements.size();
     }
@@ -65,7 +85,7 @@ public class StructuredNameElementFinder implements INameElementFinder {
         List<INameElement> myNameElements = new ArrayList<>();
         
         for (Element jsoupNameElement : jsoupNameElementIterator) {
-            StructuredPageNameElement nameElement = new StructuredPageNameElement(jsoupNameElement);
+            StructuredPageNameElement nameElement = new StructuredPageNameElement(jsoupNameElement, this.context);
             myNameElements.add(nameElement);
         }
         
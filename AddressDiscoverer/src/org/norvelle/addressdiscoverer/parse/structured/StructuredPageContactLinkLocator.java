@@ -12,6 +12,7 @@ package org.norvelle.addressdiscoverer.parse.structured;
 
 import org.norvelle.addressdiscoverer.parse.ContactLink;
 import org.norvelle.addressdiscoverer.parse.ContactLinkLocator;
+import org.norvelle.addressdiscoverer.parse.ExtractionContext;
 import java.io.UnsupportedEncodingException;
 import org.jsoup.nodes.Element;
 import org.norvelle.addressdiscoverer.exceptions.DoesNotContainContactLinkException;
@@ -30,7 +31,7 @@ import org.norvelle.utils.Utils;
  */
 public class StructuredPageContactLinkLocator extends ContactLinkLocator {
     
-    public static ContactLink findLinkForNameElement(INameElement nm) 
+    public static ContactLink findLinkForNameElement(INameElement nm, ExtractionContext context) 
             throws MultipleContactLinksOfSameTypeFoundException, DoesNotContainContactLinkException 
     {
         int i = 0;
@@ -53,7 +54,7 @@ public class StructuredPageContactLinkLocator extends ContactLinkLocator {
         i = 0;
         while (i < 5) {
             try {
-                StructuredPageWebContactLink link = new StructuredPageWebContactLink(currElement);
+                StructuredPageWebContactLink link = new StructuredPageWebContactLink(currElement, context);
                 return link;
             } catch (DoesNotContainContactLinkException ex) {
                 currElement = currElement.parent();
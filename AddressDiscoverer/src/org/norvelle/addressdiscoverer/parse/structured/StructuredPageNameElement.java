@@ -11,6 +11,7 @@
 package org.norvelle.addressdiscoverer.parse.structured;
 
 import org.norvelle.addressdiscoverer.parse.ContactLink;
+import org.norvelle.addressdiscoverer.parse.ExtractionContext;
 import org.norvelle.addressdiscoverer.parse.INameElement;
 import org.jsoup.nodes.Element;
 import org.norvelle.addressdiscoverer.exceptions.CantParseIndividualException;
@@ -27,9 +28,11 @@ public class StructuredPageNameElement implements INameElement {
     
     private final Element nameContainingJsoupElement;
     private StructuredPageEmailContactLink link;
+    private final ExtractionContext context;
     
-    public StructuredPageNameElement(Element element) {
+    public StructuredPageNameElement(Element element, ExtractionContext context) {
         this.nameContainingJsoupElement = element;
+        this.context = context;
     }
     
     @Override
@@ -42,18 +45,25 @@ public class StructuredPageNameElement implements INameElement {
             throws MultipleContactLinksOfSameTypeFoundException, 
             DoesNotContainContactLinkException 
     {
-        ContactLink link = StructuredPageContactLinkLocator.findLinkForNameElement(this);
+        ContactLink link = StructuredPageContactLinkLocator.findLinkForNameElement(this, this.context);
         return link;
     }
     
     @Override
     public Name getName() throws CantParseIndividualException {
-        return new Name(this.nameContainingJsoupElement.ownText());
+        return new Name(this.nameContainingJsoupElement.ownText(), 
+                this.context.getTokenClassifier());
     }
     
     @Override
     public UnamName getUnamName() throws CantParseIndividualException {
-        return new UnamName(this.nameContainingJsoupElement.ownText());
+        return new UnamName(this.nameContainingJsoupElement.ownText(), 
+                this.context.getTokenClassifier());
+    }
+    
+    @Override
+    public String getNameText() {
+        return this.nameContainingJsoupElement.ownText();
     }
     
     public Element getNameContainingElement() {
@@ -29,6 +29,7 @@ import org.jsoup.nodes.TextNode;
 import org.norvelle.addressdiscoverer.gui.threading.ExtractIndividualsStatusReporter;
 import org.norvelle.addressdiscoverer.exceptions.EndNodeWalkingException;
 import org.norvelle.addressdiscoverer.model.Name;
+import org.norvelle.addressdiscoverer.model.TokenClassifier;
 import org.norvelle.utils.Utils;
 
 /**
@@ -52,6 +53,7 @@ public class ForwardsFlattenedDocumentIterator
     private Element lastNameContainingElement;
     private int currPosition;
     private final ExtractIndividualsStatusReporter status;
+    private final TokenClassifier tokens;
     private static int counter = 0;
 
     /**
@@ -67,8 +69,28 @@ public class ForwardsFlattenedDocumentIterator
     public ForwardsFlattenedDocumentIterator(Document soup, String encoding, 
             ExtractIndividualsStatusReporter status) 
             throws UnsupportedEncodingException, EndNodeWalkingException 
+    {
+        this(soup, encoding, status, new TokenClassifier());
+    }
+    
+    /**
+     * Generate the iterator, recording what the dictionaries say about each
+     * word in the given classifier, so that the names found can later be
+     * parsed without looking the same words up again.
+     * 
+     * @param soup
+     * @param encoding
+     * @param status
+     * @param tokens The classifier for this page
+     * @throws java.io.UnsupportedEncodingException
+     * @throws org.norvelle.addressdiscoverer.exceptions.EndNodeWalkingException
+     */
+    public ForwardsFlattenedDocumentIterator(Document soup, String encoding, 
+            ExtractIndividualsStatusReporter status, TokenClassifier tokens) 
+            throws UnsupportedEncodingException, EndNodeWalkingException 
     {
         this.status = status;
+        this.tokens = tokens;
         this.status.setTotalNumericSteps(soup.getAllElements().size());
         
         // First we generate the flattened list of elements
@@ -104,9 +126,9 @@ public class ForwardsFlattenedDocumentIterator
                 String htmlEncodedString = WordUtils.capitalizeFully(textChild.getWholeText());
                 String processedString = Utils.decodeHtml(htmlEncodedString, encoding);
                 if (processedString.trim().isEmpty()) continue;
-                boolean isName = Name.isName(processedString);
+                boolean isName = Name.isName(processedString, this.tokens);
                 if (isName) {
-                    this.status.reportProgressText("Found name: " + processedString);
+                    this.status.incrementNamesFound();
                     if (!this.elementsWithNames.contains((Element) currNode)) {
                         this.elementsWithNames.add(0, (Element) currNode);
                         if (lastNameContainingElement != null) 
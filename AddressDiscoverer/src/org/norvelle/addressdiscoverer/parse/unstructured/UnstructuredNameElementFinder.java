@@ -18,6 +18,8 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.norvelle.addressdiscoverer.gui.threading.ExtractIndividualsStatusReporter;
 import org.norvelle.addressdiscoverer.exceptions.EndNodeWalkingException;
+import org.norvelle.addressdiscoverer.fetch.FetchScheduler;
+import org.norvelle.addressdiscoverer.parse.ExtractionContext;
 import org.norvelle.addressdiscoverer.parse.INameElement;
 
 /**
@@ -30,12 +32,31 @@ public class UnstructuredNameElementFinder implements INameElementFinder {
     private final List<INameElement> nameElements;
     private final int numberOfNames;
     private final ForwardsFlattenedDocumentIterator nameNodes;
+    private final ExtractionContext context;
     
+    /**
+     * Find the names on a page whose links resolve against the global
+     * ContactLinkLocator.baseUrl.
+     * 
+     * @param soup
+     * @param encoding
+     * @param status
+     * @throws UnsupportedEncodingException
+     * @throws EndNodeWalkingException 
+     */
     public UnstructuredNameElementFinder(Document soup, String encoding, 
             ExtractIndividualsStatusReporter status) 
             throws UnsupportedEncodingException, EndNodeWalkingException 
     {
-        nameNodes = new ForwardsFlattenedDocumentIterator(soup, encoding, status);
+        this(soup, new ExtractionContext(null, encoding, status, FetchScheduler.getShared()));
+    }
+    
+    public UnstructuredNameElementFinder(Document soup, ExtractionContext context) 
+            throws UnsupportedEncodingException, EndNodeWalkingException 
+    {
+        this.context = context;
+        nameNodes = new ForwardsFlattenedDocumentIterator(
+                soup, context.getEncoding(), context.getStatus(), context.getTokenClassifier());
         this.nameElements = this.generateNameElements(nameNodes);
         this.numberOfNames = nameElements.size();
     }
@@ -65,7 +86,7 @@ public class UnstructuredNameElementFinder implements INameElementFinder {
         for (Element jsoupNameElement : jsoupNameElementIterator) {
             List<String> intermediateValues = this.nameNodes.getIntermediateElementMap(jsoupNameElement);
             UnstructuredPageNameElement nameElement = 
-                    new UnstructuredPageNameElement(jsoupNameElement, intermediateValues);
+                    new UnstructuredPageNameElement(jsoupNameElement, intermediateValues, this.context);
             myNameElements.add(nameElement);
         }
         
@@ -15,6 +15,7 @@ import org.norvelle.addressdiscoverer.parse.structured.StructuredPageWebContactL
 import org.norvelle.addressdiscoverer.parse.structured.StructuredPageEmailContactLink;
 import org.norvelle.addressdiscoverer.parse.structured.*;
 import org.norvelle.addressdiscoverer.parse.ContactLinkLocator;
+import org.norvelle.addressdiscoverer.parse.ExtractionContext;
 import java.io.UnsupportedEncodingException;
 import java.util.List;
 import org.jsoup.nodes.Element;
@@ -34,9 +35,7 @@ import org.norvelle.utils.Utils;
  */
 public class UnstructuredPageContactLinkLocator extends ContactLinkLocator {
     
-    public static String baseUrl = null;
-    
-    public static ContactLink findLinkForNameElement(INameElement nm) 
+    public static ContactLink findLinkForNameElement(INameElement nm, ExtractionContext context) 
             throws DoesNotContainContactLinkException, 
             MultipleContactLinksOfSameTypeFoundException 
     {
@@ -59,7 +58,7 @@ public class UnstructuredPageContactLinkLocator extends ContactLinkLocator {
         // Now check for href elements.
         for (String el : intermediateValues) {
             try {
-                UnstructuredPageWebContactLink link = new UnstructuredPageWebContactLink(el);
+                UnstructuredPageWebContactLink link = new UnstructuredPageWebContactLink(el, context);
                 return link;
             } catch (DoesNotContainContactLinkException ex) {
                 //
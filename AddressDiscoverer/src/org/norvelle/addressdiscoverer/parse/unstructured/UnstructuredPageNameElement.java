@@ -11,6 +11,7 @@
 package org.norvelle.addressdiscoverer.parse.unstructured;
 
 import org.norvelle.addressdiscoverer.parse.ContactLink;
+import org.norvelle.addressdiscoverer.parse.ExtractionContext;
 import org.norvelle.addressdiscoverer.parse.structured.StructuredPageEmailContactLink;
 import org.norvelle.addressdiscoverer.parse.structured.*;
 import org.norvelle.addressdiscoverer.parse.INameElement;
@@ -32,10 +33,14 @@ public class UnstructuredPageNameElement implements INameElement {
     private final Element nameContainingJsoupElement;
     private StructuredPageEmailContactLink link;
     private final List<String> intermediateValues;
+    private final ExtractionContext context;
     
-    public UnstructuredPageNameElement(Element element, List<String> intermediateValues) {
+    public UnstructuredPageNameElement(Element element, List<String> intermediateValues,
+            ExtractionContext context) 
+    {
         this.nameContainingJsoupElement = element;
         this.intermediateValues = intermediateValues;
+        this.context = context;
     }
     
     @Override
@@ -48,18 +53,25 @@ public class UnstructuredPageNameElement implements INameElement {
             throws DoesNotContainContactLinkException,
             MultipleContactLinksOfSameTypeFoundException  
     {
-        ContactLink link = UnstructuredPageContactLinkLocator.findLinkForNameElement(this);
+        ContactLink link = UnstructuredPageContactLinkLocator.findLinkForNameElement(this, this.context);
         return link; 
     }
     
     @Override
     public Name getName() throws CantParseIndividualException {
-        return new Name(this.nameContainingJsoupElement.ownText());
+        return new Name(this.nameContainingJsoupElement.ownText(), 
+                this.context.getTokenClassifier());
     }
     
     @Override
     public UnamName getUnamName() throws CantParseIndividualException {
-        return new UnamName(this.nameContainingJsoupElement.ownText());
+        return new UnamName(this.nameContainingJsoupElement.ownText(), 
+                this.context.getTokenClassifier());
+    }
+    
+    @Override
+    public String getNameText() {
+        return this.nameContainingJsoupElement.ownText();
     }
     
     public Element getNameContainingElement() {
@@ -12,25 +12,25 @@ package org.norvelle.addressdiscoverer.parse.unstructured;
 
 import org.norvelle.addressdiscoverer.parse.structured.*;
 import java.io.IOException;
-import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.net.URLConnection;
+import java.net.UnknownHostException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import org.norvelle.addressdiscoverer.Constants;
+import org.norvelle.addressdiscoverer.fetch.FetchedPage;
 import org.norvelle.addressdiscoverer.exceptions.DoesNotContainContactLinkException;
+import org.norvelle.addressdiscoverer.exceptions.HttpStatusException;
+import org.norvelle.addressdiscoverer.exceptions.LinkFetchFailedException;
 import org.norvelle.addressdiscoverer.exceptions.MultipleContactLinksOfSameTypeFoundException;
 import org.norvelle.addressdiscoverer.parse.ContactLink;
-import org.norvelle.addressdiscoverer.parse.structured.StructuredPageContactLinkLocator;
+import org.norvelle.addressdiscoverer.parse.ExtractionContext;
+import org.norvelle.addressdiscoverer.model.ExtractionStatistics;
+import org.norvelle.addressdiscoverer.parse.StreamingEmailExtractor;
 
 /**
  *
@@ -40,19 +40,23 @@ public class UnstructuredPageWebContactLink extends ContactLink {
     
     protected static final Pattern weblinkPattern = Pattern.compile(Constants.weblinkRegex);
     
+    private final ExtractionContext context;
+    
     /**
      * Attempt to find a URL-type link associated with the given Jsoup Element,
      * by looking at all the HREF attributes of the various subelements.
      * 
      * @param element
+     * @param context The extraction the link was found in
      * @throws DoesNotContainContactLinkException
      * @throws MultipleContactLinksOfSameTypeFoundException 
      */
-    public UnstructuredPageWebContactLink(String content) 
+    public UnstructuredPageWebContactLink(String content, ExtractionContext context) 
             throws DoesNotContainContactLinkException, 
             MultipleContactLinksOfSameTypeFoundException 
     {
         super(null);
+        this.context = context;
         ArrayList<String> hrefs = new ArrayList();
         String[] contentParts = StringUtils.split(content, "\n");
         for (String part : contentParts) {
@@ -78,48 +82,42 @@ public class UnstructuredPageWebContactLink extends ContactLink {
      * 
      * @return 
      * @throws org.norvelle.addressdiscoverer.exceptions.DoesNotContainContactLinkException 
+     * If no email was found; a LinkFetchFailedException if the page could not
+     * be fetched but might be later
      */
     public String fetchEmailFromWeblink() throws DoesNotContainContactLinkException  {
-        String body;
+        String matchFound;
         
         if (this.address.startsWith("javascript:"))
             throw new DoesNotContainContactLinkException(); 
         
-        // Try to fetch the webpage linked to
+        // Try to fetch the webpage linked to, scanning it for emails as it
+        // arrives rather than building a document out of it first.
         try {
-            String addr = StructuredPageContactLinkLocator.resolveAddress(this.address);
+            String addr = this.context.resolveAddress(this.address);
             URL u = new URL(addr); 
             u.toURI();
-            URLConnection con = u.openConnection();
-            InputStream in = con.getInputStream();
-            String encoding = con.getContentEncoding();
-            encoding = encoding == null ? "UTF-8" : encoding;
-            String html = IOUtils.toString(in, encoding);
-            Document soup = Jsoup.parse(html);
-            Element bodyElement = soup.select("body").first();
-            body = bodyElement.html();
-        } catch (URISyntaxException | IOException ex) {
+            ExtractionStatistics statistics = this.context.getStatistics();
+            try (FetchedPage page = this.context.getFetchScheduler().fetch(u, statistics)) {
+                matchFound = new StreamingEmailExtractor(statistics).extract(page);
+            }
+        } catch (URISyntaxException | MalformedURLException | UnknownHostException ex) {
+            throw new DoesNotContainContactLinkException(); 
+        } catch (HttpStatusException ex) {
+            if (ex.isTransient())
+                throw new LinkFetchFailedException(ex.getMessage());
             throw new DoesNotContainContactLinkException(); 
+        } catch (IOException ex) {
+            throw new LinkFetchFailedException(ex.getMessage());
         }
         
-        // Now, extract the email if we can.
-        String matchFound = this.findEmail(body);
+        // Now, report the email if we found one.
         if (matchFound.isEmpty()) {
             throw new DoesNotContainContactLinkException();                
         }
         return matchFound;
     }
     
-    private String findEmail(String text) {
-        Matcher emailMatcher = emailPattern.matcher(text);
-        HashMap<String, Integer> matchesFound = new HashMap();
-        while (emailMatcher.find()) {
-            String matchFound = text.substring(emailMatcher.start(), emailMatcher.end());
-            matchesFound.put(matchFound, 1);
-        }        
-        return StringUtils.join(matchesFound.keySet(), ", ");
-    }
-    
     /**
      * Since this is a web link, we don't return the URL directly; instead, we fetch
      * the referenced page and seek to get an email address from it.
@@ -0,0 +1,104 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.norvelle.addressdiscoverer.model.Department;
+import org.norvelle.addressdiscoverer.model.Individual;
+import org.norvelle.addressdiscoverer.model.Institution;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class IndividualExporterTest {
+
+    private File dir;
+    private List<Individual> individuals;
+
+    public IndividualExporterTest() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("export", "");
+        dir.delete();
+        dir.mkdir();
+        Department department = new Department("Filosofía", new Institution("Universidad de Navarra"));
+        individuals = new ArrayList<>();
+        for (int i = 0; i < 1000; i ++) {
+            Individual individual = new Individual("José", "Pons " + i, "José Pons " + i,
+                    "jpons" + i + "@unav.es", "Dr.", "", "Profesor\tordinario\n", "Test", department);
+            individual.setGender(i % 2 == 0 ? "M" : null);
+            individuals.add(individual);
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testStandardLayout() throws IOException {
+        File file = new File(dir, "export.txt");
+        final List<Integer> reports = new ArrayList<>();
+        try (IndividualExporter exporter = 
+                new IndividualExporter(file, IndividualExporter.Layout.STANDARD)) 
+        {
+            exporter.setProgressListener(new IndividualExporter.IExportProgressListener() {
+                @Override
+                public void exportProgress(int rowsWritten) {
+                    reports.add(rowsWritten);
+                }
+            });
+            Assert.assertEquals("Every row should be written", 1000, exporter.export(individuals));
+        }
+        List<String> lines = FileUtils.readLines(file, "UTF-8");
+        Assert.assertEquals("There should be a header and one line per row", 1001, lines.size());
+        Assert.assertEquals("The header should be a single line", 9, lines.get(0).split("\t").length);
+        Assert.assertEquals("Values should be escaped and nulls left empty",
+                "\tJosé\tPons 1\tjpons1@unav.es\tDr.\tUniversidad de Navarra\tFilosofía\t\tProfesor ordinario ",
+                lines.get(2));
+        Assert.assertTrue("Progress should be coalesced", reports.size() < 10);
+        Assert.assertEquals("The final count should be reported", 
+                Integer.valueOf(1000), reports.get(reports.size() - 1));
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        File file = new File(dir, "export.txt.gz");
+        try (IndividualExporter exporter = 
+                new IndividualExporter(file, IndividualExporter.Layout.MAIL_MERGE)) 
+        {
+            exporter.export(individuals);
+        }
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            List<String> lines = IOUtils.readLines(in, "UTF-8");
+            Assert.assertEquals("There should be a header and one line per row", 1001, lines.size());
+            Assert.assertTrue("Men should be greeted as such", 
+                    lines.get(1).endsWith("\tDr.\tEstimado\tprofesor\tinvestigador"));
+        }
+    }
+
+}
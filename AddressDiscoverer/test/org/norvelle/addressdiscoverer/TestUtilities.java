@@ -28,6 +28,7 @@ import org.norvelle.addressdiscoverer.exceptions.IndividualExtractionFailedExcep
 import org.norvelle.addressdiscoverer.gui.threading.StatusReporter;
 import org.norvelle.addressdiscoverer.model.Abbreviations;
 import org.norvelle.addressdiscoverer.model.Department;
+import org.norvelle.addressdiscoverer.model.ExportBatch;
 import org.norvelle.addressdiscoverer.model.GenderDeterminer;
 import org.norvelle.addressdiscoverer.model.GrammarParticles;
 import org.norvelle.addressdiscoverer.model.Individual;
@@ -35,6 +36,8 @@ import org.norvelle.addressdiscoverer.model.Institution;
 import org.norvelle.addressdiscoverer.model.KnownFirstName;
 import org.norvelle.addressdiscoverer.model.KnownLastName;
 import org.norvelle.addressdiscoverer.model.KnownSpanishWord;
+import org.norvelle.addressdiscoverer.model.PageStore;
+import org.norvelle.addressdiscoverer.model.SchemaMigrator;
 import org.norvelle.addressdiscoverer.model.UnparsableIndividual;
 import org.norvelle.utils.Utils;
 
@@ -99,6 +102,9 @@ public class TestUtilities {
         Institution.initialize(connectionSource);
         Department.initialize(connectionSource);
         Individual.initialize(connectionSource);
+        ExportBatch.initialize(connectionSource);
+        PageStore.initialize(connectionSource);
+        SchemaMigrator.migrate(connectionSource);
         
         KnownLastName.initialize(outputDir);
         KnownFirstName.initialize(outputDir);
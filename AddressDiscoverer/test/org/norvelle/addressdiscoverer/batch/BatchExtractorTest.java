@@ -0,0 +1,114 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.batch;
+
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.norvelle.addressdiscoverer.fetch.FilePageSource;
+import org.norvelle.addressdiscoverer.fetch.StoredPageSource;
+import org.norvelle.addressdiscoverer.fetch.UrlPageSource;
+import org.norvelle.addressdiscoverer.model.Department;
+import org.norvelle.addressdiscoverer.model.Individual;
+import org.norvelle.addressdiscoverer.model.Institution;
+import org.norvelle.addressdiscoverer.model.PageStore;
+import org.norvelle.addressdiscoverer.model.SchemaMigrator;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class BatchExtractorTest {
+
+    public BatchExtractorTest() {
+    }
+
+    private Department makeDepartment(String webAddress, String pageHash) {
+        Department department = new Department("Dummy department", null);
+        department.setWebAddress(webAddress);
+        department.setPageHash(pageHash);
+        return department;
+    }
+
+    @Test
+    public void testSourceSelection() throws IOException {
+        BatchExtractor extractor = new BatchExtractor(1, false, false);
+        Assert.assertNull("A department without a page should be skipped",
+                extractor.getSource(this.makeDepartment("", null)));
+        Assert.assertTrue(extractor.getSource(this.makeDepartment(
+                "http://www.unav.es/", "a1b2c3")) instanceof UrlPageSource);
+        Assert.assertTrue(extractor.getSource(this.makeDepartment(
+                null, "a1b2c3")) instanceof StoredPageSource);
+
+        File file = File.createTempFile("BatchExtractorTest", ".html");
+        file.deleteOnExit();
+        Assert.assertTrue(extractor.getSource(this.makeDepartment(
+                file.getAbsolutePath(), null)) instanceof FilePageSource);
+    }
+
+    @Test
+    public void testPreferStoredHtml() {
+        BatchExtractor extractor = new BatchExtractor(1, false, true);
+        Assert.assertTrue(extractor.getSource(this.makeDepartment(
+                "http://www.unav.es/", "a1b2c3")) instanceof StoredPageSource);
+        Assert.assertTrue(extractor.getSource(this.makeDepartment(
+                "http://www.unav.es/", null)) instanceof UrlPageSource);
+    }
+
+    @Test
+    public void testRunSummarizesEachDepartment() throws Exception {
+        ConnectionSource connection = new JdbcConnectionSource("jdbc:sqlite::memory:");
+        try {
+            Institution.initialize(connection);
+            Department.initialize(connection);
+            Individual.initialize(connection);
+            PageStore.initialize(connection);
+            SchemaMigrator.migrate(connection);
+            Institution institution = Institution.create("Universidad de Navarra");
+            List<Department> departments = new ArrayList<>();
+            for (int d = 0; d < 5; d ++) {
+                File file = File.createTempFile("BatchExtractorTest", ".html");
+                file.deleteOnExit();
+                FileUtils.writeStringToFile(file, "<html><body><p>Departamento " + d 
+                        + "</p></body></html>", "UTF-8");
+                Department department = Department.create("Department " + d, institution);
+                department.setWebAddress(file.getAbsolutePath());
+                departments.add(department);
+            }
+            departments.add(Department.create("Department without a page", institution));
+
+            BatchExtractor.metricsInterval = 0;
+            BatchSummary summary = new BatchExtractor(1, false, false).run(departments);
+            Assert.assertEquals("Every department with a page should be summarized", 
+                    5, summary.getExtracted().size());
+            Assert.assertEquals(1, summary.getSkipped().size());
+            Assert.assertEquals(0, summary.getFailed().size());
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testOffline() {
+        BatchExtractor extractor = new BatchExtractor(1, false, false, true);
+        Assert.assertTrue(extractor.getSource(this.makeDepartment(
+                "http://www.unav.es/", "a1b2c3")) instanceof StoredPageSource);
+        Assert.assertNull("Nothing should be fetched offline", 
+                extractor.getSource(this.makeDepartment("http://www.unav.es/", null)));
+    }
+
+}
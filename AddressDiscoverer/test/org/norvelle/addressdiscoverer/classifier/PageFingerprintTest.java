@@ -0,0 +1,97 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.classifier;
+
+import java.io.IOException;
+import org.jsoup.Jsoup;
+import org.junit.Assert;
+import org.junit.Test;
+import org.norvelle.addressdiscoverer.fetch.HtmlPageSource;
+import org.norvelle.addressdiscoverer.model.Department;
+import org.norvelle.addressdiscoverer.model.KnownFirstName;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class PageFingerprintTest {
+
+    private static final String STAFF = "<ul><li>Pons, José - jpons@unav.es</li>"
+            + "<li>García, Ana - agarcia@unav.es</li><li>Ibáñez, Luis - libanez@unav.es</li>"
+            + "<li>Martínez, Carmen - cmartinez@unav.es</li><li>López, Pedro - plopez@unav.es</li>"
+            + "<li>Sánchez, Elena - esanchez@unav.es</li><li>Romero, Jaime - jromero@unav.es</li>"
+            + "<li>Navarro, Lucía - lnavarro@unav.es</li><li>Torres, Javier - jtorres@unav.es</li>"
+            + "<li>Domínguez, Marta - mdominguez@unav.es</li></ul>";
+
+    public PageFingerprintTest() {
+    }
+
+    private PageFingerprint fingerprint(String html) {
+        return PageFingerprint.compute(Jsoup.parse(html));
+    }
+
+    @Test
+    public void testDigestIgnoresFormatting() {
+        PageFingerprint original = this.fingerprint("<body><h1>Filosofía</h1>" + STAFF + "</body>");
+        PageFingerprint reformatted = this.fingerprint("<body>\n  <h1> Filosofía </h1>\n"
+                + "<!-- generated 2014-03-01 --><script>var t = 1;</script>" + STAFF + "</body>");
+        PageFingerprint edited = this.fingerprint("<body><h1>Filosofía</h1>" 
+                + STAFF.replace("jpons@", "jpons2@") + "</body>");
+        Assert.assertEquals("Whitespace, comments and scripts should not count",
+                original.getDigest(), reformatted.getDigest());
+        Assert.assertNotEquals("A changed address should count",
+                original.getDigest(), edited.getDigest());
+    }
+
+    @Test
+    public void testSimhashFindsMirrors() {
+        PageFingerprint page = this.fingerprint("<body><div>Inicio | Facultad | Contacto</div>"
+                + STAFF + "</body>");
+        PageFingerprint mirror = this.fingerprint("<body><table><tr><td>Home</td></tr></table>"
+                + STAFF + "</body>");
+        PageFingerprint other = this.fingerprint("<body><p>Revista de Filosofía, número 12: "
+                + "artículos, reseñas y crónicas del congreso anual celebrado en Pamplona "
+                + "sobre metafísica, ética, lógica y estética contemporáneas</p></body>");
+        Assert.assertNotEquals(page.getDigest(), mirror.getDigest());
+        Assert.assertTrue("A page with different chrome should be a near-duplicate",
+                PageFingerprint.isNearDuplicate(page.getSimhash(), mirror.getSimhash()));
+        Assert.assertFalse("A different page should not be a near-duplicate",
+                PageFingerprint.isNearDuplicate(page.getSimhash(), other.getSimhash()));
+    }
+
+    @Test
+    public void testSkipsUnchangedPage() throws IOException {
+        String html = "<body>" + STAFF + "</body>";
+        Department department = new Department("Filosofía", null);
+        department.setFingerprints(this.fingerprint(html).getDigest(),
+                PageFingerprint.getExtractorFingerprint(false), null);
+        ExtractionJob job = new ExtractionJob(department, new HtmlPageSource(html, ""), false, null);
+        Assert.assertFalse("An unchanged page should go no further", job.parse());
+        Assert.assertTrue(job.getResult().isUnchanged());
+
+        job = new ExtractionJob(department, new HtmlPageSource(html, ""), true, null);
+        Assert.assertTrue("A different parser should mean extracting again", job.parse());
+    }
+
+    @Test
+    public void testExtractorFingerprintFollowsDictionaries() {
+        String original = PageFingerprint.getExtractorFingerprint(false);
+        Assert.assertEquals("The fingerprint should be reused while nothing changes",
+                original, PageFingerprint.getExtractorFingerprint(false));
+        KnownFirstName.add("zebulón");
+        String added = PageFingerprint.getExtractorFingerprint(false);
+        Assert.assertNotEquals("Adding a name should change the fingerprint", original, added);
+        KnownFirstName.delete("zebulón");
+        Assert.assertEquals("Deleting it again should restore the fingerprint",
+                original, PageFingerprint.getExtractorFingerprint(false));
+    }
+
+}
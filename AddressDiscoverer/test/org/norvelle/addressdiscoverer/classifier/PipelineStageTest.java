@@ -0,0 +1,98 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.classifier;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class PipelineStageTest {
+
+    public PipelineStageTest() {
+    }
+
+    @Test
+    public void testBackpressure() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger handled = new AtomicInteger();
+        final PipelineStage<Integer> stage = new PipelineStage<>("slow", 1, 2,
+                new PipelineStage.Handler<Integer>() {
+                    @Override
+                    public void handle(Integer item) throws Exception {
+                        release.await();
+                        handled.incrementAndGet();
+                    }
+
+                    @Override
+                    public void failed(Integer item, Exception ex) {
+                    }
+                });
+        stage.start();
+
+        // One item is being handled and two fill the queue, so the fourth must wait
+        final CountDownLatch allPut = new CountDownLatch(1);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 4; i ++)
+                        stage.put(i);
+                    allPut.countDown();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        producer.start();
+        Assert.assertFalse("The producer should be held back by the full queue",
+                allPut.await(500, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(2, stage.getQueueDepth());
+
+        release.countDown();
+        Assert.assertTrue("The producer should finish once the stage catches up",
+                allPut.await(5, TimeUnit.SECONDS));
+        stage.close();
+        Assert.assertEquals(4, handled.get());
+        Assert.assertEquals(4, stage.getProcessed());
+        Assert.assertEquals(2, stage.getPeakQueueDepth());
+    }
+
+    @Test
+    public void testFailuresAreReported() throws InterruptedException {
+        final AtomicInteger failures = new AtomicInteger();
+        PipelineStage<Integer> stage = new PipelineStage<>("failing", 2, 10,
+                new PipelineStage.Handler<Integer>() {
+                    @Override
+                    public void handle(Integer item) throws Exception {
+                        if (item % 2 == 0)
+                            throw new Exception("Even");
+                    }
+
+                    @Override
+                    public void failed(Integer item, Exception ex) {
+                        failures.incrementAndGet();
+                    }
+                });
+        stage.start();
+        for (int i = 0; i < 10; i ++)
+            stage.put(i);
+        stage.close();
+        Assert.assertEquals(5, failures.get());
+        Assert.assertEquals(10, stage.getProcessed());
+    }
+
+}
@@ -0,0 +1,258 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.fetch;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.UnknownHostException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.norvelle.addressdiscoverer.exceptions.HostUnavailableException;
+import org.norvelle.addressdiscoverer.exceptions.HttpStatusException;
+import org.norvelle.addressdiscoverer.model.ExtractionStatistics;
+import org.norvelle.addressdiscoverer.parse.StreamingEmailExtractor;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class FetchSchedulerTest {
+
+    private HttpServer server;
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private final AtomicInteger missingRequests = new AtomicInteger();
+
+    public FetchSchedulerTest() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = "<p>jpons@unav.es</p>".getBytes("UTF-8");
+                int status = failuresLeft.getAndDecrement() > 0 ? 503 : 200;
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        this.server.createContext("/missing", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                missingRequests.incrementAndGet();
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            }
+        });
+        this.server.createContext("/gzip", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                    gzip.write(("<html><head><meta charset=\"ISO-8859-1\"></head>"
+                            + "<body>Ib\u00e1\u00f1ez</body></html>").getBytes("ISO-8859-1"));
+                }
+                exchange.getResponseHeaders().add("Content-Type", "text/html");
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, bytes.size());
+                try (OutputStream out = exchange.getResponseBody()) {
+                    bytes.writeTo(out);
+                }
+            }
+        });
+        this.server.createContext("/gzipmailto", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                // Random letters hardly compress, so the compressed length is
+                // close to the page's and far more than the part scanned
+                StringBuilder html = new StringBuilder(
+                        "<html><body><a href=\"mailto:jpons@unav.es\">Pons</a>");
+                Random random = new Random(42);
+                for (int i = 0; i < 100000; i ++)
+                    html.append((char) ('a' + random.nextInt(26)));
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                    gzip.write(html.append("</body></html>").toString().getBytes("UTF-8"));
+                }
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, bytes.size());
+                try (OutputStream out = exchange.getResponseBody()) {
+                    bytes.writeTo(out);
+                }
+            }
+        });
+        this.server.createContext("/badgzip", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = "<p>not compressed at all</p>".getBytes("UTF-8");
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        this.server.start();
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop(0);
+    }
+
+    private URL getUrl() throws IOException {
+        return this.getUrl("/");
+    }
+
+    private URL getUrl(String path) throws IOException {
+        return new URL("http://127.0.0.1:" + this.server.getAddress().getPort() + path);
+    }
+
+    @Test
+    public void testRetriesTransientErrors() throws IOException {
+        this.failuresLeft.set(2);
+        FetchScheduler scheduler = new FetchScheduler(1000, 1000, 100.0, 10, 3, 1, 5, 60000);
+        ExtractionStatistics statistics = new ExtractionStatistics();
+        URLConnection con = scheduler.open(this.getUrl(), statistics);
+        try (InputStream in = con.getInputStream()) {
+            Assert.assertEquals("<p>jpons@unav.es</p>", IOUtils.toString(in, "UTF-8"));
+        }
+        String metrics = statistics.getFetchSummary();
+        Assert.assertTrue("Metrics should count all attempts: " + metrics,
+                metrics.contains("3 requests, 2 errors"));
+    }
+
+    @Test
+    public void testDecompressesAndSniffsCharset() throws IOException {
+        FetchScheduler scheduler = new FetchScheduler();
+        try (FetchedPage page = scheduler.fetch(this.getUrl("/gzip"))) {
+            Assert.assertEquals("The charset should come from the meta tag",
+                    "ISO-8859-1", page.getCharset());
+            Assert.assertEquals("The compressed length should not be reported", -1,
+                    page.getContentLength());
+            String html = IOUtils.toString(page.getReader());
+            Assert.assertTrue("The page should be decoded: " + html,
+                    html.contains("Ib\u00e1\u00f1ez"));
+        }
+    }
+
+    @Test
+    public void testCompressedLengthNotCountedAsSkipped() throws IOException {
+        FetchScheduler scheduler = new FetchScheduler();
+        ExtractionStatistics statistics = new ExtractionStatistics();
+        try (FetchedPage page = scheduler.fetch(this.getUrl("/gzipmailto"), statistics)) {
+            Assert.assertEquals("jpons@unav.es", 
+                    new StreamingEmailExtractor(statistics).extract(page));
+        }
+        Assert.assertTrue("Only part of the page should be scanned",
+                statistics.getBytesScanned() < 50000);
+        Assert.assertEquals("Without a decoded length, no bytes should count as skipped",
+                0, statistics.getBytesSkipped());
+    }
+
+    @Test
+    public void testCorruptCompressionFailsCleanly() throws IOException {
+        FetchScheduler scheduler = new FetchScheduler(1000, 1000, 100.0, 10, 0, 1, 5, 60000);
+        try {
+            scheduler.fetch(this.getUrl("/badgzip")).close();
+            Assert.fail("A body that is not gzip should not be accepted");
+        } catch (IOException ex) {
+            // Expected: the gzip header cannot be read
+        }
+        try (FetchedPage page = scheduler.fetch(this.getUrl())) {
+            Assert.assertEquals("The host should still be reachable",
+                    "<p>jpons@unav.es</p>", IOUtils.toString(page.getReader()));
+        }
+    }
+
+    @Test
+    public void testUnknownHostFailsFast() throws IOException {
+        FetchScheduler scheduler = new FetchScheduler(1000, 1000, 100.0, 10, 3, 1, 5, 60000);
+        ExtractionStatistics statistics = new ExtractionStatistics();
+        URL url = new URL("http://no-such-host.invalid/");
+        for (int i = 0; i < 2; i ++) {
+            try {
+                scheduler.open(url, statistics);
+                Assert.fail("The host should not be found");
+            } catch (UnknownHostException ex) {
+                // Expected, at once on the second try
+            }
+        }
+        String metrics = statistics.getFetchSummary();
+        Assert.assertTrue("An unknown host should not count as a request: " + metrics,
+                metrics.contains("0 requests, 0 errors") && metrics.contains("(unknown host)"));
+    }
+
+    @Test
+    public void testHeaderCharset() {
+        Assert.assertEquals("windows-1252",
+                CharsetSniffer.getHeaderCharset("text/html; charset=\"Windows-1252\""));
+        Assert.assertNull(CharsetSniffer.getHeaderCharset("text/html"));
+        Assert.assertNull(CharsetSniffer.getHeaderCharset("text/html; charset=bogus-charset"));
+    }
+
+    @Test
+    public void testCircuitOpensAfterRepeatedFailures() throws IOException {
+        this.failuresLeft.set(100);
+        FetchScheduler scheduler = new FetchScheduler(1000, 1000, 100.0, 10, 1, 1, 2, 60000);
+        try {
+            scheduler.open(this.getUrl());
+            Assert.fail("The fetch should have failed");
+        } catch (HostUnavailableException ex) {
+            Assert.fail("The circuit should not open before the threshold is reached");
+        } catch (IOException ex) {
+            // Expected: two 503s exhaust the retries
+        }
+        try {
+            scheduler.open(this.getUrl());
+            Assert.fail("The circuit should be open");
+        } catch (HostUnavailableException ex) {
+            Assert.assertEquals("No request should reach the host", 98, this.failuresLeft.get());
+        }
+    }
+
+    @Test
+    public void testMissingPagesDontOpenCircuit() throws IOException {
+        FetchScheduler scheduler = new FetchScheduler(1000, 1000, 100.0, 10, 3, 1, 2, 60000);
+        for (int i = 0; i < 5; i ++) {
+            try {
+                scheduler.open(this.getUrl("/missing"));
+                Assert.fail("The fetch should have failed");
+            } catch (HttpStatusException ex) {
+                Assert.assertEquals("The status should be kept", 404, ex.getStatus());
+            }
+        }
+        Assert.assertEquals("A 404 should not be retried", 5, this.missingRequests.get());
+        URLConnection con = scheduler.open(this.getUrl());
+        try (InputStream in = con.getInputStream()) {
+            Assert.assertEquals("The host should still be reachable",
+                    "<p>jpons@unav.es</p>", IOUtils.toString(in, "UTF-8"));
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.fetch;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.jsoup.nodes.Document;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class FilePageSourceTest {
+
+    public FilePageSourceTest() {
+    }
+
+    private FilePageSource writePage(String html, String charset) throws IOException {
+        File file = File.createTempFile("FilePageSourceTest", ".html");
+        file.deleteOnExit();
+        FileUtils.writeStringToFile(file, html, charset);
+        return new FilePageSource(file);
+    }
+
+    @Test
+    public void testUtf8WithoutDeclaration() throws IOException {
+        FilePageSource source = this.writePage("<p>José Ibáñez</p>", "UTF-8");
+        Document soup = source.parse();
+        Assert.assertEquals("UTF-8", source.getCharset());
+        Assert.assertEquals("José Ibáñez", soup.select("p").text());
+    }
+
+    @Test
+    public void testLatinWithoutDeclaration() throws IOException {
+        FilePageSource source = this.writePage("<p>José Ibáñez</p>", "windows-1252");
+        Document soup = source.parse();
+        Assert.assertEquals("windows-1252", source.getCharset());
+        Assert.assertEquals("José Ibáñez", soup.select("p").text());
+    }
+
+    @Test
+    public void testMetaDeclaration() throws IOException {
+        String html = "<html><head><meta http-equiv=\"Content-Type\" "
+                + "content=\"text/html; charset=ISO-8859-1\"></head><body><p>Peña</p></body></html>";
+        FilePageSource source = this.writePage(html, "ISO-8859-1");
+        Document soup = source.parse();
+        Assert.assertEquals("ISO-8859-1", source.getCharset());
+        Assert.assertEquals("Peña", soup.select("p").text());
+        Assert.assertEquals(html.length(), source.getLength());
+    }
+
+}
@@ -0,0 +1,104 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.gui.action;
+
+import com.j256.ormlite.support.ConnectionSource;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.norvelle.addressdiscoverer.model.Database;
+import org.norvelle.addressdiscoverer.model.Department;
+import org.norvelle.addressdiscoverer.model.Individual;
+import org.norvelle.addressdiscoverer.model.Institution;
+import org.norvelle.addressdiscoverer.model.SchemaMigrator;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class DatabasePrunerTest {
+
+    private File dbFile;
+
+    public DatabasePrunerTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dbFile = File.createTempFile("addresses", ".sqlite");
+        ConnectionSource connection = Database.open("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        Institution.initialize(connection);
+        Department.initialize(connection);
+        Individual.initialize(connection);
+
+        // The backup table as older databases have it, with no folded columns
+        try (Connection conn = Database.getConnection();
+                Statement stmt = conn.createStatement()) 
+        {
+            stmt.execute("CREATE TABLE deleted_individuals (firstName VARCHAR, "
+                    + "lastName VARCHAR, fullName VARCHAR, email VARCHAR, title VARCHAR, "
+                    + "affiliation VARCHAR, role VARCHAR, gender VARCHAR, unprocessed VARCHAR, "
+                    + "parserName VARCHAR, originalText VARCHAR, exported BOOLEAN, "
+                    + "id INTEGER, department_id INTEGER, timestamp VARCHAR)");
+        }
+        SchemaMigrator.migrate(connection);
+
+        Department department = Department.create("Filosofía", 
+                Institution.create("Universidad de Navarra"));
+        List<Individual> individuals = new ArrayList<>();
+        individuals.add(new Individual("José", "Muñoz", "José Muñoz", "jmunoz@unav.es", 
+                "Catedrático", "", "Despacho 12", "Test", department));
+        individuals.add(new Individual("Ana", "Ruiz", "Ana Ruiz", "aruiz@unav.es", 
+                "Dra.", "", "Secretaría", "Test", department));
+        Individual.storeAll(individuals);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        Database.close();
+        for (String suffix : new String[] { "", "-wal", "-shm" })
+            new File(dbFile.getAbsolutePath() + suffix).delete();
+    }
+
+    @Test
+    public void testPruneOnMigratedSchema() throws SQLException {
+        DatabasePruner pruner = new DatabasePruner();
+        Assert.assertEquals("One row should match", 1, 
+                pruner.setLikeClauseAndField("munoz", "lastName"));
+        pruner.runPrune();
+        Assert.assertEquals("The row should have been removed", 1, 
+                this.queryInt("SELECT COUNT(*) FROM individual"));
+        Assert.assertEquals("The row should have been backed up and timestamped", 1, 
+                this.queryInt("SELECT COUNT(*) FROM deleted_individuals "
+                        + "WHERE lastName = 'Muñoz' AND timestamp IS NOT NULL"));
+    }
+
+    // ===================== Private Methods =============================
+
+    private int queryInt(String sql) throws SQLException {
+        try (Connection conn = Database.getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) 
+        {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.gui.threading;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class ProgressChannelTest {
+
+    public ProgressChannelTest() {
+    }
+
+    @Test
+    public void testCoalescesTextAndKeepsLines() throws Exception {
+        final List<String> texts = new ArrayList<>();
+        final List<String> lines = new ArrayList<>();
+        final List<Boolean> onEdt = new ArrayList<>();
+        final ProgressChannel channel = new ProgressChannel(new IProgressListener() {
+            @Override
+            public void showText(String text) {
+                onEdt.add(SwingUtilities.isEventDispatchThread());
+                texts.add(text);
+            }
+
+            @Override
+            public void showLines(List<String> newLines) {
+                onEdt.add(SwingUtilities.isEventDispatchThread());
+                lines.addAll(newLines);
+            }
+        }, 50);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                channel.start();
+            }
+        });
+
+        for (int i = 0; i < 100000; i ++) {
+            channel.reportText("Processing name " + i);
+            if (i % 1000 == 0)
+                channel.addLine("Line " + i);
+        }
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                channel.stop();
+            }
+        });
+
+        Assert.assertFalse("Listeners should only be called on the EDT", onEdt.contains(false));
+        Assert.assertTrue("Most text updates should have been coalesced", texts.size() < 1000);
+        Assert.assertEquals("The last text should always be shown", 
+                "Processing name 99999", texts.get(texts.size() - 1));
+        Assert.assertEquals("Every line should be delivered", 100, lines.size());
+        for (int i = 0; i < lines.size(); i ++)
+            Assert.assertEquals("Lines should arrive in order", "Line " + i * 1000, lines.get(i));
+    }
+
+}
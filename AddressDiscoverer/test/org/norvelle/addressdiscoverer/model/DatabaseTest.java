@@ -0,0 +1,114 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.misc.TransactionManager;
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class DatabaseTest {
+
+    private File dbFile;
+
+    public DatabaseTest() {
+    }
+
+    @Before
+    public void setUp() throws IOException, SQLException {
+        dbFile = File.createTempFile("addresses", ".sqlite");
+        Database.open("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        try (Connection conn = Database.getConnection();
+                Statement stmt = conn.createStatement()) 
+        {
+            stmt.execute("CREATE TABLE t (n INTEGER)");
+            stmt.execute("INSERT INTO t VALUES (1)");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        Database.close();
+        for (String suffix : new String[] { "", "-wal", "-shm" })
+            new File(dbFile.getAbsolutePath() + suffix).delete();
+    }
+
+    @Test
+    public void testWalMode() throws SQLException {
+        Assert.assertEquals("The database should use WAL journaling", "wal", 
+                this.queryString("PRAGMA journal_mode"));
+    }
+
+    @Test
+    public void testReadDuringWrite() throws SQLException {
+        try (Connection writer = Database.getConnection();
+                Statement stmt = writer.createStatement()) 
+        {
+            writer.setAutoCommit(false);
+            stmt.execute("INSERT INTO t VALUES (2)");
+
+            // A second connection still sees the last committed state
+            Assert.assertEquals("Readers should not block on the writer", "1",
+                    this.queryString("SELECT COUNT(*) FROM t"));
+            writer.commit();
+            writer.setAutoCommit(true);
+        }
+        Assert.assertEquals("The write should be visible once committed", "2",
+                this.queryString("SELECT COUNT(*) FROM t"));
+    }
+
+    @Test
+    public void testConnectionsReturnedToPool() throws Exception {
+        Connection conn = Database.getConnection();
+        conn.close();
+        Assert.assertTrue("A closed connection should say so", conn.isClosed());
+        for (int i = 0; i < 20; i ++)
+            this.queryString("SELECT COUNT(*) FROM t");
+        TransactionManager.callInTransaction(Database.getConnectionSource(), new Callable<Void>() {
+            @Override
+            public Void call() throws SQLException {
+                try (Connection conn = Database.getConnection();
+                        Statement stmt = conn.createStatement()) 
+                {
+                    stmt.execute("INSERT INTO t VALUES (3)");
+                }
+                return null;
+            }
+        });
+        Assert.assertEquals("Borrowing inside a transaction should join it", "2",
+                this.queryString("SELECT COUNT(*) FROM t"));
+    }
+
+    // ===================== Private Methods =============================
+
+    private String queryString(String sql) throws SQLException {
+        try (Connection conn = Database.getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) 
+        {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class ExportBatchTest {
+
+    private ConnectionSource connection;
+    private Department department;
+
+    public ExportBatchTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        connection = new JdbcConnectionSource("jdbc:sqlite::memory:");
+        Institution.initialize(connection);
+        Department.initialize(connection);
+        Individual.initialize(connection);
+        ExportBatch.initialize(connection);
+        SchemaMigrator.migrate(connection);
+        department = Department.create("Filosofía", Institution.create("Universidad de Navarra"));
+        this.addIndividuals(10);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testMarksExactlyTheBatch() throws Exception {
+        final List<Individual> written = new ArrayList<>();
+        ExportBatch batch = ExportBatch.export("new.txt", true, null, 
+                new ExportBatch.IExportBatchWriter() {
+                    @Override
+                    public int write(Iterable<Individual> individuals) {
+                        for (Individual i : individuals)
+                            written.add(i);
+                        return written.size();
+                    }
+                });
+        Assert.assertEquals("All ten should be exported", 10, batch.getRowCount());
+        Assert.assertEquals("The batch should cover the ids written", 
+                written.get(written.size() - 1).getId(), batch.getLastId());
+        Assert.assertEquals("Nothing should be left to export", 0, Individual.getCount(true, false));
+
+        // Rows added afterwards belong to the next batch only
+        this.addIndividuals(5);
+        batch = ExportBatch.export("new.txt", true, null, new CountingWriter());
+        Assert.assertEquals("Only the new rows should be exported", 5, batch.getRowCount());
+        Assert.assertTrue("The new batch should start above the old one", 
+                batch.getFirstId() > written.get(written.size() - 1).getId());
+        Assert.assertEquals("Both batches should be recorded", 2, ExportBatch.getDao().countOf());
+    }
+
+    @Test
+    public void testFailedExportMarksNothing() throws Exception {
+        try {
+            ExportBatch.export("new.txt", true, null, new ExportBatch.IExportBatchWriter() {
+                @Override
+                public int write(Iterable<Individual> individuals) throws IOException {
+                    throw new IOException("Disk full");
+                }
+            });
+            Assert.fail("The writer's exception should be passed on");
+        } catch (IOException ex) {
+            Assert.assertEquals("Disk full", ex.getMessage());
+        }
+        Assert.assertEquals("Nothing should be marked", 10, Individual.getCount(true, false));
+        Assert.assertEquals("No batch should be recorded", 0, ExportBatch.getDao().countOf());
+    }
+
+    @Test
+    public void testDepartmentBatch() throws Exception {
+        Department other = Department.create("Derecho", department.getInstitution());
+        List<Individual> individuals = new ArrayList<>();
+        individuals.add(new Individual("Ana", "Ruiz", "Ana Ruiz", "aruiz@unav.es", 
+                "Dra.", "", "", "Test", other));
+        Individual.storeAll(individuals);
+        ExportBatch batch = ExportBatch.export("derecho.txt", false, other, new CountingWriter());
+        Assert.assertEquals("Only the department should be exported", 1, batch.getRowCount());
+        Assert.assertEquals("The other department should be untouched", 10, Individual.getCount(true, false));
+    }
+
+    @Test
+    public void testRowsWithoutDepartmentAreNotMarked() throws Exception {
+        Individual.getDao().executeRaw("INSERT INTO individual (firstName, exported, department_id) "
+                + "VALUES ('Hu\u00e9rfano', 0, 9999)");
+        ExportBatch batch = ExportBatch.export("new.txt", true, null, new CountingWriter());
+        Assert.assertEquals("Only rows with a department should be written", 10, batch.getRowCount());
+        Assert.assertEquals("The row that wasn't written should not be marked", 1, 
+                Individual.getDao().queryRawValue("SELECT COUNT(*) FROM individual WHERE exported = 0"));
+    }
+
+    private void addIndividuals(int count) throws Exception {
+        List<Individual> individuals = new ArrayList<>();
+        for (int i = 0; i < count; i ++)
+            individuals.add(new Individual("Juan", "Pons " + i, "Juan Pons " + i,
+                    "jpons" + i + "@unav.es", "Dr.", "", "", "Test", department));
+        Individual.storeAll(individuals);
+    }
+
+    private static class CountingWriter implements ExportBatch.IExportBatchWriter {
+        @Override
+        public int write(Iterable<Individual> individuals) {
+            int count = 0;
+            for (Individual i : individuals)
+                count ++;
+            return count;
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.norvelle.addressdiscoverer.exceptions.CannotStoreNullIndividualException;
+import org.norvelle.addressdiscoverer.exceptions.IndividualHasNoDepartmentException;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class IndividualBatchStoreTest {
+
+    private static ConnectionSource connection;
+    private static Department department;
+
+    public IndividualBatchStoreTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws SQLException {
+        connection = new JdbcConnectionSource("jdbc:sqlite::memory:");
+        Institution.initialize(connection);
+        Department.initialize(connection);
+        Individual.initialize(connection);
+        PageStore.initialize(connection);
+        department = Department.create("Dummy department", Institution.create("Dummy institution"));
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws SQLException {
+        connection.close();
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        Individual.deleteIndividualsForDepartment(department);
+    }
+
+    @Test
+    public void testStoreAll() throws Exception {
+        List<Individual> individuals = this.makeIndividuals(3000, department);
+        ExtractionStatistics statistics = new ExtractionStatistics();
+        Assert.assertEquals("All rows should be stored", 3000, 
+                Individual.storeAll(individuals, statistics));
+        Assert.assertEquals("All rows should be counted", 3000, statistics.getRowsStored());
+        Assert.assertEquals("All rows should be in the database", 3000, Individual.getCount());
+        for (int i : new int[] { 0, 1500, 2999 })
+            Assert.assertEquals("Each individual should get the id it was stored under", "Pons " + i,
+                    Individual.getById(Integer.toString(individuals.get(i).getId())).getLastName());
+        System.out.println(statistics.getStoreSummary());
+    }
+
+    @Test
+    public void testNothingStoredOnInvalidIndividual() throws Exception {
+        List<Individual> individuals = this.makeIndividuals(10, department);
+        individuals.add(this.makeIndividuals(1, null).get(0));
+        try {
+            Individual.storeAll(individuals);
+            Assert.fail("An individual without a department should be rejected");
+        } catch (IndividualHasNoDepartmentException ex) {
+            Assert.assertEquals("No rows should be stored", 0, Individual.getCount());
+        }
+    }
+
+    @Test
+    public void testReplaceKeepsOldRowsOnFailure() throws Exception {
+        Individual.storeAll(this.makeIndividuals(5, department));
+        List<Individual> replacements = this.makeIndividuals(10, department);
+        replacements.add(new UnparsableIndividual("Nobody"));
+        try {
+            Individual.replaceIndividualsForDepartment(department, replacements);
+            Assert.fail("An unparsable individual should be rejected");
+        } catch (CannotStoreNullIndividualException ex) {
+            Assert.assertEquals("The old rows should still be there", 5, Individual.getCount());
+        }
+        Individual.replaceIndividualsForDepartment(department, this.makeIndividuals(7, department));
+        Assert.assertEquals("The old rows should be replaced", 7, Individual.getCount());
+    }
+
+    @Test
+    public void testMergeStableResultsWritesNothing() throws Exception {
+        Individual.storeAll(this.makeIndividuals(50, department));
+        Assert.assertEquals("Nothing should be written for the same results", 0, 
+                Individual.mergeIndividualsForDepartment(department, this.makeIndividuals(50, department)));
+        Assert.assertEquals("The rows should all still be there", 50, Individual.getCount());
+    }
+
+    @Test
+    public void testMergeKeepsStateOfMatchedRows() throws Exception {
+        List<Individual> stored = this.makeIndividuals(5, department);
+        for (Individual i : stored) {
+            i.setExported(true);
+            i.setGender("M");
+            i.setRole("Secretario");
+        }
+        Individual.storeAll(stored);
+
+        // Pons 0 vanishes, Pons 1 gains a title, Pons 2 only differs in case
+        // and accents, and Pons 5 is new
+        List<Individual> found = this.makeIndividuals(6, department);
+        found.remove(0);
+        found.get(0).setTitle("Prof.");
+        found.get(1).setFirstName("JUÁN");
+        Assert.assertEquals("Only the differences should be written", 4, 
+                Individual.mergeIndividualsForDepartment(department, found));
+
+        List<Individual> merged = Individual.getIndividualsForDepartment(department);
+        Assert.assertEquals("One row should be gone and one added", 5, merged.size());
+        for (Individual i : merged) {
+            boolean isNew = i.getLastName().equals("Pons 5");
+            Assert.assertFalse("Pons 0 should be deleted", i.getLastName().equals("Pons 0"));
+            Assert.assertEquals("Only the new row should need exporting", !isNew, i.isExported());
+            Assert.assertEquals("Gender should be kept", isNew ? null : "M", i.getGender());
+            Assert.assertEquals("A role entered by hand should be kept", 
+                    isNew ? null : "Secretario", i.getRole());
+            if (i.getLastName().equals("Pons 1")) {
+                Assert.assertEquals("The row should be updated", "Prof.", i.getTitle());
+                Assert.assertEquals("The row should keep its id", stored.get(1).getId(), i.getId());
+            }
+        }
+    }
+
+    @Test
+    public void testDeleteInstitutionCascades() throws Exception {
+        Institution institution = Institution.create("Doomed institution");
+        for (int d = 0; d < 20; d ++)
+            Individual.storeAll(this.makeIndividuals(100, 
+                    Department.create("Doomed department " + d, institution)));
+        Individual.storeAll(this.makeIndividuals(3, department));
+        long departments = Department.getCount();
+
+        Institution.delete(institution);
+        Assert.assertEquals("Only the other department's rows should be left", 3, Individual.getCount());
+        Assert.assertEquals("The institution's departments should be gone", 
+                departments - 20, Department.getCount());
+    }
+
+    // ===================== Private Methods =============================
+
+    private List<Individual> makeIndividuals(int count, Department dept) {
+        List<Individual> individuals = new ArrayList<>();
+        for (int i = 0; i < count; i ++)
+            individuals.add(new Individual("Juan", "Pons " + i, "Juan Pons " + i,
+                    "jpons" + i + "@unav.es", "Dr.", "", "", "Test", dept));
+        return individuals;
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class IndividualCursorTest {
+
+    private static ConnectionSource connection;
+
+    public IndividualCursorTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        connection = new JdbcConnectionSource("jdbc:sqlite::memory:");
+        Institution.initialize(connection);
+        Department.initialize(connection);
+        Individual.initialize(connection);
+        for (int inst = 0; inst < 3; inst ++) {
+            Institution institution = Institution.create("Institution " + inst);
+            for (int dept = 0; dept < 4; dept ++) {
+                Department department = Department.create(
+                        "Department " + inst + "." + dept, institution);
+                List<Individual> individuals = new ArrayList<>();
+                for (int i = 0; i < 10; i ++) {
+                    Individual individual = new Individual("Juan", "Pons " + i, "Juan Pons " + i,
+                            "jpons" + i + "@unav.es", "Dr.", "", "", "Test", department);
+                    individual.setExported(i < 4);
+                    individual.setGender(i % 2 == 0 ? "M" : null);
+                    individuals.add(individual);
+                }
+                Individual.storeAll(individuals);
+            }
+        }
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testDepartmentsAttached() throws SQLException {
+        int count = 0;
+        try (IndividualCursor cursor = Individual.iterateAll()) {
+            for (Individual i : cursor) {
+                count ++;
+                Department department = i.getDepartment();
+                Assert.assertTrue("The department name should be loaded", 
+                        department.getName().startsWith("Department "));
+                Assert.assertTrue("The department should belong to its institution", 
+                        department.getName().startsWith(
+                        "Department " + department.getInstitution().getName().substring(12)));
+                Assert.assertTrue("The department id should be loaded", department.getId() > 0);
+            }
+        }
+        Assert.assertEquals("Every individual should be returned", 120, count);
+        Assert.assertEquals("The count should agree", 120, Individual.getCount(false, false));
+    }
+
+    @Test
+    public void testDepartmentsComplete() throws SQLException {
+        Department department;
+        try (IndividualCursor cursor = Individual.iterateAll()) {
+            department = cursor.iterator().next().getDepartment();
+        }
+        department.setPageHash("a1b2c3");
+        department.setFingerprints("d4e5f6", "a7b8c9", 42L);
+        Department.update(department);
+
+        // Writing a loaded department back should lose nothing
+        for (int pass = 0; pass < 2; pass ++) {
+            Department loaded = null;
+            try (IndividualCursor cursor = Individual.iterateAll()) {
+                for (Individual i : cursor)
+                    if (i.getDepartment().getId() == department.getId())
+                        loaded = i.getDepartment();
+            }
+            Assert.assertEquals("The page hash should be loaded", "a1b2c3", loaded.getPageHash());
+            Assert.assertEquals("d4e5f6", loaded.getPageFingerprint());
+            Assert.assertEquals("a7b8c9", loaded.getExtractorFingerprint());
+            Assert.assertEquals(Long.valueOf(42L), loaded.getPageSimhash());
+            Department.update(loaded);
+        }
+    }
+
+    @Test
+    public void testFilters() throws SQLException {
+        int count = 0;
+        try (IndividualCursor cursor = Individual.iterate(true, true)) {
+            for (Individual i : cursor) {
+                count ++;
+                Assert.assertFalse("Exported individuals should be skipped", i.isExported());
+                Assert.assertNull("Individuals with a gender should be skipped", i.getGender());
+            }
+        }
+        // Of each department's ten, 4 to 9 are unexported, and 5, 7 and 9 have no gender
+        Assert.assertEquals("Only unexported individuals without gender should be returned", 36, count);
+        Assert.assertEquals("The count should agree", 36, Individual.getCount(true, true));
+    }
+
+}
@@ -0,0 +1,121 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class IndividualIndexTest {
+
+    private ConnectionSource connection;
+    private Department department;
+
+    public IndividualIndexTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        connection = new JdbcConnectionSource("jdbc:sqlite::memory:");
+        Institution.initialize(connection);
+        Department.initialize(connection);
+        Individual.initialize(connection);
+        department = Department.create("Filosofía", Institution.create("Universidad de Navarra"));
+
+        // Rows stored before the index exists should be indexed by the migration
+        List<Individual> individuals = new ArrayList<>();
+        individuals.add(new Individual("JOSÉ", "Muñoz", "JOSÉ Muñoz", "jmunoz@unav.es", 
+                "Catedrático", "", "Despacho 12", "Test", department));
+        individuals.add(new Individual("Ana", "Ruiz", "Ana Ruiz", "aruiz@uam.es", 
+                "Dra.", "", "Secretaría", "Test", department));
+        Individual.storeAll(individuals);
+        // Older rows have no folded copies, and the migration should make them
+        Individual.getDao().executeRaw("UPDATE individual SET foldedFirstName = NULL, "
+                + "foldedLastName = NULL, foldedEmail = NULL, foldedTitle = NULL, "
+                + "foldedUnprocessed = NULL");
+        SchemaMigrator.migrate(connection);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testFolding() {
+        Assert.assertEquals("jose munoz", IndividualIndex.fold("JOSÉ Muñoz"));
+        Assert.assertEquals("Every accent should be removed", "lluisa ohman angela",
+                IndividualIndex.fold("LLUÏSA Öhman Ângela"));
+        Assert.assertEquals("Punctuation should split words into a phrase", 
+                "\"unav es*\" \"jose*\"", IndividualIndex.getMatchQuery("unav.es  José"));
+        Assert.assertNull("There should be nothing to search for", 
+                IndividualIndex.getMatchQuery(" \"*- "));
+    }
+
+    @Test
+    public void testSearchIgnoresCaseAndAccents() throws SQLException {
+        Assert.assertEquals("The existing row should be indexed", 1, 
+                IndividualIndex.search("jose munoz", 10).size());
+        Assert.assertEquals("Words should match as prefixes", 1, 
+                IndividualIndex.search("CATEDR", 10).size());
+        Assert.assertEquals("Emails should be searchable", 2, 
+                IndividualIndex.search("es", 10).size());
+        Assert.assertEquals("Every word should have to match", 0, 
+                IndividualIndex.search("ana munoz", 10).size());
+        Assert.assertEquals("The department should be attached", "Filosofía", 
+                IndividualIndex.search("secretaria", 10).get(0).getDepartment().getName());
+    }
+
+    @Test
+    public void testSearchFoldsEveryAccent() throws Exception {
+        List<Individual> added = new ArrayList<>();
+        added.add(new Individual("LLUÏSA", "ÖHMAN", "LLUÏSA ÖHMAN", "lohman@uab.cat", 
+                "Dra.", "", "Àrea de Lògica", "Test", department));
+        Individual.storeAll(added);
+        Assert.assertEquals("A diaeresis should be folded", 1, 
+                IndividualIndex.search("lluisa", 10).size());
+        Assert.assertEquals("Upper-case accented letters should be folded", 1, 
+                IndividualIndex.search("ohman", 10).size());
+        Assert.assertEquals("The query should be folded too", 1, 
+                IndividualIndex.search("Lluïsa Öhman", 10).size());
+        Assert.assertEquals("Grave accents should be folded", 1, 
+                IndividualIndex.search("area logica", 10).size());
+    }
+
+    @Test
+    public void testIndexFollowsChanges() throws Exception {
+        Individual ana = IndividualIndex.search("ruiz", 10).get(0);
+        ana.setLastName("Gómez");
+        Individual.update(ana);
+        Assert.assertEquals("The old name should be gone", 0, IndividualIndex.search("ruiz", 10).size());
+        Assert.assertEquals("The new name should be found", 1, IndividualIndex.search("gomez", 10).size());
+
+        List<Individual> added = new ArrayList<>();
+        added.add(new Individual("Luis", "Pérez", "Luis Pérez", "lperez@unav.es", 
+                "Dr.", "", "", "Test", department));
+        Individual.storeAll(added);
+        Assert.assertEquals("New rows should be found", 1, IndividualIndex.search("perez", 10).size());
+
+        Individual.deleteIndividualsForDepartment(department);
+        Assert.assertEquals("Deleted rows should be gone", 0, IndividualIndex.search("es", 10).size());
+    }
+
+}
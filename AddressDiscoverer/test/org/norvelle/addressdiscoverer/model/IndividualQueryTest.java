@@ -0,0 +1,113 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class IndividualQueryTest {
+
+    private ConnectionSource connection;
+    private Department department;
+
+    public IndividualQueryTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        connection = new JdbcConnectionSource("jdbc:sqlite::memory:");
+        Institution.initialize(connection);
+        Department.initialize(connection);
+        Individual.initialize(connection);
+        PageStore.initialize(connection);
+        ExportBatch.initialize(connection);
+        SchemaMigrator.migrate(connection);
+        Institution institution = Institution.create("Universidad de Navarra");
+        department = Department.create("Filosofía", institution);
+        Department other = Department.create("Derecho", institution);
+
+        String[] lastNames = { "ruiz", "Álvarez", "Muñoz", "García", "ruiz" };
+        List<Individual> individuals = new ArrayList<>();
+        for (int i = 0; i < 25; i ++)
+            individuals.add(new Individual("Nombre" + i, lastNames[i % lastNames.length], 
+                    "Nombre" + i, "n" + i + "@unav.es", "", "", "", "Test", department));
+        individuals.add(new Individual("Otro", "Pérez", "Otro Pérez", "operez@unav.es", 
+                "", "", "", "Test", other));
+        Individual.storeAll(individuals);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testWindowsCoverDepartment() throws SQLException {
+        IndividualQuery query = new IndividualQuery(department);
+        Assert.assertEquals("Only the department's rows should be counted", 25, query.getCount());
+        List<String> seen = new ArrayList<>();
+        for (long offset = 0; offset < 25; offset += 10)
+            for (Individual i : query.getWindow(offset, 10)) {
+                Assert.assertEquals("Rows should have the department attached", 
+                        "Filosofía", i.getDepartment().getName());
+                seen.add(i.getFirstName());
+            }
+        Assert.assertEquals("Every row should be seen once", 25, seen.size());
+        Assert.assertEquals("Rows should come in stored order", "Nombre0", seen.get(0));
+        Assert.assertEquals("Rows should come in stored order", "Nombre24", seen.get(24));
+        Assert.assertTrue("A window past the end should be empty", 
+                query.getWindow(30, 10).isEmpty());
+    }
+
+    @Test
+    public void testSort() throws SQLException {
+        IndividualQuery query = new IndividualQuery(department, "lastName", true, null);
+        List<Individual> window = query.getWindow(0, 25);
+        Assert.assertEquals("Sorting should ignore accents", "Álvarez", window.get(0).getLastName());
+        Assert.assertEquals("Ties should be in stored order", "Nombre1", window.get(0).getFirstName());
+        Assert.assertEquals("Sorting should ignore case", "García", window.get(5).getLastName());
+        Assert.assertEquals("ruiz", window.get(24).getLastName());
+
+        query = new IndividualQuery(department, "lastName", false, null);
+        window = query.getWindow(0, 2);
+        Assert.assertEquals("ruiz", window.get(0).getLastName());
+        Assert.assertEquals("Descending ties should be in reverse stored order", 
+                "Nombre24", window.get(0).getFirstName());
+    }
+
+    @Test
+    public void testFilter() throws SQLException {
+        IndividualQuery query = new IndividualQuery(department, "firstName", true, "munoz");
+        Assert.assertEquals("The filter should be folded like a search", 5, query.getCount());
+        Assert.assertEquals("Nombre12", query.getWindow(0, 1).get(0).getFirstName());
+        query = new IndividualQuery(department, null, true, "perez");
+        Assert.assertEquals("Other departments should not match", 0, query.getCount());
+        query = new IndividualQuery(department, null, true, " ");
+        Assert.assertEquals("An empty filter should select everything", 25, query.getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownSortField() {
+        new IndividualQuery(department, "id; DROP TABLE individual", true, null);
+    }
+
+}
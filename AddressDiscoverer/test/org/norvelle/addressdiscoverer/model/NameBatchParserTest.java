@@ -0,0 +1,70 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.norvelle.addressdiscoverer.exceptions.CantParseIndividualException;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class NameBatchParserTest {
+
+    private static NameBatchParser parser;
+
+    public NameBatchParserTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+        // Parse even short lists in parallel, so the slicing gets exercised
+        parser = new NameBatchParser(4, 0);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        parser.shutdown();
+    }
+
+    @Test
+    public void testResultsInOrder() throws InterruptedException {
+        List<String> chunks = Arrays.asList("Ana Ruiz", "", "Dr. Luis Gil", "  ");
+        ParsedNames<Name> names = parser.parseNames(chunks, new TokenClassifier());
+        Assert.assertEquals("There should be a result per chunk", 4, names.size());
+        Assert.assertEquals("The first name should be Ana", "Ana", names.getName(0).getFirstName());
+        Assert.assertFalse("An empty chunk cannot be parsed", names.isParsed(1));
+        Assert.assertNull("A failed chunk has no name", names.getName(1));
+        Assert.assertEquals("The title should be Dr.", "Dr.", names.getName(2).getTitle());
+        Assert.assertEquals("Two chunks should have failed", 2, names.getNumFailures());
+        Assert.assertEquals("Only the parsed names should be listed", 2, names.getNames().size());
+    }
+
+    @Test
+    public void testSameAsOneAtATime() throws InterruptedException, CantParseIndividualException {
+        List<String> chunks = new ArrayList<>();
+        for (int i = 0; i < 1000; i ++)
+            chunks.add(String.format("Ana%d Ruiz%d Gil", i, i % 7));
+        TokenClassifier tokens = new TokenClassifier();
+        ParsedNames<UnamName> names = parser.parseUnamNames(chunks, tokens);
+        Assert.assertEquals("Nothing should have failed", 0, names.getNumFailures());
+        for (int i = 0; i < chunks.size(); i ++)
+            Assert.assertEquals("Each name should match the one parsed on its own", 
+                    new UnamName(chunks.get(i)).getFullName(), names.getName(i).getFullName());
+    }
+
+}
@@ -111,4 +111,24 @@ public class NameTest {
         Assert.assertEquals("Title should be ''", "", name.getTitle());
     }
     
+    @Test
+    public void testGettersDontChangeName() {
+        String chunk = "Dra. Concepción Martínez Pasamar (Decana) Ed$";
+        Name name;
+        try { 
+            name = new Name(chunk);
+        } catch (CantParseIndividualException ex) {
+            fail("Can't parse individual");
+            return;
+        }
+        
+        String unprocessed = name.getUnprocessed();
+        Assert.assertEquals("Full name should be Dra. Concepción Martínez Pasamar", 
+                "Dra. Concepción Martínez Pasamar", name.getFullName());
+        Assert.assertEquals("Unprocessed text should not grow as getters are called", 
+                unprocessed, name.getUnprocessed());
+        Assert.assertSame("Getters should return the same value each time", 
+                name.getFirstName(), name.getFirstName());
+    }
+    
 }
@@ -0,0 +1,60 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class NameTokenizerTest {
+
+    public NameTokenizerTest() {
+    }
+
+    @Test
+    public void testClean() {
+        String chunk = " D. Juan O'Brien 948 425 600 jp2@unav.es ";
+        Assert.assertEquals("Should match the old replaceAll chain",
+                chunk.replaceAll("\\xA0", " ").replaceAll("'", "ʼ")
+                        .replaceAll("\\b\\d+\\b", "").trim(),
+                NameTokenizer.clean(chunk));
+        Assert.assertEquals("Numbers inside words should survive",
+                "Ana é12 Gil", NameTokenizer.clean("Ana é12 Gil 3"));
+    }
+
+    @Test
+    public void testCleanUnam() {
+        Assert.assertEquals("Degree, numbers, commas and periods should go",
+                "Ruiz Pérez Ana", NameTokenizer.cleanUnam("M. en C. Ruiz Pérez, Ana 12."));
+        Assert.assertEquals("The short form of the degree should go too",
+                "Ruiz Ana", NameTokenizer.cleanUnam("M en C Ruiz, Ana"));
+    }
+
+    @Test
+    public void testHasSymbol() {
+        String[] words = { "Ana", "Pé$rez", "«Gil»", "XXXXGil", "Gil©", "Ana_12",
+            "(Ana", "Ana\nGil.", "Mª", "ʼGil", "Gil-" };
+        for (String word : words)
+            Assert.assertEquals("hasSymbol should agree with the regex for " + word,
+                    word.matches(".*(\\p{P}|\\p{S}).*"), NameTokenizer.hasSymbol(word));
+    }
+
+    @Test
+    public void testTitlesAndSuffixes() {
+        Assert.assertTrue("Dr. is a title", NameTokenizer.isTitle("Dr."));
+        Assert.assertFalse("Ana is not a title", NameTokenizer.isTitle("Ana"));
+        Assert.assertTrue("Jr. is a suffix", NameTokenizer.isSuffix("Jr."));
+    }
+
+}
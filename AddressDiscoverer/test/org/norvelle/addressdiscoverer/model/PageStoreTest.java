@@ -0,0 +1,162 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class PageStoreTest {
+
+    private ConnectionSource connection;
+
+    public PageStoreTest() {
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = new JdbcConnectionSource("jdbc:sqlite::memory:");
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+        PageStore.defaultMaxSnapshots = 10;
+    }
+
+    private void initialize() throws SQLException {
+        Institution.initialize(connection);
+        Department.initialize(connection);
+        Individual.initialize(connection);
+        PageStore.initialize(connection);
+        SchemaMigrator.migrate(connection);
+    }
+
+    private String makePage(int version) {
+        return "<html><body>" + StringUtils.repeat("<p>Pons, José (jpons@unav.es)</p>\n", 500)
+                + "<p>Versión " + version + "</p></body></html>";
+    }
+
+    @Test
+    public void testRoundTripAndDedupe() throws SQLException {
+        this.initialize();
+        Institution institution = Institution.create("Universidad de Navarra");
+        Department filosofia = Department.create("Filosofía", institution);
+        Department derecho = Department.create("Derecho", institution);
+        String page = this.makePage(1);
+
+        Assert.assertNotNull(PageStore.save(filosofia, page, "http://www.unav.es/filosofia"));
+        Assert.assertNotNull(PageStore.save(derecho, page, "http://www.unav.es/derecho"));
+        Assert.assertEquals("The page should come back unchanged", page, 
+                PageStore.getPage(filosofia.getPageHash()));
+        Assert.assertEquals("The department row should refer to the page", 
+                PageStore.hash(page), Department.getById(Integer.toString(derecho.getId())).getPageHash());
+        Assert.assertEquals("A shared page should be stored once", 1, 
+                PageStore.getContentDao().countOf());
+        PageContent content = PageStore.getContentDao().queryForAll().get(0);
+        Assert.assertTrue("The page should be compressed", 
+                content.getData().length < content.getLength() / 4);
+    }
+
+    @Test
+    public void testHashEntries() {
+        String hash = PageStore.hashEntries(Arrays.asList("Llu\u00efsa=1", "Ib\u00e1\u00f1ez=1"));
+        Assert.assertEquals("Order shouldn't matter", hash, 
+                PageStore.hashEntries(Arrays.asList("Ib\u00e1\u00f1ez=1", "Llu\u00efsa=1")));
+        Assert.assertNotEquals("Values should matter", hash, 
+                PageStore.hashEntries(Arrays.asList("Llu\u00efsa=1", "Ib\u00e1\u00f1ez=2")));
+    }
+
+    @Test
+    public void testSharedPagesKept() throws SQLException {
+        this.initialize();
+        PageStore.defaultMaxSnapshots = 1;
+        Institution institution = Institution.create("Universidad de Navarra");
+        Department department = Department.create("Filosofía", institution);
+        Department mirror = Department.create("Filosofía (copia)", institution);
+        PageStore.save(department, this.makePage(1), "http://www.unav.es/");
+        PageStore.save(mirror, this.makePage(1), "http://www.unav.es/copia/");
+        PageStore.save(department, this.makePage(2), "http://www.unav.es/");
+        Assert.assertEquals("A page another department still uses should be kept", 
+                this.makePage(1), PageStore.getLatestPage(mirror));
+        Assert.assertEquals(2, PageStore.getContentDao().countOf());
+        PageStore.save(mirror, this.makePage(3), "http://www.unav.es/copia/");
+        Assert.assertEquals("The page should go once nobody uses it", 2, 
+                PageStore.getContentDao().countOf());
+    }
+
+    @Test
+    public void testHistory() throws SQLException {
+        this.initialize();
+        PageStore.defaultMaxSnapshots = 3;
+        Department department = Department.create("Filosofía", 
+                Institution.create("Universidad de Navarra"));
+        for (int i = 1; i <= 5; i ++)
+            PageStore.save(department, this.makePage(i), "http://www.unav.es/");
+        Assert.assertNull("An unchanged page should not be snapshotted", 
+                PageStore.save(department, this.makePage(5), "http://www.unav.es/"));
+
+        List<PageSnapshot> history = PageStore.getHistory(department);
+        Assert.assertEquals("Only the latest snapshots should be kept", 3, history.size());
+        Assert.assertEquals("The newest should come first", 
+                PageStore.hash(this.makePage(5)), history.get(0).getHash());
+        Assert.assertEquals("Pages no longer referred to should go", 3, 
+                PageStore.getContentDao().countOf());
+
+        Department.delete(department);
+        Assert.assertEquals("Deleting the department should drop its pages", 0, 
+                PageStore.getContentDao().countOf());
+    }
+
+    @Test
+    public void testMigratesDepartmentHtml() throws SQLException {
+        DatabaseConnection conn = connection.getReadWriteConnection();
+        try {
+            conn.executeStatement("CREATE TABLE department (name VARCHAR, webAddress VARCHAR, "
+                    + "html VARCHAR, director VARCHAR, directorEmail VARCHAR, baseUrl VARCHAR, "
+                    + "id INTEGER PRIMARY KEY AUTOINCREMENT, institution_id INTEGER NOT NULL)",
+                    DatabaseConnection.DEFAULT_RESULT_FLAGS);
+            conn.executeStatement("INSERT INTO department (name, webAddress, html, institution_id) "
+                    + "VALUES ('Filosofía', 'http://www.unav.es/', '<p>Pons</p>', 1)",
+                    DatabaseConnection.DEFAULT_RESULT_FLAGS);
+            conn.executeStatement("INSERT INTO department (name, institution_id) "
+                    + "VALUES ('Derecho', 1)", DatabaseConnection.DEFAULT_RESULT_FLAGS);
+        } finally {
+            connection.releaseConnection(conn);
+        }
+        this.initialize();
+
+        List<Department> departments = Department.getAll();
+        Assert.assertEquals("<p>Pons</p>", PageStore.getLatestPage(departments.get(0)));
+        Assert.assertNull("A department without a page should have none", 
+                departments.get(1).getPageHash());
+        conn = connection.getReadOnlyConnection();
+        try {
+            Assert.assertEquals("The old column should have been emptied", 0, 
+                    conn.queryForLong("SELECT COUNT(*) FROM department WHERE html IS NOT NULL"));
+        } finally {
+            connection.releaseConnection(conn);
+        }
+    }
+
+}
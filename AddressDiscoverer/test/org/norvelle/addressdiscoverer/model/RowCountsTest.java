@@ -0,0 +1,112 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.support.ConnectionSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class RowCountsTest {
+
+    private ConnectionSource connection;
+    private Institution institution;
+    private Department department;
+
+    public RowCountsTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        connection = new JdbcConnectionSource("jdbc:sqlite::memory:");
+        Institution.initialize(connection);
+        Department.initialize(connection);
+        Individual.initialize(connection);
+        PageStore.initialize(connection);
+        institution = Institution.create("Universidad de Navarra");
+        department = Department.create("Filosofía", institution);
+
+        // Rows stored before the counts exist should be counted by the migration
+        this.addIndividuals(3);
+        SchemaMigrator.migrate(connection);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    private void addIndividuals(int count) throws Exception {
+        List<Individual> individuals = new ArrayList<>();
+        for (int i = 0; i < count; i ++)
+            individuals.add(new Individual("José", "Pons" + i, "José Pons" + i, 
+                    "jpons" + i + "@unav.es", "", "", "", "Test", department));
+        Individual.storeAll(individuals);
+    }
+
+    private void assertCounts(long institutions, long departments, long individuals) 
+            throws SQLException 
+    {
+        Assert.assertEquals(institutions, RowCounts.getCount("institution"));
+        Assert.assertEquals(departments, RowCounts.getCount("department"));
+        Assert.assertEquals(individuals, RowCounts.getCount("individual"));
+    }
+
+    @Test
+    public void testCountsFollowChanges() throws Exception {
+        this.assertCounts(1, 1, 3);
+        this.addIndividuals(5);
+        Department.create("Derecho", institution);
+        this.assertCounts(1, 2, 8);
+
+        // Set-based deletes are counted just the same
+        Department.deleteDepartmentsForInstitution(institution);
+        this.assertCounts(1, 0, 0);
+    }
+
+    @Test
+    public void testRollbackLeavesCounts() throws Exception {
+        try {
+            TransactionManager.callInTransaction(connection, new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    Individual.getDao().create(new Individual("Ana", "Ruiz", "Ana Ruiz",
+                            "aruiz@unav.es", "", "", "", "Test", department));
+                    Assert.assertEquals(4, RowCounts.getCount("individual"));
+                    throw new SQLException("Rolled back");
+                }
+            });
+            Assert.fail("The transaction should have failed");
+        } catch (SQLException ex) {
+            Assert.assertEquals("Rolled back", ex.getMessage());
+        }
+        this.assertCounts(1, 1, 3);
+    }
+
+    @Test
+    public void testReconcile() throws Exception {
+        Individual.getDao().updateRaw("UPDATE row_count SET n = 42 WHERE name = 'individual'");
+        RowCounts.reconcile();
+        this.assertCounts(1, 1, 3);
+    }
+
+}
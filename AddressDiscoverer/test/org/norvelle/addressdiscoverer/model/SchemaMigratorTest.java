@@ -0,0 +1,74 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import java.sql.SQLException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class SchemaMigratorTest {
+
+    private ConnectionSource connection;
+
+    public SchemaMigratorTest() {
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = new JdbcConnectionSource("jdbc:sqlite::memory:");
+        Institution.initialize(connection);
+        Department.initialize(connection);
+        Individual.initialize(connection);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testMigrate() throws SQLException {
+        Assert.assertEquals("A new database should be at version 0", 0, 
+                SchemaMigrator.getVersion(connection));
+        Assert.assertEquals("Every migration should be applied", 
+                SchemaMigrator.getLatestVersion(), SchemaMigrator.migrate(connection));
+        Assert.assertEquals("The database should be at the latest version", 
+                SchemaMigrator.getLatestVersion(), SchemaMigrator.getVersion(connection));
+        Assert.assertEquals("Nothing should be applied a second time", 0, 
+                SchemaMigrator.migrate(connection));
+        Assert.assertEquals("The individual indexes should exist", 9, 
+                this.countIndexes("individual"));
+        Assert.assertEquals("The department index should exist", 1, 
+                this.countIndexes("department"));
+    }
+
+    // ===================== Private Methods =============================
+
+    private long countIndexes(String table) throws SQLException {
+        DatabaseConnection conn = connection.getReadOnlyConnection();
+        try {
+            return conn.queryForLong("SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' "
+                    + "AND tbl_name = '" + table + "' AND name LIKE '%_idx'");
+        } finally {
+            connection.releaseConnection(conn);
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class TokenClassifierTest {
+
+    public TokenClassifierTest() {
+    }
+
+    @Test
+    public void testLooksUpEachWordOnce() {
+        TokenClassifier tokens = new TokenClassifier();
+        Assert.assertTrue("Dra. should be a title", tokens.isTitle("Dra."));
+        Assert.assertTrue("Dra. should still be a title", tokens.isTitle("Dra."));
+        Assert.assertFalse("Dra. is not a suffix", tokens.isSuffix("Dra."));
+        Assert.assertFalse("Dra. is still not a suffix", tokens.isSuffix("Dra."));
+        Assert.assertEquals("Each kind should be looked up once", 2, tokens.getLookups());
+        Assert.assertEquals("Only the title bit should be set", 
+                TokenClassifier.TITLE, tokens.getClasses("Dra."));
+    }
+
+    @Test
+    public void testWordsAreKeptAsAsked() {
+        TokenClassifier tokens = new TokenClassifier();
+        Assert.assertTrue("Jr. should be a suffix", tokens.isSuffix("Jr."));
+        Assert.assertFalse("Jr should not be a suffix", tokens.isSuffix("Jr"));
+        Assert.assertEquals("Both spellings should be looked up", 2, tokens.getLookups());
+        Assert.assertEquals("Words never asked about have no classes", 
+                0, tokens.getClasses("Ana"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSingleKindOnly() {
+        new TokenClassifier().is("Ana", TokenClassifier.TITLE | TokenClassifier.SUFFIX);
+    }
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Part of the AddressDiscoverer project, licensed under the GPL v.3 license.
+ * This project provides intelligence for discovering email addresses in
+ * specified web pages, associating them with a given institution and department
+ * and address type.
+ *
+ * This project is licensed under the GPL v.3. Your rights to copy and modify
+ * are regulated by the conditions specified in that license, available at
+ * http://www.gnu.org/licenses/gpl-3.0.html
+ */
+package org.norvelle.addressdiscoverer.parse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.norvelle.addressdiscoverer.model.ExtractionStatistics;
+
+/**
+ *
+ * @author Erik Norvelle <erik.norvelle@cyberlogos.co>
+ */
+public class StreamingEmailExtractorTest {
+
+    public StreamingEmailExtractorTest() {
+    }
+
+    @Test
+    public void testStopsAtMailto() throws IOException {
+        String padding = StringUtils.repeat("<p>Lorem ipsum dolor sit amet</p>\n", 10000);
+        String html = "<html><body><a href=\"mailto:jpons@unav.es\">Pons</a>"
+                + padding + "otro@unav.es</body></html>";
+        byte[] bytes = html.getBytes("UTF-8");
+        ExtractionStatistics statistics = new ExtractionStatistics();
+        String email = new StreamingEmailExtractor(statistics).extract(
+                new ByteArrayInputStream(bytes), "UTF-8", bytes.length);
+        Assert.assertEquals("The email should be jpons@unav.es", "jpons@unav.es", email);
+        Assert.assertTrue("Most of the page should have been skipped",
+                statistics.getBytesScanned() < bytes.length / 10);
+        Assert.assertEquals("Skipped bytes should be counted",
+                bytes.length - statistics.getBytesScanned(),
+                statistics.getBytesSkipped());
+    }
+
+    @Test
+    public void testCollectsPlainAddresses() throws IOException {
+        String html = "<html><body>jpons@unav.es, otro@unav.es y jpons@unav.es</body></html>";
+        String email = new StreamingEmailExtractor().extract(
+                new ByteArrayInputStream(html.getBytes("UTF-8")), "UTF-8", -1);
+        Assert.assertEquals("Both distinct emails should be found",
+                "jpons@unav.es, otro@unav.es", email);
+    }
+
+    @Test
+    public void testAddressAcrossChunkBoundary() throws IOException {
+        String padding = StringUtils.repeat("x", 8192 - 5) + " ";
+        String html = padding + "jpons.garcia@unav.es";
+        String email = new StreamingEmailExtractor().extract(
+                new ByteArrayInputStream(html.getBytes("UTF-8")), "UTF-8", -1);
+        Assert.assertEquals("The split email should be found whole", "jpons.garcia@unav.es", email);
+    }
+
+    @Test
+    public void testMailtoAcrossChunkBoundary() throws IOException {
+        String padding = StringUtils.repeat("x", 8192 - 16) + " ";
+        String html = padding + "otro@unav.es mailto:jpons@unav.es";
+        String email = new StreamingEmailExtractor().extract(
+                new ByteArrayInputStream(html.getBytes("UTF-8")), "UTF-8", -1);
+        Assert.assertEquals("The split mailto: should still be recognized", 
+                "jpons@unav.es", email);
+    }
+
+    @Test
+    public void testSkipsHeadAndScripts() throws IOException {
+        String html = "<html><head><meta name=\"author\" content=\"webmaster@unav.es\">"
+                + "</head><body><script>var a = 'mailto:spam@unav.es';</script>"
+                + "<header>jpons@unav.es</header><style>/* css@unav.es */</style>"
+                + "otro@unav.es</body></html>";
+        String email = new StreamingEmailExtractor().extract(
+                new ByteArrayInputStream(html.getBytes("UTF-8")), "UTF-8", -1);
+        Assert.assertEquals("Only addresses in the body text should be found",
+                "jpons@unav.es, otro@unav.es", email);
+    }
+
+    @Test
+    public void testByteCap() throws IOException {
+        String padding = StringUtils.repeat(" ", 4096);
+        String html = padding + "jpons@unav.es";
+        ExtractionStatistics statistics = new ExtractionStatistics();
+        String email = new StreamingEmailExtractor(statistics, 1024).extract(
+                new ByteArrayInputStream(html.getBytes("UTF-8")), "UTF-8", -1);
+        Assert.assertEquals("Nothing past the cap should be read", "", email);
+        Assert.assertEquals("Exactly the cap should be read", 1024, statistics.getBytesScanned());
+    }
+
+}
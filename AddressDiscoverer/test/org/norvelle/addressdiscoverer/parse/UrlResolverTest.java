@@ -70,4 +70,18 @@ public class UrlResolverTest {
         Assert.assertEquals("Bad URL resolution", "http://directori.ub.edu/dir/?accio=SEL&id=1h6zw0m31i67t72r&lang=ca", resolvedUrl);
     }
     
+    @Test
+    public void testContextBaseUrls() {
+        StructuredPageContactLinkLocator.baseUrl = "http://www.unav.es/";
+        ExtractionContext upf = new ExtractionContext(
+                "http://www.upf.edu/filosofiadeldret/en/professors/permanents/", "UTF-8", null, null);
+        ExtractionContext ub = new ExtractionContext(
+                "http://directori.ub.edu/dir/?accio=SRCH&unitat=65541", "UTF-8", null, null);
+        Assert.assertEquals("Bad URL resolution", 
+                "http://www.upf.edu/filosofiadeldret/en/professors/permanents/moreso.html",
+                upf.resolveAddress("moreso.html"));
+        Assert.assertEquals("Bad URL resolution", 
+                "http://directori.ub.edu/dir/moreso.html", ub.resolveAddress("moreso.html"));
+    }
+    
 }